@@ -0,0 +1,109 @@
+package com.github.rawls238.scientist4j.benchmarks;
+
+import com.github.rawls238.scientist4j.Experiment;
+import com.github.rawls238.scientist4j.ExperimentBuilder;
+import com.github.rawls238.scientist4j.ExperimentExecutor;
+import com.github.rawls238.scientist4j.IncompatibleTypesExperiment;
+import com.github.rawls238.scientist4j.IncompatibleTypesExperimentBuilder;
+import com.github.rawls238.scientist4j.OrderingStrategy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * {@link Experiment} and {@link IncompatibleTypesExperiment} configured the same way and run on the same functions,
+ * in each mode they share. Since both run on the same engine, each pair should be within noise of each other.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EngineParityBenchmark {
+
+    private final Callable<Integer> function = () -> 42;
+    private final Supplier<CompletionStage<Integer>> stage = () -> CompletableFuture.completedFuture(42);
+    private ExperimentExecutor executor;
+    private Experiment<Integer> experiment;
+    private IncompatibleTypesExperiment<Integer, Integer> incompatibleTypesExperiment;
+
+    @Setup
+    public void setUp() {
+        executor = new ExperimentExecutor(ExperimentExecutor.DEFAULT_THREADS, ExperimentExecutor.DEFAULT_QUEUE_CAPACITY,
+            ExperimentExecutor.SaturationPolicy.DROP_CANDIDATE);
+        experiment = new ExperimentBuilder<Integer>()
+            .withName("benchmark")
+            .withMetricsProvider(new NoopMetricsProvider())
+            .withComparator(Integer::equals)
+            .withOrderingStrategy(OrderingStrategy.alwaysControlFirst())
+            .withExecutorService(executor)
+            .build();
+        incompatibleTypesExperiment = new IncompatibleTypesExperimentBuilder<Integer, Integer>()
+            .withName("benchmark")
+            .withMetricsProvider(new NoopMetricsProvider())
+            .withComparator(Integer::equals)
+            .withOrderingStrategy(OrderingStrategy.alwaysControlFirst())
+            .withExecutorService(executor)
+            .build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.close();
+    }
+
+    @Benchmark
+    public Integer experimentRunSync() throws Exception {
+        return experiment.run(function, function);
+    }
+
+    @Benchmark
+    public Integer incompatibleTypesRunSync() throws Exception {
+        return incompatibleTypesExperiment.run(function, function);
+    }
+
+    @Benchmark
+    public Integer experimentRunAsync() throws Exception {
+        return experiment.runAsync(function, function);
+    }
+
+    @Benchmark
+    public Integer incompatibleTypesRunAsync() throws Exception {
+        return incompatibleTypesExperiment.runAsync(function, function);
+    }
+
+    @Benchmark
+    public Integer experimentRunAsyncCandidateOnly() throws Exception {
+        return experiment.runAsyncCandidateOnly(function, function);
+    }
+
+    @Benchmark
+    public Integer incompatibleTypesRunAsyncCandidateOnly() throws Exception {
+        return incompatibleTypesExperiment.runAsyncCandidateOnly(function, function);
+    }
+
+    @Benchmark
+    public Integer experimentRunAsyncStage() {
+        return experiment.runAsync(stage, stage).toCompletableFuture().join();
+    }
+
+    @Benchmark
+    public Integer incompatibleTypesRunAsyncStage() {
+        return incompatibleTypesExperiment.runAsync(stage, stage).toCompletableFuture().join();
+    }
+}
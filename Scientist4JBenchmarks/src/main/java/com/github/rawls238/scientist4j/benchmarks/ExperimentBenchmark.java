@@ -0,0 +1,107 @@
+package com.github.rawls238.scientist4j.benchmarks;
+
+import com.github.rawls238.scientist4j.Experiment;
+import com.github.rawls238.scientist4j.ExperimentBuilder;
+import com.github.rawls238.scientist4j.ExperimentExecutor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The per-call cost of wrapping a trivial function in an experiment, in each execution mode, against calling the
+ * function directly.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExperimentBenchmark {
+
+    private final Callable<Integer> control = () -> 42;
+    private final Callable<Integer> candidate = () -> 42;
+    private ExperimentExecutor executor;
+    private Experiment<Integer> experiment;
+    private Experiment<Integer> lowAllocationExperiment;
+    private Experiment<Integer> disabledExperiment;
+    private Experiment<Integer> bypassedExperiment;
+
+    @Setup
+    public void setUp() {
+        executor = new ExperimentExecutor(ExperimentExecutor.DEFAULT_THREADS, ExperimentExecutor.DEFAULT_QUEUE_CAPACITY,
+            ExperimentExecutor.SaturationPolicy.DROP_CANDIDATE);
+        experiment = new ExperimentBuilder<Integer>()
+            .withName("benchmark")
+            .withMetricsProvider(new NoopMetricsProvider())
+            .withExecutorService(executor)
+            .build();
+        lowAllocationExperiment = new ExperimentBuilder<Integer>()
+            .withName("benchmark")
+            .withMetricsProvider(new NoopMetricsProvider())
+            .withLowAllocation(true)
+            .build();
+        disabledExperiment = disabled(new ExperimentBuilder<Integer>());
+        bypassedExperiment = disabled(new ExperimentBuilder<Integer>().withBypassWhenDisabled(true, false));
+    }
+
+    private static Experiment<Integer> disabled(ExperimentBuilder<Integer> builder) {
+        return new Experiment<Integer>(builder.withName("benchmark").withMetricsProvider(new NoopMetricsProvider())) {
+            @Override
+            protected boolean enabled() {
+                return false;
+            }
+        };
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.close();
+    }
+
+    @Benchmark
+    public Integer baseline() throws Exception {
+        return control.call();
+    }
+
+    @Benchmark
+    public Integer runSync() throws Exception {
+        return experiment.run(control, candidate);
+    }
+
+    @Benchmark
+    public Integer runSyncLowAllocation() throws Exception {
+        return lowAllocationExperiment.run(control, candidate);
+    }
+
+    @Benchmark
+    public Integer runSyncDisabled() throws Exception {
+        return disabledExperiment.run(control, candidate);
+    }
+
+    @Benchmark
+    public Integer runSyncDisabledBypassed() throws Exception {
+        return bypassedExperiment.run(control, candidate);
+    }
+
+    @Benchmark
+    public Integer runAsync() throws Exception {
+        return experiment.runAsync(control, candidate);
+    }
+
+    @Benchmark
+    public Integer runAsyncCandidateOnly() throws Exception {
+        return experiment.runAsyncCandidateOnly(control, candidate);
+    }
+}
@@ -0,0 +1,64 @@
+package com.github.rawls238.scientist4j.benchmarks;
+
+import com.github.rawls238.scientist4j.ExperimentExecutor;
+import com.github.rawls238.scientist4j.IncompatibleTypesExperiment;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The per-call cost of an {@link IncompatibleTypesExperiment}, for comparison with {@link ExperimentBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IncompatibleTypesExperimentBenchmark {
+
+    private final Callable<Integer> control = () -> 42;
+    private final Callable<String> candidate = () -> "42";
+    private ExperimentExecutor executor;
+    private IncompatibleTypesExperiment<Integer, String> experiment;
+
+    @Setup
+    public void setUp() {
+        executor = new ExperimentExecutor(ExperimentExecutor.DEFAULT_THREADS, ExperimentExecutor.DEFAULT_QUEUE_CAPACITY,
+            ExperimentExecutor.SaturationPolicy.DROP_CANDIDATE);
+        experiment = new IncompatibleTypesExperiment<>("benchmark", new HashMap<>(), false, new NoopMetricsProvider(),
+            (integer, s) -> String.valueOf(integer).equals(s), executor);
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.close();
+    }
+
+    @Benchmark
+    public Integer runSync() throws Exception {
+        return experiment.run(control, candidate);
+    }
+
+    @Benchmark
+    public Integer runAsync() throws Exception {
+        return experiment.runAsync(control, candidate);
+    }
+
+    @Benchmark
+    public Integer runAsyncCandidateOnly() throws Exception {
+        return experiment.runAsyncCandidateOnly(control, candidate);
+    }
+}
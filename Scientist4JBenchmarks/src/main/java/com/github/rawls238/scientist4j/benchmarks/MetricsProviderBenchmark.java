@@ -0,0 +1,97 @@
+package com.github.rawls238.scientist4j.benchmarks;
+
+import com.github.rawls238.scientist4j.Experiment;
+import com.github.rawls238.scientist4j.ExperimentBuilder;
+import com.github.rawls238.scientist4j.ExperimentMetrics;
+import com.github.rawls238.scientist4j.metrics.DropwizardMetricsProvider;
+import com.github.rawls238.scientist4j.metrics.MetricKey;
+import com.github.rawls238.scientist4j.metrics.MetricsProvider;
+import com.github.rawls238.scientist4j.metrics.MicrometerMetricsProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The cost of the timers and counters an experiment updates on every call, per metrics library, and of looking them
+ * up when an experiment is constructed: by name components, by interned {@link MetricKey}, and not at all when the
+ * experiment is handed pre-resolved {@link ExperimentMetrics}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetricsProviderBenchmark {
+
+    @Param({"dropwizard", "micrometer"})
+    public String provider;
+
+    private final Runnable work = () -> {
+    };
+    private MetricsProvider.Timer timer;
+    private MetricsProvider.Counter counter;
+    private MetricsProvider<?> metricsProvider;
+    private MetricKey key;
+    private ExperimentMetrics experimentMetrics;
+
+    @Setup
+    public void setUp() {
+        metricsProvider = "dropwizard".equals(provider)
+            ? new DropwizardMetricsProvider() : new MicrometerMetricsProvider();
+        timer = metricsProvider.timer("scientist", "benchmark", "control");
+        counter = metricsProvider.counter("scientist", "benchmark", "total");
+        key = MetricKey.of("scientist", "benchmark", "control");
+        experimentMetrics = ExperimentMetrics.resolve(metricsProvider, "benchmark");
+    }
+
+    @Benchmark
+    public MetricsProvider.Timer lookupByName() {
+        return metricsProvider.timer("scientist", "benchmark", "control");
+    }
+
+    @Benchmark
+    public MetricsProvider.Timer lookupByKey() {
+        return metricsProvider.timer(key);
+    }
+
+    @Benchmark
+    public Experiment<Integer> newExperiment() {
+        return new ExperimentBuilder<Integer>()
+            .withName("benchmark")
+            .withMetricsProvider(metricsProvider)
+            .build();
+    }
+
+    @Benchmark
+    public Experiment<Integer> newExperimentWithResolvedMetrics() {
+        return new ExperimentBuilder<Integer>()
+            .withMetrics(experimentMetrics)
+            .build();
+    }
+
+    @Benchmark
+    public long timerTime() {
+        return timer.time(work);
+    }
+
+    @Benchmark
+    public void timerRecord() {
+        timer.record(1_000, TimeUnit.NANOSECONDS);
+    }
+
+    @Benchmark
+    public void counterIncrement() {
+        counter.increment();
+    }
+}
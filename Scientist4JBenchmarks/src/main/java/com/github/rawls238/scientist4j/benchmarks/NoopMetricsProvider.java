@@ -0,0 +1,30 @@
+package com.github.rawls238.scientist4j.benchmarks;
+
+import com.github.rawls238.scientist4j.metrics.MetricsProvider;
+
+/**
+ * A {@link MetricsProvider} that records nothing, so benchmarks measure the experiment rather than a registry.
+ */
+public class NoopMetricsProvider implements MetricsProvider<Object> {
+
+    @Override
+    public Timer timer(String... nameComponents) {
+        return new Timer() {
+        };
+    }
+
+    @Override
+    public Counter counter(String... nameComponents) {
+        return () -> {
+        };
+    }
+
+    @Override
+    public Object getRegistry() {
+        return null;
+    }
+
+    @Override
+    public void setRegistry(Object registry) {
+    }
+}
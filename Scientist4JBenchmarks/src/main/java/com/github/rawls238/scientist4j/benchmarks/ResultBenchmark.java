@@ -0,0 +1,71 @@
+package com.github.rawls238.scientist4j.benchmarks;
+
+import com.github.rawls238.scientist4j.Experiment;
+import com.github.rawls238.scientist4j.Observation;
+import com.github.rawls238.scientist4j.Result;
+import com.github.rawls238.scientist4j.exceptions.MismatchException;
+import com.github.rawls238.scientist4j.metrics.MetricsProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The cost of building a {@link Result}, which is where control and candidate are compared.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResultBenchmark {
+
+    private final Map<String, Object> context = new HashMap<>();
+    private Experiment<String> experiment;
+    private Observation<String> control;
+    private Optional<Observation<String>> matchingCandidate;
+    private Optional<Observation<String>> mismatchingCandidate;
+
+    @Setup
+    public void setUp() {
+        MetricsProvider<?> metricsProvider = new NoopMetricsProvider();
+        experiment = new Experiment<>("benchmark", metricsProvider);
+        MetricsProvider.Timer timer = metricsProvider.timer("benchmark");
+        control = observation("control", timer, "a value that is compared");
+        matchingCandidate = Optional.of(observation("candidate", timer, "a value that is compared"));
+        mismatchingCandidate = Optional.of(observation("candidate", timer, "a value that is different"));
+    }
+
+    private static Observation<String> observation(String name, MetricsProvider.Timer timer, String value) {
+        Observation<String> observation = new Observation<>(name, timer);
+        observation.setValue(value);
+        return observation;
+    }
+
+    @Benchmark
+    public Result<String> match() throws MismatchException {
+        return new Result<>(experiment, control, matchingCandidate, context);
+    }
+
+    @Benchmark
+    public Result<String> mismatch() throws MismatchException {
+        return new Result<>(experiment, control, mismatchingCandidate, context);
+    }
+
+    @Benchmark
+    public Result<String> controlOnly() throws MismatchException {
+        return new Result<>(experiment, control, Optional.empty(), context);
+    }
+}
@@ -0,0 +1,103 @@
+package com.github.rawls238.scientist4j.benchmarks;
+
+import com.github.rawls238.scientist4j.Experiment;
+import com.github.rawls238.scientist4j.ExperimentBuilder;
+import com.github.rawls238.scientist4j.ExperimentExecutor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Thousands of experiments in flight at once, each with a control and candidate that block for a millisecond as a
+ * stand-in for I/O, run on the bounded platform-thread pool and on virtual threads. Raising on mismatch makes each
+ * caller wait for its candidate too. Every batch is driven from the same caller threads, so only the experiment
+ * executor differs. Compare the batch throughput and, with the GC profiler, the allocation per batch.
+ * <p>
+ * The {@code virtual} executor falls back to the platform pool on JVMs before Java 21, which makes both rows equal.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VirtualThreadBenchmark {
+
+    @Param({"platform", "virtual"})
+    public String executor;
+
+    @Param({"1000", "5000"})
+    public int concurrentExperiments;
+
+    private final Callable<Integer> blockingCall = () -> {
+        Thread.sleep(1);
+        return 42;
+    };
+    private ExperimentExecutor platformExecutor;
+    private ExecutorService callers;
+    private Experiment<Integer> experiment;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ExperimentBuilder<Integer> builder = new ExperimentBuilder<Integer>()
+            .withName("benchmark")
+            .withMetricsProvider(new NoopMetricsProvider())
+            .withRaiseOnMismatch(true);
+        if ("virtual".equals(executor)) {
+            builder.withVirtualThreads(true);
+        } else {
+            // room for every candidate, so that both executors do the same work
+            platformExecutor = new ExperimentExecutor("benchmark", ExperimentExecutor.DEFAULT_THREADS,
+                concurrentExperiments * 2, ExperimentExecutor.SaturationPolicy.DROP_CANDIDATE, null);
+            builder.withExecutorService(platformExecutor);
+        }
+        experiment = builder.build();
+        callers = Executors.newCachedThreadPool();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        callers.shutdownNow();
+        if (platformExecutor != null) {
+            platformExecutor.close();
+        }
+    }
+
+    @Benchmark
+    public void concurrentExperiments() throws Exception {
+        CountDownLatch done = new CountDownLatch(concurrentExperiments);
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        for (int i = 0; i < concurrentExperiments; i++) {
+            callers.execute(() -> {
+                try {
+                    experiment.runAsync(blockingCall, blockingCall);
+                } catch (Exception e) {
+                    failure.set(e);
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+    }
+}
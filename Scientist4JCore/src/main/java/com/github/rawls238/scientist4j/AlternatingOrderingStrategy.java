@@ -0,0 +1,21 @@
+package com.github.rawls238.scientist4j;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+class AlternatingOrderingStrategy implements OrderingStrategy {
+
+    /**
+     * Counters are spaced a cache line apart so stripes don't false-share.
+     */
+    private static final int PADDING = 8;
+    private static final int STRIPES = Math.min(64, Integer.highestOneBit(
+        Math.max(1, Runtime.getRuntime().availableProcessors() - 1)) << 1);
+
+    private final AtomicLongArray counters = new AtomicLongArray(STRIPES * PADDING);
+
+    @Override
+    public boolean controlFirst() {
+        int stripe = (int) Thread.currentThread().getId() & (STRIPES - 1);
+        return (counters.getAndIncrement(stripe * PADDING) & 1) == 0;
+    }
+}
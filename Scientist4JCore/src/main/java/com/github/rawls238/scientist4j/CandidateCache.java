@@ -0,0 +1,82 @@
+package com.github.rawls238.scientist4j;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Remembers the outcome of recent comparisons by key, so that a repeated request can skip its candidate.
+ * <p>
+ * Entries expire {@code ttlNanos} after they were stored. At most {@code maxKeys} entries are kept; beyond that the
+ * oldest are evicted first. Lookups and updates don't lock.
+ */
+final class CandidateCache {
+    private final Function<? super Map<String, Object>, ?> keyExtractor;
+    private final long ttlNanos;
+    private final int maxKeys;
+    private final ConcurrentHashMap<Object, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Entry> insertionOrder = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+
+    CandidateCache(Function<? super Map<String, Object>, ?> keyExtractor, long ttlNanos, int maxKeys) {
+        if (maxKeys < 1) {
+            throw new IllegalArgumentException("maxKeys must be positive: " + maxKeys);
+        }
+        this.keyExtractor = keyExtractor;
+        this.ttlNanos = ttlNanos;
+        this.maxKeys = maxKeys;
+    }
+
+    /**
+     * @return the key for a call's context, or null if the call shouldn't be deduplicated
+     */
+    Object key(Map<String, Object> context) {
+        return keyExtractor.apply(context);
+    }
+
+    /**
+     * @return whether the last comparison for {@code key} matched, or null if there is none within the TTL
+     */
+    Boolean get(Object key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (System.nanoTime() - entry.expiresAt >= 0) {
+            entries.remove(key, entry);
+            return null;
+        }
+        return entry.matched;
+    }
+
+    void put(Object key, boolean matched) {
+        Entry entry = new Entry(key, matched, System.nanoTime() + ttlNanos);
+        entries.put(key, entry);
+        insertionOrder.add(entry);
+        if (queued.incrementAndGet() > maxKeys) {
+            Entry oldest = insertionOrder.poll();
+            if (oldest != null) {
+                queued.decrementAndGet();
+                entries.remove(oldest.key, oldest);
+            }
+        }
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private static final class Entry {
+        final Object key;
+        final boolean matched;
+        final long expiresAt;
+
+        Entry(Object key, boolean matched, long expiresAt) {
+            this.key = key;
+            this.matched = matched;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package com.github.rawls238.scientist4j;
+
+import com.github.rawls238.scientist4j.metrics.MetricsProvider;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Enforces an experiment's candidate timeout and its cap on in-flight candidates.
+ * <p>
+ * An asynchronous candidate takes a {@link Permit} before it is submitted and gives it back once it stops running, or
+ * when it is abandoned before it started. A candidate that times out on an executor is interrupted but keeps its permit
+ * until it actually returns, so a hung candidate counts against the cap for as long as it holds a thread.
+ */
+final class CandidateGuard {
+    private static final Permit UNGUARDED = new Permit(null, 0);
+    private static final int PENDING = 0;
+    private static final int RUNNING = 1;
+    private static final int RELEASED = 2;
+
+    private volatile long timeoutNanos;
+    private final int maxInFlight;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final MetricsProvider.Counter timeoutCount;
+    private final MetricsProvider.Counter throttledCount;
+
+    /**
+     * @param timeoutNanos zero or less for no timeout
+     * @param maxInFlight  zero or less for no cap
+     */
+    CandidateGuard(long timeoutNanos, int maxInFlight, MetricsProvider.Counter timeoutCount,
+                   MetricsProvider.Counter throttledCount) {
+        this.timeoutNanos = timeoutNanos;
+        this.maxInFlight = maxInFlight;
+        this.timeoutCount = timeoutCount;
+        this.throttledCount = throttledCount;
+    }
+
+    /**
+     * Claims a slot for a candidate that runs on the calling thread; pair with {@link #exit()}.
+     *
+     * @return false if the cap has been reached and the candidate should be skipped
+     */
+    boolean enter() {
+        if (maxInFlight <= 0) {
+            return true;
+        }
+        while (true) {
+            int current = inFlight.get();
+            if (current >= maxInFlight) {
+                throttledCount.increment();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    void exit() {
+        if (maxInFlight > 0) {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    /**
+     * Claims a slot for a candidate that runs asynchronously.
+     *
+     * @return null if the cap has been reached and the candidate should be skipped
+     */
+    Permit tryAcquire() {
+        long timeout = timeoutNanos;
+        if (maxInFlight <= 0 && timeout <= 0) {
+            return UNGUARDED;
+        }
+        if (!enter()) {
+            return null;
+        }
+        return new Permit(this, timeout > 0 ? System.nanoTime() + timeout : 0);
+    }
+
+    /**
+     * Changes the timeout of candidates that acquire their permit from now on.
+     */
+    void setTimeoutNanos(long timeoutNanos) {
+        this.timeoutNanos = timeoutNanos;
+    }
+
+    int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Submits a candidate that holds {@code permit} while it runs. Past its deadline the candidate is cancelled and
+     * interrupted, the timeout is counted and the returned future completes with {@code droppedValue} instead, as it
+     * does if the executor drops the candidate. Nothing waits for the candidate in the meantime.
+     */
+    <V> CompletableFuture<V> submit(ExperimentExecutor executor, Permit permit, Callable<V> candidate, V droppedValue) {
+        if (permit == UNGUARDED) {
+            return executor.submitCandidate(candidate, droppedValue);
+        }
+        CompletableFuture<V> future;
+        try {
+            future = executor.submitCandidate(() -> {
+                if (!permit.start()) {
+                    return droppedValue;
+                }
+                try {
+                    return candidate.call();
+                } finally {
+                    permit.finish();
+                }
+            }, droppedValue);
+        } catch (RuntimeException e) {
+            permit.release();
+            throw e;
+        }
+        if (future.isDone()) {
+            // either dropped by the executor, or already run; release() is a no-op in the latter case
+            permit.release();
+            return future;
+        }
+        if (permit.deadline == 0) {
+            return future;
+        }
+        CompletableFuture<V> guarded = new CompletableFuture<>();
+        AtomicBoolean settled = new AtomicBoolean();
+        // whatever depends on the candidate runs where it completes, so time out on the executor, not on the scheduler
+        ScheduledFuture<?> timeout = Timeouts.SCHEDULER.schedule(() -> executor.executeOrRun(() -> {
+            if (settled.compareAndSet(false, true)) {
+                timeoutCount.increment();
+                future.cancel(true);
+                permit.release();
+                guarded.complete(droppedValue);
+            }
+        }), Math.max(0, permit.deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        future.whenComplete((value, throwable) -> {
+            timeout.cancel(false);
+            if (!settled.compareAndSet(false, true)) {
+                return;
+            }
+            if (throwable == null) {
+                guarded.complete(value);
+            } else {
+                guarded.completeExceptionally(throwable);
+            }
+        });
+        return guarded;
+    }
+
+    /**
+     * Guards an already running candidate stage. The permit is given back when the stage completes; on timeout the
+     * stage is cancelled, the timeout is counted and the returned future completes with null instead.
+     */
+    <V> CompletableFuture<V> guard(CompletableFuture<V> stage, Permit permit) {
+        if (permit == UNGUARDED) {
+            return stage;
+        }
+        permit.start();
+        if (permit.deadline == 0) {
+            stage.whenComplete((value, throwable) -> permit.finish());
+            return stage;
+        }
+        CompletableFuture<V> guarded = new CompletableFuture<>();
+        AtomicBoolean settled = new AtomicBoolean();
+        ScheduledFuture<?> timeout = Timeouts.SCHEDULER.schedule(() -> {
+            if (settled.compareAndSet(false, true)) {
+                timeoutCount.increment();
+                stage.cancel(true);
+                guarded.complete(null);
+            }
+        }, Math.max(0, permit.deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        stage.whenComplete((value, throwable) -> {
+            timeout.cancel(false);
+            permit.finish();
+            if (!settled.compareAndSet(false, true)) {
+                return;
+            }
+            if (throwable == null) {
+                guarded.complete(value);
+            } else {
+                guarded.completeExceptionally(throwable);
+            }
+        });
+        return guarded;
+    }
+
+    /**
+     * Passes the cancellation of a timed out stage on to the stage it was derived from, where that is supported.
+     */
+    static void propagateCancellation(CompletableFuture<?> future, CompletionStage<?> source) {
+        future.whenComplete((value, throwable) -> {
+            if (future.isCancelled()) {
+                try {
+                    source.toCompletableFuture().cancel(true);
+                } catch (UnsupportedOperationException ignored) {
+                    // the source can't be cancelled from here
+                }
+            }
+        });
+    }
+
+    /**
+     * One candidate's claim on its experiment's in-flight cap, along with its deadline.
+     */
+    static final class Permit {
+        private final CandidateGuard guard;
+        private final long deadline;
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+
+        private Permit(CandidateGuard guard, long deadline) {
+            this.guard = guard;
+            this.deadline = deadline;
+        }
+
+        /**
+         * @return false if the candidate was abandoned before it started and must not run
+         */
+        boolean start() {
+            return state.compareAndSet(PENDING, RUNNING);
+        }
+
+        void finish() {
+            if (state.getAndSet(RELEASED) != RELEASED) {
+                guard.exit();
+            }
+        }
+
+        /**
+         * Gives the slot back if the candidate never started.
+         */
+        void release() {
+            if (state.compareAndSet(PENDING, RELEASED)) {
+                guard.exit();
+            }
+        }
+    }
+
+    private static final class Timeouts {
+        static final ScheduledThreadPoolExecutor SCHEDULER = newScheduler();
+
+        private static ScheduledThreadPoolExecutor newScheduler() {
+            ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1,
+                new ExperimentExecutor.DaemonThreadFactory("scientist-candidate-timeout"));
+            scheduler.setRemoveOnCancelPolicy(true);
+            return scheduler;
+        }
+    }
+}
@@ -1,33 +1,57 @@
 package com.github.rawls238.scientist4j;
 
+import com.github.rawls238.scientist4j.aggregation.Fingerprint;
+import com.github.rawls238.scientist4j.aggregation.MismatchAggregator;
+import com.github.rawls238.scientist4j.diff.Differ;
 import com.github.rawls238.scientist4j.exceptions.MismatchException;
+import com.github.rawls238.scientist4j.latency.ExperimentLatencies;
 import com.github.rawls238.scientist4j.metrics.MetricsProvider;
+import com.github.rawls238.scientist4j.publish.ResultPublisher;
+import com.github.rawls238.scientist4j.replay.CaptureLog;
+import com.github.rawls238.scientist4j.replay.ReplayRunner;
+import com.github.rawls238.scientist4j.sampling.SamplingPolicy;
 
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutionException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
 import java.util.function.BiFunction;
+import java.util.function.Supplier;
 
 public class Experiment<T> {
+    private static final MetricsProvider.Timer REPLAYED_TIMER = new MetricsProvider.Timer() {
+    };
 
-    private final ExecutorService executor;
-    private static final String NAMESPACE_PREFIX = "scientist";
+    private final ExperimentExecutor executor;
     private final MetricsProvider<?> metricsProvider;
     private final String name;
     private final boolean raiseOnMismatch;
-    private Map<String, Object> context;
+    private final ExperimentContext context;
     private final MetricsProvider.Timer controlTimer;
     private final MetricsProvider.Timer candidateTimer;
     private final MetricsProvider.Counter mismatchCount;
     private final MetricsProvider.Counter candidateExceptionCount;
     private final MetricsProvider.Counter totalCount;
     private final BiFunction<T, T, Boolean> comparator;
+    private final SamplingPolicy samplingPolicy;
+    private final OrderingStrategy orderingStrategy;
+    private final ThreadLocal<SyncCarrier<T>> syncCarriers;
+    private final ResultPublisher<Result<T>> resultPublisher;
+    private final CandidateGuard candidateGuard;
+    private final int mismatchMessageBudget;
+    private final MismatchAggregator<Result<T>> mismatchAggregator;
+    private final ExperimentLatencies latencies;
+    private final Differ<? super T, ? super T> differ;
+    private final CandidateCache candidateCache;
+    private final MetricsProvider.Counter deduplicatedCount;
+    private final ExperimentMetrics metrics;
+    private final Engine engine;
 
     public Experiment(MetricsProvider<?> metricsProvider) {
         this("Experiment", metricsProvider);
@@ -51,23 +75,58 @@ public class Experiment<T> {
 
     public Experiment(String name, Map<String, Object> context, boolean raiseOnMismatch,
                       MetricsProvider<?> metricsProvider, BiFunction<T, T, Boolean> comparator) {
-        this(name, context, raiseOnMismatch, metricsProvider, comparator, Executors.newFixedThreadPool(2));
+        this(name, context, raiseOnMismatch, metricsProvider, comparator, ExperimentExecutor.getDefault());
     }
 
     public Experiment(String name, Map<String, Object> context, boolean raiseOnMismatch,
                       MetricsProvider<?> metricsProvider, BiFunction<T, T, Boolean> comparator,
                       ExecutorService executorService) {
-        this.name = name;
-        this.context = context;
-        this.raiseOnMismatch = raiseOnMismatch;
-        this.comparator = comparator;
-        this.metricsProvider = metricsProvider;
-        controlTimer = getMetricsProvider().timer(NAMESPACE_PREFIX, this.name, "control");
-        candidateTimer = getMetricsProvider().timer(NAMESPACE_PREFIX, this.name, "candidate");
-        mismatchCount = getMetricsProvider().counter(NAMESPACE_PREFIX, this.name, "mismatch");
-        candidateExceptionCount = getMetricsProvider().counter(NAMESPACE_PREFIX, this.name, "candidate.exception");
-        totalCount = getMetricsProvider().counter(NAMESPACE_PREFIX, this.name, "total");
-        executor = executorService;
+        this(new ExperimentBuilder<T>()
+            .withName(name)
+            .withContext(context)
+            .withRaiseOnMismatch(raiseOnMismatch)
+            .withMetricsProvider(metricsProvider)
+            .withComparator(comparator)
+            .withExecutorService(executorService));
+    }
+
+    /**
+     * Creates an experiment from a builder; lets subclasses use every option {@link ExperimentBuilder} offers.
+     */
+    protected Experiment(ExperimentBuilder<T> builder) {
+        this.name = builder.getName();
+        this.context = ExperimentContext.of(builder.getContext());
+        this.raiseOnMismatch = builder.getRaiseOnMismatch();
+        this.comparator = builder.getComparator();
+        this.metricsProvider = builder.getMetricsProvider();
+        this.samplingPolicy = builder.getSamplingPolicy();
+        this.orderingStrategy = builder.getOrderingStrategy();
+        this.resultPublisher = builder.getResultPublisher();
+        this.mismatchMessageBudget = builder.getMismatchMessageBudget();
+        this.differ = builder.getDiffer();
+        this.mismatchAggregator = builder.getMismatchAggregator();
+        this.latencies = builder.getLatencyHistograms() ? new ExperimentLatencies() : null;
+        this.candidateCache = builder.newCandidateCache();
+        ExperimentMetrics metrics = builder.getMetrics();
+        if (metrics == null || !metrics.isFor(getMetricsProvider(), this.name)) {
+            metrics = ExperimentMetrics.resolve(getMetricsProvider(), this.name);
+        }
+        this.metrics = metrics;
+        controlTimer = metrics.controlTimer;
+        candidateTimer = metrics.candidateTimer;
+        mismatchCount = metrics.mismatchCount;
+        candidateExceptionCount = metrics.candidateExceptionCount;
+        totalCount = metrics.totalCount;
+        deduplicatedCount = metrics.deduplicatedCount;
+        candidateGuard = new CandidateGuard(builder.getCandidateTimeoutNanos(), builder.getMaxInFlightCandidates(),
+            metrics.timeoutCount, metrics.throttledCount);
+        executor = builder.getVirtualThreads() && ExperimentExecutor.isVirtualThreadsSupported()
+            ? ExperimentExecutor.getVirtualThreads() : ExperimentExecutor.of(builder.getExecutorService());
+        syncCarriers = builder.getLowAllocation() && resultPublisher == null && mismatchAggregator == null
+            && candidateCache == null
+            ? ThreadLocal.withInitial(() -> new SyncCarrier<>(controlTimer, candidateTimer)) : null;
+        engine = new Engine(builder.getBypassWhenDisabled(),
+            builder.getBypassWhenDisabled() && builder.getCountBypassed() ? metrics.bypassedCount : null);
     }
 
     /**
@@ -83,159 +142,477 @@ public class Experiment<T> {
      * function may be significantly slower than the control, it is <em>not</em> recommended to raise on mismatch.
      */
     public boolean getRaiseOnMismatch() {
-        return raiseOnMismatch;
+        ExperimentConfig current = engine.config();
+        return current == null ? raiseOnMismatch : current.getRaiseOnMismatch();
     }
 
     public String getName() {
         return name;
     }
 
+    /**
+     * @return histograms of this experiment's control and candidate durations, if enabled with
+     * {@link ExperimentBuilder#withLatencyHistograms(boolean)}
+     */
+    public Optional<ExperimentLatencies> getLatencies() {
+        return Optional.ofNullable(latencies);
+    }
+
+    /**
+     * Applies settings from an {@link ExperimentRegistry}, overriding those the experiment was built with. Calls that
+     * are already running may still see the previous settings.
+     */
+    void configure(ExperimentConfig config) {
+        engine.configure(config);
+    }
+
+    int getMismatchMessageBudget() {
+        return mismatchMessageBudget;
+    }
+
+    Differ<? super T, ? super T> getDiffer() {
+        return differ;
+    }
+
     public T run(Callable<T> control, Callable<T> candidate) throws Exception {
+        return run(control, candidate, Collections.emptyMap());
+    }
+
+    /**
+     * Runs the experiment with attributes of this call, such as a request ID, added to the experiment's context. The
+     * {@link Result} is published with both, without the experiment's context being copied, and unlike a
+     * {@link ThreadLocal} the attributes follow the call onto whichever thread publishes it.
+     */
+    public T run(Callable<T> control, Callable<T> candidate, Map<String, ?> callContext) throws Exception {
+        ExperimentContext context = this.context.withAll(callContext);
         if (isAsyncCandidateOnly()) {
-            return runAsyncCandidateOnly(control, candidate);
+            return runAsyncCandidateOnly(control, candidate, context);
         } else if (isAsync()) {
-            return runAsync(control, candidate);
+            return runAsync(control, candidate, context);
         } else {
-            return runSync(control, candidate);
+            return runSync(control, candidate, context);
         }
     }
 
-    private T runSync(Callable<T> control, Callable<T> candidate) throws Exception {
-        Observation<T> controlObservation;
-        Optional<Observation<T>> candidateObservation = Optional.empty();
-        if (Math.random() < 0.5) {
-            controlObservation = executeResult("control", controlTimer, control, true);
-            if (runIf() && enabled()) {
-                candidateObservation = Optional.of(executeResult("candidate", candidateTimer, candidate, false));
-            }
-        } else {
-            if (runIf() && enabled()) {
-                candidateObservation = Optional.of(executeResult("candidate", candidateTimer, candidate, false));
+    /**
+     * Runs several candidates against one control. The candidates run in parallel on the executor while the control
+     * runs on the calling thread, and each is sampled, throttled and timed out on its own. Once they have completed,
+     * each is compared with the control and a single {@link Result} holding all of them is published on the thread
+     * of the last one to complete; as with {@link #runAsync(Callable, Callable)}, the caller only waits for that if
+     * raising on mismatch.
+     * <p>
+     * Each candidate is timed under {@code scientist.[name].candidate.[candidate name]} and its mismatches are counted
+     * under {@code scientist.[name].candidate.[candidate name].mismatch}, as well as in the experiment's totals.
+     */
+    public T run(Callable<T> control, Map<String, Callable<T>> candidates) throws Exception {
+        return run(control, candidates, Collections.emptyMap());
+    }
+
+    /**
+     * Runs several candidates against one control, as {@link #run(Callable, Map)} does, with attributes of this call
+     * added to the experiment's context.
+     */
+    public T run(Callable<T> control, Map<String, Callable<T>> candidates, Map<String, ?> callContext)
+        throws Exception {
+        if (engine.bypass()) {
+            return control.call();
+        }
+        Map<String, CompletableFuture<Optional<Observation<T>>>> candidateFutures = new LinkedHashMap<>();
+        for (Map.Entry<String, Callable<T>> candidate : candidates.entrySet()) {
+            CandidateGuard.Permit permit = engine.acquireCandidate();
+            if (permit != null) {
+                String candidateName = candidate.getKey();
+                MetricsProvider.Timer timer = metrics.candidate(candidateName).timer;
+                candidateFutures.put(candidateName, candidateGuard.submit(executor, permit,
+                    () -> Optional.of(executeResult(candidateName, timer, candidate.getValue(), false)),
+                    Optional.empty()));
             }
-            controlObservation = executeResult("control", controlTimer, control, true);
         }
+        Observation<T> controlObservation = engine.executeControl(control);
 
-        countExceptions(candidateObservation, candidateExceptionCount);
-        Result<T> result = new Result<T>(this, controlObservation, candidateObservation, context);
-        publish(result);
+        CompletableFuture<Void> publishedResult = engine.publishWhenDone(
+            CompletableFuture.allOf(candidateFutures.values().toArray(new CompletableFuture<?>[0])),
+            () -> publishCandidates(controlObservation, candidateFutures, context.withAll(callContext)));
+        if (getRaiseOnMismatch()) {
+            ExperimentEngine.awaitPublished(publishedResult);
+        }
         return controlObservation.getValue();
     }
 
-    public T runAsync(Callable<T> control, Callable<T> candidate) throws Exception {
-        Future<Optional<Observation<T>>> observationFutureCandidate;
-        Future<Observation<T>> observationFutureControl;
-
-        if (runIf() && enabled()) {
-            if (Math.random() < 0.5) {
-                observationFutureControl = executor.submit(() -> executeResult("control", controlTimer, control, true));
-                observationFutureCandidate = executor.submit(() -> Optional.of(executeResult("candidate", candidateTimer, candidate, false)));
-            } else {
-                observationFutureCandidate = executor.submit(() -> Optional.of(executeResult("candidate", candidateTimer, candidate, false)));
-                observationFutureControl = executor.submit(() -> executeResult("control", controlTimer, control, true));
+    private Void publishCandidates(Observation<T> controlObservation,
+                                   Map<String, CompletableFuture<Optional<Observation<T>>>> candidateFutures,
+                                   ExperimentContext context) throws Exception {
+        Map<String, Observation<T>> candidateObservations = new LinkedHashMap<>();
+        for (Map.Entry<String, CompletableFuture<Optional<Observation<T>>>> future : candidateFutures.entrySet()) {
+            // a candidate that times out completes empty
+            Optional<Observation<T>> observation = future.getValue().join();
+            if (observation.isPresent()) {
+                candidateObservations.put(future.getKey(), observation.get());
+                samplingPolicy.recordCandidate(observation.get().getDuration());
+                if (observation.get().hasException()) {
+                    candidateExceptionCount.increment();
+                }
             }
-        } else {
-            observationFutureControl = executor.submit(() -> executeResult("control", controlTimer, control, true));
-            observationFutureCandidate = null;
+        }
+        if (latencies != null) {
+            latencies.record(controlObservation, candidateObservations.values());
         }
 
-        Observation<T> controlObservation;
-        try {
-            controlObservation = observationFutureControl.get();
-        } catch (InterruptedException | ExecutionException e) {
-            throw new RuntimeException(e);
+        Result<T> result = new Result<>(this, controlObservation, candidateObservations, context);
+        for (Map.Entry<String, Boolean> match : result.getMatches().entrySet()) {
+            if (!match.getValue()) {
+                metrics.candidate(match.getKey()).mismatchCount.increment();
+            }
         }
+        if (!result.getMatch().orElse(true) && getRaiseOnMismatch()) {
+            throw new MismatchException(result.getMismatch().get());
+        }
+        dispatch(result);
+        return null;
+    }
 
-        Future<Void> publishedResult = executor.submit(() -> publishAsync(controlObservation, observationFutureCandidate));
+    /**
+     * Runs only the control, and appends its input and value to {@code log} so that candidates can be run against it
+     * later with a {@link ReplayRunner}, without adding load to live traffic. Calls whose control throws aren't
+     * captured, since they wouldn't be compared either.
+     */
+    public <I> T capture(I input, Callable<T> control, CaptureLog<I, T> log) throws Exception {
+        Observation<T> controlObservation = executeResult("control", controlTimer, control, true);
+        log.append(input, controlObservation.getValue(), controlObservation.getDuration());
+        return controlObservation.getValue();
+    }
 
-        if (raiseOnMismatch) {
-            try {
-                publishedResult.get();
-            } catch (ExecutionException e) {
-                throw (Exception) e.getCause();
+    /**
+     * Runs a candidate against a control call that was captured earlier, on the calling thread, and publishes the
+     * result as {@link #run(Callable, Callable)} would. The control's captured duration is used for the latency
+     * histograms but not recorded in the control timer again.
+     * <p>
+     * The candidate runs on every replayed call: the sampling policy, {@link #runIf()}, {@link #enabled()} and an
+     * {@link ExperimentRegistry} only govern live traffic. The in-flight cap and timeout still apply.
+     */
+    public void replay(T controlValue, long controlDurationNanos, Callable<T> candidate) throws Exception {
+        Observation<T> controlObservation = new Observation<>("control", REPLAYED_TIMER);
+        controlObservation.setValue(controlValue);
+        controlObservation.recordDuration(controlDurationNanos);
+
+        Optional<Observation<T>> candidateObservation = Optional.empty();
+        if (candidateGuard.enter()) {
+            candidateObservation = engine.executeCandidate(candidate);
+        }
+        recordObservations(controlObservation, candidateObservation);
+        dispatch(new Result<>(this, controlObservation, candidateObservation, context));
+    }
+
+    private T runSync(Callable<T> control, Callable<T> candidate, ExperimentContext context) throws Exception {
+        if (engine.bypass()) {
+            return control.call();
+        }
+        Object key = deduplicationKey(context);
+        Boolean cachedMatch = cachedMatch(key);
+        if (cachedMatch != null) {
+            return runDeduplicated(control, cachedMatch, context);
+        }
+        if (syncCarriers != null) {
+            SyncCarrier<T> carrier = syncCarriers.get();
+            if (!carrier.inUse) {
+                return runSyncReusing(control, candidate, carrier, context);
             }
         }
 
+        return engine.runSync(control, candidate, context, key);
+    }
+
+    /**
+     * @return the key a call is deduplicated by, or null if it isn't
+     */
+    private Object deduplicationKey(ExperimentContext context) {
+        return candidateCache == null ? null : candidateCache.key(context);
+    }
+
+    /**
+     * @return the outcome of the last comparison for {@code key} if it was within the TTL, in which case the call is
+     * counted as deduplicated, or null if the call should run its candidate
+     */
+    private Boolean cachedMatch(Object key) {
+        if (key == null) {
+            return null;
+        }
+        Boolean cachedMatch = candidateCache.get(key);
+        if (cachedMatch != null) {
+            deduplicatedCount.increment();
+        }
+        return cachedMatch;
+    }
+
+    /**
+     * Runs just the control of a call whose key was compared recently, and publishes that comparison's outcome.
+     */
+    private T runDeduplicated(Callable<T> control, boolean cachedMatch, ExperimentContext context) throws Exception {
+        Observation<T> controlObservation = engine.executeControl(control);
+        dispatchDeduplicated(controlObservation, cachedMatch, context);
         return controlObservation.getValue();
     }
 
-    public T runAsyncCandidateOnly(Callable<T> control, Callable<T> candidate) throws Exception {
-        Future<Optional<Observation<T>>> observationFutureCandidate;
-        Observation<T> controlObservation;
+    private CompletionStage<T> runDeduplicated(Supplier<CompletionStage<T>> control, boolean cachedMatch,
+                                               ExperimentContext context) {
+        return engine.executeControlStage(control).thenApply(controlObservation -> {
+            dispatchDeduplicated(controlObservation, cachedMatch, context);
+            return controlObservation.getValue();
+        });
+    }
 
-        if (runIf() && enabled()) {
-            if (Math.random() < 0.5) {
-                observationFutureCandidate = executor.submit(() -> Optional.of(executeResult("candidate", candidateTimer, candidate, false)));
-                controlObservation = executeResult("control", controlTimer, control, true);
-            } else {
-                controlObservation = executeResult("control", controlTimer, control, true);
-                observationFutureCandidate = executor.submit(() -> Optional.of(executeResult("candidate", candidateTimer, candidate, false)));
-            }
-        } else {
-            controlObservation = executeResult("control", controlTimer, control, true);
-            observationFutureCandidate = null;
+    private void dispatchDeduplicated(Observation<T> controlObservation, boolean cachedMatch,
+                                      ExperimentContext context) {
+        recordObservations(controlObservation, Optional.empty());
+        dispatch(new Result<>(this, controlObservation, cachedMatch, context));
+    }
+
+    /**
+     * Creates the result of a call and, if it is deduplicated by {@code key}, remembers its outcome.
+     */
+    private Result<T> newResult(Observation<T> controlObservation, Optional<Observation<T>> candidateObservation,
+                                Object key, ExperimentContext context) throws MismatchException {
+        if (key == null || !candidateObservation.isPresent()) {
+            return new Result<>(this, controlObservation, candidateObservation, context);
+        }
+        Result<T> result;
+        try {
+            result = new Result<>(this, controlObservation, candidateObservation, context);
+        } catch (MismatchException e) {
+            candidateCache.put(key, false);
+            throw e;
         }
+        candidateCache.put(key, result.getMatch().get());
+        return result;
+    }
 
-        Future<Void> publishedResult = executor.submit(() -> publishAsync(controlObservation, observationFutureCandidate));
+    /**
+     * The synchronous path of low allocation mode: the same steps as {@link #runSync}, but filling
+     * in this thread's {@link SyncCarrier} rather than allocating observations and a result.
+     */
+    private T runSyncReusing(Callable<T> control, Callable<T> candidate, SyncCarrier<T> carrier,
+                             ExperimentContext context) throws Exception {
+        carrier.inUse = true;
+        try {
+            Observation<T> controlObservation = carrier.control;
+            Optional<Observation<T>> candidateObservation = Optional.empty();
+            if (getOrderingStrategy().controlFirst()) {
+                executeInto(controlObservation, control);
+                samplingPolicy.recordControl(controlObservation.getDuration());
+                if (controlObservation.hasException()) {
+                    throw controlObservation.exceptionOrNull();
+                }
+                if (engine.shouldRunCandidate() && candidateGuard.enter()) {
+                    executeCandidateInto(carrier.candidate, candidate);
+                    candidateObservation = carrier.candidateOptional;
+                }
+            } else {
+                if (engine.shouldRunCandidate() && candidateGuard.enter()) {
+                    executeCandidateInto(carrier.candidate, candidate);
+                    candidateObservation = carrier.candidateOptional;
+                }
+                executeInto(controlObservation, control);
+                samplingPolicy.recordControl(controlObservation.getDuration());
+                if (controlObservation.hasException()) {
+                    throw controlObservation.exceptionOrNull();
+                }
+            }
 
-        if (raiseOnMismatch) {
+            recordObservations(controlObservation, candidateObservation);
             try {
-                publishedResult.get();
-            } catch (ExecutionException e) {
-                throw (Exception) e.getCause();
+                carrier.result.update(this, controlObservation, candidateObservation, context);
+            } catch (MismatchException e) {
+                if (e.getMismatch() == null) {
+                    throw e;
+                }
+                // the carrier is cleared on the way out, so the mismatch must not refer to its observations
+                throw new MismatchException(new Mismatch(name, controlObservation.copy(), carrier.candidate.copy(),
+                    mismatchMessageBudget));
             }
+            publish(carrier.result);
+            return controlObservation.getValue();
+        } finally {
+            carrier.clear();
         }
+    }
 
-        return controlObservation.getValue();
+    private void executeCandidateInto(Observation<T> observation, Callable<T> candidate) {
+        try {
+            executeInto(observation, candidate);
+        } finally {
+            candidateGuard.exit();
+        }
     }
 
-    private Void publishAsync(Observation<T> controlObservation, Future<Optional<Observation<T>>> observationFutureCandidate) throws Exception {
-        Optional<Observation<T>> candidateObservation = Optional.empty();
-        if (observationFutureCandidate != null) {
-            candidateObservation = observationFutureCandidate.get();
+    private void executeInto(Observation<T> observation, Callable<T> callable) {
+        long start = System.nanoTime();
+        try {
+            observation.setValue(callable.call());
+        } catch (Exception e) {
+            observation.setException(e);
         }
+        observation.recordDuration(System.nanoTime() - start);
+    }
 
-        countExceptions(candidateObservation, candidateExceptionCount);
-        Result<T> result = new Result<>(this, controlObservation, candidateObservation, context);
-        publish(result);
-        return null;
+    public T runAsync(Callable<T> control, Callable<T> candidate) throws Exception {
+        return runAsync(control, candidate, context);
+    }
+
+    /**
+     * Runs the experiment as {@link #runAsync(Callable, Callable)} does, with attributes of this call added to the
+     * experiment's context.
+     */
+    public T runAsync(Callable<T> control, Callable<T> candidate, Map<String, ?> callContext) throws Exception {
+        return runAsync(control, candidate, context.withAll(callContext));
     }
 
-    private void countExceptions(Optional<Observation<T>> observation, MetricsProvider.Counter exceptions) {
-        if (observation.isPresent() && observation.get().getException().isPresent()) {
-            exceptions.increment();
+    private T runAsync(Callable<T> control, Callable<T> candidate, ExperimentContext context) throws Exception {
+        if (engine.bypass()) {
+            return control.call();
         }
+        Object key = deduplicationKey(context);
+        Boolean cachedMatch = cachedMatch(key);
+        if (cachedMatch != null) {
+            return runDeduplicated(control, cachedMatch, context);
+        }
+        return engine.runAsync(control, candidate, context, key);
     }
 
-    public Observation<T> executeResult(String name, MetricsProvider.Timer timer, Callable<T> control, boolean shouldThrow) throws Exception {
-        Observation<T> observation = new Observation<>(name, timer);
+    /**
+     * Runs an experiment on functions that are already asynchronous, without blocking the calling thread.
+     * <p>
+     * Both suppliers are invoked on the calling thread and should return promptly. The returned stage completes as soon
+     * as the control does; the comparison and {@link #publish(Result)} run as continuations once both have completed.
+     * If {@code raiseOnMismatch} is true the returned stage instead waits for the comparison and completes
+     * exceptionally with a {@link MismatchException} on mismatch.
+     */
+    public CompletionStage<T> runAsync(Supplier<CompletionStage<T>> control, Supplier<CompletionStage<T>> candidate) {
+        return runAsync(control, candidate, Collections.emptyMap());
+    }
 
-        observation.time(() -> {
-            try {
-                observation.setValue(control.call());
-            } catch (Exception e) {
-                observation.setException(e);
-            }
-        });
+    /**
+     * Runs an experiment on functions that are already asynchronous, as {@link #runAsync(Supplier, Supplier)} does,
+     * with attributes of this call added to the experiment's context.
+     */
+    public CompletionStage<T> runAsync(Supplier<CompletionStage<T>> control, Supplier<CompletionStage<T>> candidate,
+                                       Map<String, ?> callContext) {
+        if (engine.bypass()) {
+            return control.get();
+        }
+        ExperimentContext context = this.context.withAll(callContext);
+        Object key = deduplicationKey(context);
+        Boolean cachedMatch = cachedMatch(key);
+        if (cachedMatch != null) {
+            return runDeduplicated(control, cachedMatch, context);
+        }
+        return engine.runAsync(control, candidate, context, key);
+    }
+
+    public T runAsyncCandidateOnly(Callable<T> control, Callable<T> candidate) throws Exception {
+        return runAsyncCandidateOnly(control, candidate, context);
+    }
+
+    /**
+     * Runs the experiment as {@link #runAsyncCandidateOnly(Callable, Callable)} does, with attributes of this call
+     * added to the experiment's context.
+     */
+    public T runAsyncCandidateOnly(Callable<T> control, Callable<T> candidate, Map<String, ?> callContext)
+        throws Exception {
+        return runAsyncCandidateOnly(control, candidate, context.withAll(callContext));
+    }
+
+    /**
+     * The non-blocking form of {@link #runAsyncCandidateOnly(Callable, Callable)}, for a control that is already
+     * asynchronous: the control supplier is invoked on the calling thread and the candidate, which may block, runs on
+     * the executor. The returned stage completes as soon as the control does, or, if {@code raiseOnMismatch} is true,
+     * once the comparison has, exceptionally with a {@link MismatchException} on mismatch.
+     */
+    public CompletionStage<T> runAsyncCandidateOnly(Supplier<CompletionStage<T>> control, Callable<T> candidate) {
+        return runAsyncCandidateOnly(control, candidate, Collections.emptyMap());
+    }
 
-        if (shouldThrow && observation.getException().isPresent()) {
-            throw observation.getException().get();
+    /**
+     * The non-blocking form of {@link #runAsyncCandidateOnly(Callable, Callable, Map)}, with attributes of this call
+     * added to the experiment's context.
+     */
+    public CompletionStage<T> runAsyncCandidateOnly(Supplier<CompletionStage<T>> control, Callable<T> candidate,
+                                                    Map<String, ?> callContext) {
+        if (engine.bypass()) {
+            return control.get();
+        }
+        ExperimentContext context = this.context.withAll(callContext);
+        Object key = deduplicationKey(context);
+        Boolean cachedMatch = cachedMatch(key);
+        if (cachedMatch != null) {
+            return runDeduplicated(control, cachedMatch, context);
         }
+        return engine.runAsyncCandidateOnly(control, candidate, context, key);
+    }
 
-        return observation;
+    private T runAsyncCandidateOnly(Callable<T> control, Callable<T> candidate, ExperimentContext context)
+        throws Exception {
+        if (engine.bypass()) {
+            return control.call();
+        }
+        Object key = deduplicationKey(context);
+        Boolean cachedMatch = cachedMatch(key);
+        if (cachedMatch != null) {
+            return runDeduplicated(control, cachedMatch, context);
+        }
+        return engine.runAsyncCandidateOnly(control, candidate, context, key);
+    }
+
+    /**
+     * Records a call, except for the control's duration in the sampling policy, which is recorded as the control
+     * completes.
+     */
+    private void recordObservations(Observation<T> controlObservation, Optional<Observation<T>> observation) {
+        if (latencies != null) {
+            latencies.record(controlObservation, observation);
+        }
+        if (observation.isPresent()) {
+            samplingPolicy.recordCandidate(observation.get().getDuration());
+            if (observation.get().hasException()) {
+                candidateExceptionCount.increment();
+            }
+        }
+    }
+
+    public Observation<T> executeResult(String name, MetricsProvider.Timer timer, Callable<T> control, boolean shouldThrow) throws Exception {
+        return ExperimentEngine.execute(name, timer, control, shouldThrow);
     }
 
     protected boolean compareResults(T controlVal, T candidateVal) {
         return comparator.apply(controlVal, candidateVal);
     }
 
+    /**
+     * @return false on a mismatch. The {@link Result} raises a {@link MismatchException} if configured to, so no
+     * exception is created when raising is disabled.
+     */
     public boolean compare(Observation<T> controlVal, Observation<T> candidateVal) throws MismatchException {
-        boolean resultsMatch = !candidateVal.getException().isPresent() && compareResults(controlVal.getValue(), candidateVal.getValue());
+        boolean resultsMatch = !candidateVal.hasException() && compareResults(controlVal.getValue(), candidateVal.getValue());
         totalCount.increment();
         if (!resultsMatch) {
             mismatchCount.increment();
-            handleComparisonMismatch(controlVal, candidateVal);
         }
-        return true;
+        return resultsMatch;
+    }
+
+    /**
+     * Hands a result to the configured {@link ResultPublisher}, or to {@link #publish(Result)} if there is none, and
+     * counts it in the {@link MismatchAggregator} in the background if it is a mismatch.
+     */
+    private void dispatch(Result<T> result) {
+        if (mismatchAggregator != null && !result.getMatch().orElse(true) && !result.isDeduplicated()) {
+            // fingerprinting diffs the values, which the thread that ran the experiment shouldn't wait for
+            engine.executeInBackground(() -> mismatchAggregator.record(Fingerprint.of(result), result));
+        }
+        if (resultPublisher != null) {
+            resultPublisher.offer(result);
+        } else {
+            publish(result);
+        }
     }
 
     protected void publish(Result<T> r) {
@@ -249,6 +626,13 @@ public class Experiment<T> {
         return true;
     }
 
+    /**
+     * Allow override here if extending the class
+     */
+    protected OrderingStrategy getOrderingStrategy() {
+        return orderingStrategy;
+    }
+
     protected boolean isAsync() {
         return false;
     }
@@ -257,17 +641,59 @@ public class Experiment<T> {
         return false;
     }
 
-    private void handleComparisonMismatch(Observation<T> controlVal, Observation<T> candidateVal) throws MismatchException {
-        String msg;
-        if (candidateVal.getException().isPresent()) {
-            String stackTrace = candidateVal.getException().get().getStackTrace().toString();
-            String exceptionName = candidateVal.getException().get().getClass().getName();
-            msg = new StringBuilder().append(candidateVal.getName()).append(" raised an exception: ")
-                .append(exceptionName).append(" ").append(stackTrace).toString();
-        } else {
-            msg = new StringBuilder().append(candidateVal.getName()).append(" does not match control value (")
-                .append(controlVal.getValue().toString()).append(" != ").append(candidateVal.getValue().toString()).append(")").toString();
+    private final class Engine extends ExperimentEngine<T, T> {
+        Engine(boolean bypassWhenDisabled, MetricsProvider.Counter bypassedCount) {
+            super(executor, candidateGuard, controlTimer, candidateTimer, bypassWhenDisabled, bypassedCount);
+        }
+
+        @Override
+        boolean enabled() {
+            return runIf() && Experiment.this.enabled();
+        }
+
+        @Override
+        SamplingPolicy samplingPolicy() {
+            return samplingPolicy;
+        }
+
+        @Override
+        OrderingStrategy orderingStrategy() {
+            return getOrderingStrategy();
+        }
+
+        @Override
+        boolean raiseOnMismatch() {
+            return getRaiseOnMismatch();
+        }
+
+        @Override
+        void complete(Observation<T> controlObservation, Optional<Observation<T>> candidateObservation,
+                      ExperimentContext context, Object deduplicationKey) throws MismatchException {
+            recordObservations(controlObservation, candidateObservation);
+            dispatch(newResult(controlObservation, candidateObservation, deduplicationKey, context));
+        }
+    }
+
+    /**
+     * The observations and result one thread reuses across synchronous calls in low allocation mode.
+     */
+    private static final class SyncCarrier<T> {
+        final Observation<T> control;
+        final Observation<T> candidate;
+        final Optional<Observation<T>> candidateOptional;
+        final Result<T> result = new Result<>();
+        boolean inUse;
+
+        SyncCarrier(MetricsProvider.Timer controlTimer, MetricsProvider.Timer candidateTimer) {
+            control = new Observation<>("control", controlTimer);
+            candidate = new Observation<>("candidate", candidateTimer);
+            candidateOptional = Optional.of(candidate);
+        }
+
+        void clear() {
+            control.reset();
+            candidate.reset();
+            inUse = false;
         }
-        throw new MismatchException(msg);
     }
 }
@@ -1,22 +1,48 @@
 package com.github.rawls238.scientist4j;
 
+import com.github.rawls238.scientist4j.aggregation.MismatchAggregator;
+import com.github.rawls238.scientist4j.diff.Differ;
 import com.github.rawls238.scientist4j.metrics.MetricsProvider;
+import com.github.rawls238.scientist4j.publish.ResultPublisher;
+import com.github.rawls238.scientist4j.sampling.SamplingPolicy;
 
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.function.BiFunction;
+import java.util.function.Function;
 
 public class ExperimentBuilder<T> {
     private String name;
     private MetricsProvider<?> metricsProvider;
+    private ExperimentMetrics metrics;
     private BiFunction<T, T, Boolean> comparator;
     private Map<String, Object> context;
     private ExecutorService executorService;
+    private boolean raiseOnMismatch;
+    private SamplingPolicy samplingPolicy;
+    private OrderingStrategy orderingStrategy;
+    private boolean lowAllocation;
+    private ResultPublisher<Result<T>> resultPublisher;
+    private long candidateTimeoutNanos;
+    private int maxInFlightCandidates;
+    private boolean virtualThreads;
+    private int mismatchMessageBudget = Mismatch.DEFAULT_MESSAGE_BUDGET;
+    private boolean latencyHistograms;
+    private MismatchAggregator<Result<T>> mismatchAggregator;
+    private Differ<? super T, ? super T> differ;
+    private Function<? super Map<String, Object>, ?> deduplicationKey;
+    private boolean bypassWhenDisabled;
+    private boolean countBypassed;
+    private long deduplicationTtlNanos;
+    private int deduplicationMaxKeys;
 
     public ExperimentBuilder() {
         context = new HashMap<>();
         comparator = Object::equals;
+        samplingPolicy = SamplingPolicy.always();
+        orderingStrategy = OrderingStrategy.random();
     }
 
     public ExperimentBuilder<T> withName(final String name) {
@@ -29,20 +55,264 @@ public class ExperimentBuilder<T> {
         return this;
     }
 
+    /**
+     * Uses metric handles that were resolved ahead of time, along with their experiment name and metrics provider,
+     * which makes constructing experiments per request cheap.
+     */
+    public ExperimentBuilder<T> withMetrics(final ExperimentMetrics metrics) {
+        this.metrics = metrics;
+        this.name = metrics.getExperimentName();
+        this.metricsProvider = metrics.getMetricsProvider();
+        return this;
+    }
+
     public ExperimentBuilder<T> withComparator(final BiFunction<T, T, Boolean> comparator) {
         this.comparator = comparator;
         return this;
     }
 
+    public ExperimentBuilder<T> withContext(final Map<String, Object> context) {
+        this.context = context;
+        return this;
+    }
+
+    public ExperimentBuilder<T> withRaiseOnMismatch(final boolean raiseOnMismatch) {
+        this.raiseOnMismatch = raiseOnMismatch;
+        return this;
+    }
+
     public ExperimentBuilder<T> withExecutorService(ExecutorService executorService) {
         this.executorService = executorService;
         return this;
     }
 
+    /**
+     * Limits how often the candidate runs, in addition to {@link Experiment#runIf()} and {@link Experiment#enabled()}.
+     * See {@link SamplingPolicy} for the built-in policies.
+     */
+    public ExperimentBuilder<T> withSamplingPolicy(final SamplingPolicy samplingPolicy) {
+        this.samplingPolicy = samplingPolicy;
+        return this;
+    }
+
+    /**
+     * Decides whether the control or candidate starts first; defaults to {@link OrderingStrategy#random()}.
+     */
+    public ExperimentBuilder<T> withOrderingStrategy(final OrderingStrategy orderingStrategy) {
+        this.orderingStrategy = orderingStrategy;
+        return this;
+    }
+
+    /**
+     * Reuses per-thread observations and results on the synchronous path, so that a call allocates (close to)
+     * nothing. The {@link Result} passed to {@link Experiment#publish(Result)} is then only valid for the duration of
+     * that call and must not be retained or handed to another thread. For the same reason this has no effect if a
+     * {@link #withResultPublisher(ResultPublisher) result publisher} is configured.
+     */
+    public ExperimentBuilder<T> withLowAllocation(final boolean lowAllocation) {
+        this.lowAllocation = lowAllocation;
+        return this;
+    }
+
+    /**
+     * Sends results to {@code resultPublisher}, which publishes them in batches from its own thread, instead of calling
+     * {@link Experiment#publish(Result)} on the thread that ran the experiment.
+     */
+    public ExperimentBuilder<T> withResultPublisher(final ResultPublisher<Result<T>> resultPublisher) {
+        this.resultPublisher = resultPublisher;
+        return this;
+    }
+
+    /**
+     * Gives up on an asynchronous candidate that hasn't completed within {@code timeout}: it is cancelled (interrupting
+     * it if it runs on the executor), counted under {@code candidate.timeout} and published without a candidate
+     * observation. The timeout doesn't apply to candidates that run on the calling thread.
+     */
+    public ExperimentBuilder<T> withCandidateTimeout(final long timeout, final TimeUnit unit) {
+        this.candidateTimeoutNanos = unit.toNanos(timeout);
+        return this;
+    }
+
+    /**
+     * Skips the candidate, counting it under {@code candidate.throttled}, while {@code maxInFlightCandidates} of this
+     * experiment's candidates are already running. A candidate that has timed out still counts until it returns.
+     */
+    public ExperimentBuilder<T> withMaxInFlightCandidates(final int maxInFlightCandidates) {
+        this.maxInFlightCandidates = maxInFlightCandidates;
+        return this;
+    }
+
+    /**
+     * Runs asynchronous controls and candidates on virtual threads (see {@link ExperimentExecutor#getVirtualThreads()})
+     * instead of the {@link #withExecutorService(ExecutorService) executor service}, which they fall back to on JVMs
+     * without virtual threads.
+     */
+    public ExperimentBuilder<T> withVirtualThreads(final boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+        return this;
+    }
+
+    /**
+     * Caps how many UTF-8 bytes each control and candidate value may take up in a {@link Mismatch} message; defaults to
+     * {@link Mismatch#DEFAULT_MESSAGE_BUDGET}. Longer values are truncated.
+     */
+    public ExperimentBuilder<T> withMismatchMessageBudget(final int mismatchMessageBudget) {
+        this.mismatchMessageBudget = mismatchMessageBudget;
+        return this;
+    }
+
+    /**
+     * Lets {@link Result#getDiff()} explain mismatches, e.g. with {@link Differ#reflective()}. Diffs are only computed
+     * when asked for.
+     */
+    public ExperimentBuilder<T> withDiffer(final Differ<? super T, ? super T> differ) {
+        this.differ = differ;
+        return this;
+    }
+
+    /**
+     * Counts mismatches by category in {@code mismatchAggregator}, keeping a few results of each as exemplars. A
+     * mismatch is categorised on the executor, since that computes its diff, so it may show up in the aggregator
+     * shortly after the call returns. Since those results are retained, this turns
+     * {@link #withLowAllocation(boolean) low allocation mode} off.
+     */
+    public ExperimentBuilder<T> withMismatchAggregator(final MismatchAggregator<Result<T>> mismatchAggregator) {
+        this.mismatchAggregator = mismatchAggregator;
+        return this;
+    }
+
+    /**
+     * Keeps built-in histograms of control and candidate durations, and of their difference per call, available from
+     * {@link Experiment#getLatencies()}. They answer questions like "is the candidate slower at p99.9?" without
+     * relying on the percentile configuration of the metrics registry.
+     */
+    public ExperimentBuilder<T> withLatencyHistograms(final boolean latencyHistograms) {
+        this.latencyHistograms = latencyHistograms;
+        return this;
+    }
+
+    /**
+     * For experiments on idempotent calls: remembers, for up to {@code maxKeys} keys, whether the last comparison for
+     * each key matched, and skips the candidate of any call whose key was compared within {@code ttl}. Such calls are
+     * counted under {@code candidate.deduplicated} and published with {@link Result#isDeduplicated()} set and the
+     * remembered outcome as their match.
+     * <p>
+     * The key is computed from a call's context before either side runs, e.g. from an entity id passed to
+     * {@link Experiment#run} with the call, so it should identify the request rather than the experiment; a null key
+     * is never deduplicated. Calls with several candidates aren't deduplicated.
+     */
+    public ExperimentBuilder<T> withCandidateDeduplication(final Function<? super Map<String, Object>, ?> key,
+                                                           final long ttl, final TimeUnit unit,
+                                                           final int maxKeys) {
+        this.deduplicationKey = key;
+        this.deduplicationTtlNanos = unit.toNanos(ttl);
+        this.deduplicationMaxKeys = maxKeys;
+        return this;
+    }
+
+    /**
+     * Makes calls for which {@link Experiment#runIf()} or {@link Experiment#enabled()} is false, or that an
+     * {@link ExperimentRegistry} has disabled, call the control directly on the calling thread: nothing is timed,
+     * allocated, submitted to the executor or published, so a disabled experiment costs no more than the unwrapped
+     * call. Such calls are counted under {@code bypassed} if {@code countBypassed} is true.
+     */
+    public ExperimentBuilder<T> withBypassWhenDisabled(final boolean bypassWhenDisabled, final boolean countBypassed) {
+        this.bypassWhenDisabled = bypassWhenDisabled;
+        this.countBypassed = countBypassed;
+        return this;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    MetricsProvider<?> getMetricsProvider() {
+        return metricsProvider;
+    }
+
+    ExperimentMetrics getMetrics() {
+        return metrics;
+    }
+
+    BiFunction<T, T, Boolean> getComparator() {
+        return comparator;
+    }
+
+    Map<String, Object> getContext() {
+        return context;
+    }
+
+    ExecutorService getExecutorService() {
+        return executorService;
+    }
+
+    boolean getRaiseOnMismatch() {
+        return raiseOnMismatch;
+    }
+
+    SamplingPolicy getSamplingPolicy() {
+        return samplingPolicy;
+    }
+
+    OrderingStrategy getOrderingStrategy() {
+        return orderingStrategy;
+    }
+
+    boolean getLowAllocation() {
+        return lowAllocation;
+    }
+
+    ResultPublisher<Result<T>> getResultPublisher() {
+        return resultPublisher;
+    }
+
+    long getCandidateTimeoutNanos() {
+        return candidateTimeoutNanos;
+    }
+
+    int getMaxInFlightCandidates() {
+        return maxInFlightCandidates;
+    }
+
+    boolean getVirtualThreads() {
+        return virtualThreads;
+    }
+
+    int getMismatchMessageBudget() {
+        return mismatchMessageBudget;
+    }
+
+    boolean getLatencyHistograms() {
+        return latencyHistograms;
+    }
+
+    MismatchAggregator<Result<T>> getMismatchAggregator() {
+        return mismatchAggregator;
+    }
+
+    Differ<? super T, ? super T> getDiffer() {
+        return differ;
+    }
+
+    boolean getBypassWhenDisabled() {
+        return bypassWhenDisabled;
+    }
+
+    boolean getCountBypassed() {
+        return countBypassed;
+    }
+
+    /**
+     * @return a new cache for {@link #withCandidateDeduplication}, or null if it isn't enabled
+     */
+    CandidateCache newCandidateCache() {
+        return deduplicationKey == null ? null
+            : new CandidateCache(deduplicationKey, deduplicationTtlNanos, deduplicationMaxKeys);
+    }
+
     public Experiment<T> build() {
         assert name != null;
         assert metricsProvider != null;
-        return new Experiment<>(name, context, false, metricsProvider, comparator,
-            executorService);
+        return new Experiment<>(this);
     }
 }
@@ -0,0 +1,118 @@
+package com.github.rawls238.scientist4j;
+
+import java.util.Properties;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The settings of an experiment that an {@link ExperimentRegistry} can change while it runs.
+ * <p>
+ * In a properties file the settings of experiment {@code foo} are read from {@code foo.enabled},
+ * {@code foo.sampleRate}, {@code foo.candidateTimeoutMillis} and {@code foo.raiseOnMismatch}; settings that are left
+ * out keep the values the experiment was built with.
+ */
+public final class ExperimentConfig {
+    private final boolean enabled;
+    private final double sampleRate;
+    private final long candidateTimeoutNanos;
+    private final boolean raiseOnMismatch;
+
+    /**
+     * @param enabled          false to skip the candidate on every call
+     * @param sampleRate       the fraction of calls, between 0 and 1, that run the candidate
+     * @param candidateTimeout zero for no timeout, see {@link ExperimentBuilder#withCandidateTimeout}
+     */
+    public ExperimentConfig(boolean enabled, double sampleRate, long candidateTimeout, TimeUnit unit,
+                            boolean raiseOnMismatch) {
+        if (sampleRate < 0 || sampleRate > 1) {
+            throw new IllegalArgumentException("sampleRate must be between 0 and 1: " + sampleRate);
+        }
+        this.enabled = enabled;
+        this.sampleRate = sampleRate;
+        this.candidateTimeoutNanos = unit.toNanos(candidateTimeout);
+        this.raiseOnMismatch = raiseOnMismatch;
+    }
+
+    /**
+     * @return the settings an experiment was built with
+     */
+    static ExperimentConfig of(ExperimentBuilder<?> builder) {
+        return new ExperimentConfig(true, 1, builder.getCandidateTimeoutNanos(), TimeUnit.NANOSECONDS,
+            builder.getRaiseOnMismatch());
+    }
+
+    /**
+     * @return the settings an experiment was built with
+     */
+    static ExperimentConfig of(IncompatibleTypesExperimentBuilder<?, ?> builder) {
+        return new ExperimentConfig(true, 1, builder.getCandidateTimeoutNanos(), TimeUnit.NANOSECONDS,
+            builder.getRaiseOnMismatch());
+    }
+
+    /**
+     * @return these settings, overridden by those of experiment {@code name} in {@code properties}
+     * @throws IllegalArgumentException if one of them can't be parsed
+     */
+    ExperimentConfig override(String name, Properties properties) {
+        String timeout = properties.getProperty(name + ".candidateTimeoutMillis");
+        try {
+            return new ExperimentConfig(
+                parseBoolean(properties, name + ".enabled", enabled),
+                parseDouble(properties, name + ".sampleRate", sampleRate),
+                timeout == null ? candidateTimeoutNanos : TimeUnit.MILLISECONDS.toNanos(Long.parseLong(timeout.trim())),
+                TimeUnit.NANOSECONDS,
+                parseBoolean(properties, name + ".raiseOnMismatch", raiseOnMismatch));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("invalid setting for experiment " + name + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static boolean parseBoolean(Properties properties, String key, boolean defaultValue) {
+        String value = properties.getProperty(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        value = value.trim();
+        if (!"true".equalsIgnoreCase(value) && !"false".equalsIgnoreCase(value)) {
+            throw new IllegalArgumentException(key + " must be true or false: " + value);
+        }
+        return Boolean.parseBoolean(value);
+    }
+
+    private static double parseDouble(Properties properties, String key, double defaultValue) {
+        String value = properties.getProperty(key);
+        return value == null ? defaultValue : Double.parseDouble(value.trim());
+    }
+
+    /**
+     * @return true if the candidate should run for this call
+     */
+    boolean sample() {
+        if (!enabled) {
+            return false;
+        }
+        return sampleRate >= 1 || sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+    public long getCandidateTimeout(TimeUnit unit) {
+        return unit.convert(candidateTimeoutNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public boolean getRaiseOnMismatch() {
+        return raiseOnMismatch;
+    }
+
+    @Override
+    public String toString() {
+        return "ExperimentConfig{enabled=" + enabled + ", sampleRate=" + sampleRate + ", candidateTimeoutNanos="
+            + candidateTimeoutNanos + ", raiseOnMismatch=" + raiseOnMismatch + "}";
+    }
+}
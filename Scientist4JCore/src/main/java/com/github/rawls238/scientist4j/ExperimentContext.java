@@ -0,0 +1,229 @@
+package com.github.rawls238.scientist4j;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * The immutable context a {@link Result} is published with: the experiment's own context, with the attributes of a
+ * single call, such as a request ID or tenant, laid over it.
+ * <p>
+ * Adding attributes doesn't copy the map they are added to; the new context keeps a reference to it and holds just
+ * the new attributes, in small arrays, shadowing keys of the same name. A per-call context therefore costs one small
+ * allocation however large the experiment's context is, and since nothing ever changes after construction it can be
+ * read from any thread, including a publisher's, without locking.
+ */
+public final class ExperimentContext extends AbstractMap<String, Object> {
+    private static final ExperimentContext EMPTY = new ExperimentContext(null, new String[0], new Object[0]);
+    // beyond this many entries, a layer is looked up through a hash map rather than by scanning
+    private static final int SCAN_LIMIT = 8;
+    // beyond this many layers, adding attributes flattens the context instead of growing it
+    private static final int MAX_DEPTH = 8;
+
+    private final ExperimentContext parent;
+    private final String[] keys;
+    private final Object[] values;
+    private final Map<String, Integer> index;
+    private final int depth;
+    private final int size;
+    private EntrySet entrySet;
+
+    private ExperimentContext(ExperimentContext parent, String[] keys, Object[] values) {
+        this.parent = parent;
+        this.keys = keys;
+        this.values = values;
+        if (keys.length > SCAN_LIMIT) {
+            index = new HashMap<>(keys.length * 2);
+            for (int i = 0; i < keys.length; i++) {
+                index.put(keys[i], i);
+            }
+        } else {
+            index = null;
+        }
+        if (parent == null) {
+            depth = 1;
+            size = keys.length;
+        } else {
+            depth = parent.depth + 1;
+            int shadowed = 0;
+            for (String key : keys) {
+                if (parent.containsKey(key)) {
+                    shadowed++;
+                }
+            }
+            size = parent.size + keys.length - shadowed;
+        }
+    }
+
+    public static ExperimentContext empty() {
+        return EMPTY;
+    }
+
+    /**
+     * @return an immutable copy of {@code attributes}, or {@code attributes} itself if it is already a context
+     */
+    public static ExperimentContext of(Map<String, ?> attributes) {
+        if (attributes instanceof ExperimentContext) {
+            return (ExperimentContext) attributes;
+        }
+        return EMPTY.withAll(attributes);
+    }
+
+    /**
+     * @return this context with {@code key} set to {@code value}
+     */
+    public ExperimentContext with(String key, Object value) {
+        return layer(new String[]{key}, new Object[]{value});
+    }
+
+    /**
+     * @return this context with {@code attributes} laid over it, or this context if there are none
+     */
+    public ExperimentContext withAll(Map<String, ?> attributes) {
+        if (attributes == null || attributes.isEmpty()) {
+            return this;
+        }
+        String[] newKeys = new String[attributes.size()];
+        Object[] newValues = new Object[newKeys.length];
+        int i = 0;
+        for (Map.Entry<String, ?> entry : attributes.entrySet()) {
+            newKeys[i] = entry.getKey();
+            newValues[i] = entry.getValue();
+            i++;
+        }
+        return layer(newKeys, newValues);
+    }
+
+    private ExperimentContext layer(String[] newKeys, Object[] newValues) {
+        if (this == EMPTY) {
+            return new ExperimentContext(null, newKeys, newValues);
+        }
+        if (depth < MAX_DEPTH) {
+            return new ExperimentContext(this, newKeys, newValues);
+        }
+        Map<String, Object> flattened = new HashMap<>(this);
+        for (int i = 0; i < newKeys.length; i++) {
+            flattened.put(newKeys[i], newValues[i]);
+        }
+        return EMPTY.withAll(flattened);
+    }
+
+    private int indexOf(Object key) {
+        if (index != null) {
+            Integer i = index.get(key);
+            return i == null ? -1 : i;
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (Objects.equals(keys[i], key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public Object get(Object key) {
+        for (ExperimentContext layer = this; layer != null; layer = layer.parent) {
+            int i = layer.indexOf(key);
+            if (i >= 0) {
+                return layer.values[i];
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        for (ExperimentContext layer = this; layer != null; layer = layer.parent) {
+            if (layer.indexOf(key) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public Set<Map.Entry<String, Object>> entrySet() {
+        EntrySet entries = entrySet;
+        if (entries == null) {
+            entries = new EntrySet();
+            entrySet = entries;
+        }
+        return entries;
+    }
+
+    private final class EntrySet extends AbstractSet<Map.Entry<String, Object>> {
+        @Override
+        public Iterator<Map.Entry<String, Object>> iterator() {
+            return new EntryIterator();
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    /**
+     * Walks the layers from the top, skipping keys a layer above has shadowed.
+     */
+    private final class EntryIterator implements Iterator<Map.Entry<String, Object>> {
+        private ExperimentContext layer = ExperimentContext.this;
+        private int i = -1;
+
+        EntryIterator() {
+            advance();
+        }
+
+        private void advance() {
+            while (layer != null) {
+                i++;
+                if (i >= layer.keys.length) {
+                    layer = layer.parent;
+                    i = -1;
+                } else if (!shadowed(layer.keys[i])) {
+                    return;
+                }
+            }
+        }
+
+        private boolean shadowed(String key) {
+            for (ExperimentContext above = ExperimentContext.this; above != layer; above = above.parent) {
+                if (above.indexOf(key) >= 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return layer != null;
+        }
+
+        @Override
+        public Map.Entry<String, Object> next() {
+            if (layer == null) {
+                throw new NoSuchElementException();
+            }
+            Map.Entry<String, Object> entry = new SimpleImmutableEntry<>(layer.keys[i], layer.values[i]);
+            advance();
+            return entry;
+        }
+    }
+}
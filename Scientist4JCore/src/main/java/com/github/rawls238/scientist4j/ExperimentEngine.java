@@ -0,0 +1,455 @@
+package com.github.rawls238.scientist4j;
+
+import com.github.rawls238.scientist4j.exceptions.MismatchException;
+import com.github.rawls238.scientist4j.metrics.MetricsProvider;
+import com.github.rawls238.scientist4j.sampling.SamplingPolicy;
+
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.LongConsumer;
+import java.util.function.Supplier;
+
+/**
+ * The execution modes {@link Experiment} and {@link IncompatibleTypesExperiment} share: running the control and the
+ * candidate on the calling thread or the executor, under the experiment's {@link CandidateGuard}, and handing both
+ * observations to {@link #complete} once they are in. It also owns what decides whether a call runs the candidate, or
+ * the experiment at all: bypassing, sampling and the settings of an {@link ExperimentRegistry}. Each experiment
+ * subclasses it with what differs between the two, namely its hooks, the ordering and how a result is built and
+ * published.
+ *
+ * @param <T> the type of the control value
+ * @param <U> the type of the candidate value
+ */
+abstract class ExperimentEngine<T, U> {
+    static final String CONTROL = "control";
+    static final String CANDIDATE = "candidate";
+
+    private final ExperimentExecutor executor;
+    private final CandidateGuard candidateGuard;
+    private final MetricsProvider.Timer controlTimer;
+    private final MetricsProvider.Timer candidateTimer;
+    private final boolean bypassWhenDisabled;
+    private final MetricsProvider.Counter bypassedCount;
+    private volatile ExperimentConfig config;
+
+    /**
+     * @param bypassedCount null if bypassed calls aren't counted
+     */
+    ExperimentEngine(ExperimentExecutor executor, CandidateGuard candidateGuard, MetricsProvider.Timer controlTimer,
+                     MetricsProvider.Timer candidateTimer, boolean bypassWhenDisabled,
+                     MetricsProvider.Counter bypassedCount) {
+        this.executor = executor;
+        this.candidateGuard = candidateGuard;
+        this.controlTimer = controlTimer;
+        this.candidateTimer = candidateTimer;
+        this.bypassWhenDisabled = bypassWhenDisabled;
+        this.bypassedCount = bypassedCount;
+    }
+
+    /**
+     * @return whether the experiment's {@code runIf()} and {@code enabled()} let the candidate run
+     */
+    abstract boolean enabled();
+
+    abstract SamplingPolicy samplingPolicy();
+
+    abstract OrderingStrategy orderingStrategy();
+
+    abstract boolean raiseOnMismatch();
+
+    /**
+     * Records, compares and publishes a call, on whichever thread its last observation came in.
+     *
+     * @param deduplicationKey the key the call was run with, or null if it isn't deduplicated
+     */
+    abstract void complete(Observation<T> controlObservation, Optional<Observation<U>> candidateObservation,
+                           ExperimentContext context, Object deduplicationKey) throws MismatchException;
+
+    /**
+     * Applies settings from an {@link ExperimentRegistry}, overriding those the experiment was built with. Calls that
+     * are already running may still see the previous settings.
+     */
+    void configure(ExperimentConfig config) {
+        candidateGuard.setTimeoutNanos(config.getCandidateTimeout(TimeUnit.NANOSECONDS));
+        this.config = config;
+    }
+
+    /**
+     * @return the settings last applied by {@link #configure}, or null if the experiment isn't registered
+     */
+    ExperimentConfig config() {
+        return config;
+    }
+
+    /**
+     * @return true if this call should skip the experiment altogether and just call the control, see
+     * {@link ExperimentBuilder#withBypassWhenDisabled(boolean, boolean)}
+     */
+    boolean bypass() {
+        if (!bypassWhenDisabled) {
+            return false;
+        }
+        ExperimentConfig current = config;
+        if (enabled() && (current == null || current.isEnabled())) {
+            return false;
+        }
+        if (bypassedCount != null) {
+            bypassedCount.increment();
+        }
+        return true;
+    }
+
+    /**
+     * @return whether this call should run the candidate, before the {@link CandidateGuard} is consulted
+     */
+    boolean shouldRunCandidate() {
+        ExperimentConfig current = config;
+        // in bypass mode, enabled() was already consulted on the way in
+        return (bypassWhenDisabled || enabled()) && (current == null || current.sample()) && samplingPolicy().sample();
+    }
+
+    T runSync(Callable<T> control, Callable<U> candidate, ExperimentContext context, Object deduplicationKey)
+        throws Exception {
+        Observation<T> controlObservation;
+        Optional<Observation<U>> candidateObservation = Optional.empty();
+        if (orderingStrategy().controlFirst()) {
+            controlObservation = executeControl(control);
+            if (shouldRunCandidate() && candidateGuard.enter()) {
+                candidateObservation = executeCandidate(candidate);
+            }
+        } else {
+            if (shouldRunCandidate() && candidateGuard.enter()) {
+                candidateObservation = executeCandidate(candidate);
+            }
+            controlObservation = executeControl(control);
+        }
+
+        complete(controlObservation, candidateObservation, context, deduplicationKey);
+        return controlObservation.getValue();
+    }
+
+    T runAsync(Callable<T> control, Callable<U> candidate, ExperimentContext context, Object deduplicationKey)
+        throws Exception {
+        CompletableFuture<Optional<Observation<U>>> observationFutureCandidate;
+        Future<Observation<T>> observationFutureControl;
+        CandidateGuard.Permit permit = acquireCandidate();
+
+        if (permit != null) {
+            if (orderingStrategy().controlFirst()) {
+                observationFutureControl = executor.submit(() -> executeControl(control));
+                observationFutureCandidate = submitCandidate(candidate, permit);
+            } else {
+                observationFutureCandidate = submitCandidate(candidate, permit);
+                observationFutureControl = executor.submit(() -> executeControl(control));
+            }
+        } else {
+            observationFutureControl = executor.submit(() -> executeControl(control));
+            observationFutureCandidate = null;
+        }
+
+        Observation<T> controlObservation;
+        try {
+            controlObservation = observationFutureControl.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e);
+        }
+
+        return publishInBackground(controlObservation, observationFutureCandidate, deduplicationKey, context);
+    }
+
+    CompletionStage<T> runAsync(Supplier<CompletionStage<T>> control, Supplier<CompletionStage<U>> candidate,
+                                ExperimentContext context, Object deduplicationKey) {
+        CompletableFuture<Observation<T>> controlFuture;
+        CompletableFuture<Optional<Observation<U>>> candidateFuture;
+
+        CandidateGuard.Permit permit = acquireCandidate();
+        if (permit != null) {
+            if (orderingStrategy().controlFirst()) {
+                controlFuture = executeControlStage(control);
+                candidateFuture = candidateGuard.guard(executeStage(CANDIDATE, candidateTimer, candidate, false), permit)
+                    .thenApply(Optional::ofNullable);
+            } else {
+                candidateFuture = candidateGuard.guard(executeStage(CANDIDATE, candidateTimer, candidate, false), permit)
+                    .thenApply(Optional::ofNullable);
+                controlFuture = executeControlStage(control);
+            }
+        } else {
+            controlFuture = executeControlStage(control);
+            candidateFuture = CompletableFuture.completedFuture(Optional.empty());
+        }
+
+        CompletableFuture<T> publishedResult = controlFuture.thenCombine(candidateFuture,
+            (controlObservation, candidateObservation) -> {
+                try {
+                    complete(controlObservation, candidateObservation, context, deduplicationKey);
+                } catch (MismatchException e) {
+                    throw new CompletionException(e);
+                }
+                return controlObservation.getValue();
+            });
+
+        if (raiseOnMismatch()) {
+            return publishedResult;
+        }
+        return controlFuture.thenApply(Observation::getValue);
+    }
+
+    T runAsyncCandidateOnly(Callable<T> control, Callable<U> candidate, ExperimentContext context,
+                            Object deduplicationKey) throws Exception {
+        CompletableFuture<Optional<Observation<U>>> observationFutureCandidate;
+        Observation<T> controlObservation;
+
+        CandidateGuard.Permit permit = acquireCandidate();
+
+        if (permit != null) {
+            if (orderingStrategy().controlFirst()) {
+                controlObservation = executeControl(control);
+                observationFutureCandidate = submitCandidate(candidate, permit);
+            } else {
+                observationFutureCandidate = submitCandidate(candidate, permit);
+                controlObservation = executeControl(control);
+            }
+        } else {
+            controlObservation = executeControl(control);
+            observationFutureCandidate = null;
+        }
+
+        return publishInBackground(controlObservation, observationFutureCandidate, deduplicationKey, context);
+    }
+
+    /**
+     * Calls the control supplier on the calling thread and submits the candidate to the executor; the returned stage
+     * completes with the control, or after the comparison if raising on mismatch.
+     */
+    CompletionStage<T> runAsyncCandidateOnly(Supplier<CompletionStage<T>> control, Callable<U> candidate,
+                                             ExperimentContext context, Object deduplicationKey) {
+        CompletableFuture<Optional<Observation<U>>> observationFutureCandidate = null;
+        CompletableFuture<Observation<T>> controlFuture;
+
+        CandidateGuard.Permit permit = acquireCandidate();
+        if (permit != null && !orderingStrategy().controlFirst()) {
+            observationFutureCandidate = submitCandidate(candidate, permit);
+            controlFuture = executeControlStage(control);
+        } else {
+            controlFuture = executeControlStage(control);
+            if (permit != null) {
+                observationFutureCandidate = submitCandidate(candidate, permit);
+            }
+        }
+
+        CompletableFuture<Optional<Observation<U>>> candidateFuture = observationFutureCandidate;
+        CompletableFuture<T> publishedResult = controlFuture.thenCompose(controlObservation ->
+            publishWhenDone(controlObservation, candidateFuture, deduplicationKey, context).thenApply(v -> controlObservation.getValue()));
+
+        if (raiseOnMismatch()) {
+            return publishedResult;
+        }
+        return controlFuture.thenApply(Observation::getValue);
+    }
+
+    /**
+     * Completes the call once the candidate does, waiting for that only if raising on mismatch.
+     */
+    T publishInBackground(Observation<T> controlObservation,
+                          CompletableFuture<Optional<Observation<U>>> observationFutureCandidate,
+                          Object deduplicationKey, ExperimentContext context) throws Exception {
+        CompletableFuture<Void> publishedResult =
+            publishWhenDone(controlObservation, observationFutureCandidate, deduplicationKey, context);
+
+        if (raiseOnMismatch()) {
+            awaitPublished(publishedResult);
+        }
+
+        return controlObservation.getValue();
+    }
+
+    /**
+     * Completes the call as a continuation of the candidate, see {@link #publishWhenDone(CompletableFuture, Callable)}.
+     *
+     * @param observationFutureCandidate null if the candidate didn't run
+     * @return a future that completes once the call has been published, exceptionally with a
+     * {@link MismatchException} if it raised one
+     */
+    CompletableFuture<Void> publishWhenDone(Observation<T> controlObservation,
+                                            CompletableFuture<Optional<Observation<U>>> observationFutureCandidate,
+                                            Object deduplicationKey, ExperimentContext context) {
+        CompletableFuture<Optional<Observation<U>>> candidateFuture = observationFutureCandidate != null
+            ? observationFutureCandidate : CompletableFuture.completedFuture(Optional.empty());
+        return publishWhenDone(candidateFuture, () -> {
+            complete(controlObservation, candidateFuture.join(), context, deduplicationKey);
+            return null;
+        });
+    }
+
+    /**
+     * Runs {@code publish} once {@code candidates} complete: on the thread that finishes the last of them, or on the
+     * executor if they are already done. No thread waits for the candidates, and the executor's
+     * {@link ExperimentExecutor.SaturationPolicy} never applies, so a call whose candidates ran is always published.
+     */
+    CompletableFuture<Void> publishWhenDone(CompletableFuture<?> candidates, Callable<Void> publish) {
+        CompletableFuture<Void> published = new CompletableFuture<>();
+        BiConsumer<Object, Throwable> continuation = (ignored, throwable) -> {
+            if (throwable != null) {
+                published.completeExceptionally(throwable);
+                return;
+            }
+            try {
+                publish.call();
+                published.complete(null);
+            } catch (Exception e) {
+                published.completeExceptionally(e);
+            }
+        };
+        if (candidates.isDone()) {
+            // keep publishing off the calling thread, as it would be had the candidates still been running
+            executor.executeOrRun(() -> candidates.whenComplete(continuation));
+        } else {
+            candidates.whenComplete(continuation);
+        }
+        return published;
+    }
+
+    /**
+     * Runs bookkeeping that shouldn't delay the call, such as categorising a mismatch, on the executor, or on the
+     * calling thread if the executor can't take it.
+     */
+    void executeInBackground(Runnable task) {
+        executor.executeOrRun(task);
+    }
+
+    /**
+     * Waits for a call to be published, for callers that raise on mismatch.
+     */
+    static void awaitPublished(CompletableFuture<Void> published) throws Exception {
+        try {
+            published.get();
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        }
+    }
+
+    private static Exception unwrap(Throwable cause) {
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return (Exception) cause;
+    }
+
+    /**
+     * @return null if the candidate should not run on this call
+     */
+    CandidateGuard.Permit acquireCandidate() {
+        return shouldRunCandidate() ? candidateGuard.tryAcquire() : null;
+    }
+
+    CompletableFuture<Optional<Observation<U>>> submitCandidate(Callable<U> candidate, CandidateGuard.Permit permit) {
+        return candidateGuard.submit(executor, permit,
+            () -> Optional.of(execute(CANDIDATE, candidateTimer, candidate, false)), Optional.empty());
+    }
+
+    /**
+     * Runs a candidate on the calling thread, after {@link CandidateGuard#enter()} has let it through.
+     */
+    Optional<Observation<U>> executeCandidate(Callable<U> candidate) throws Exception {
+        try {
+            return Optional.of(execute(CANDIDATE, candidateTimer, candidate, false));
+        } finally {
+            candidateGuard.exit();
+        }
+    }
+
+    /**
+     * Runs the control and records its duration in the sampling policy, before rethrowing if it failed, so that
+     * policies protecting the control see its failures as well.
+     */
+    Observation<T> executeControl(Callable<T> control) throws Exception {
+        Observation<T> observation = execute(CONTROL, controlTimer, control, false);
+        samplingPolicy().recordControl(observation.getDuration());
+        if (observation.hasException()) {
+            throw observation.exceptionOrNull();
+        }
+        return observation;
+    }
+
+    CompletableFuture<Observation<T>> executeControlStage(Supplier<CompletionStage<T>> control) {
+        return executeStage(CONTROL, controlTimer, control, true, samplingPolicy()::recordControl);
+    }
+
+    static <X> Observation<X> execute(String name, MetricsProvider.Timer timer, Callable<X> callable,
+                                      boolean shouldThrow) throws Exception {
+        Observation<X> observation = new Observation<>(name, timer);
+
+        observation.time(() -> {
+            try {
+                observation.setValue(callable.call());
+            } catch (Exception e) {
+                observation.setException(e);
+            }
+        });
+
+        if (shouldThrow && observation.hasException()) {
+            throw observation.exceptionOrNull();
+        }
+
+        return observation;
+    }
+
+    static <X> CompletableFuture<Observation<X>> executeStage(String name, MetricsProvider.Timer timer,
+                                                           Supplier<CompletionStage<X>> supplier,
+                                                           boolean shouldThrow) {
+        return executeStage(name, timer, supplier, shouldThrow, null);
+    }
+
+    /**
+     * @param durationListener if not null, is given the duration of the stage as soon as it completes, even if it
+     *                         failed
+     */
+    static <X> CompletableFuture<Observation<X>> executeStage(String name, MetricsProvider.Timer timer,
+                                                           Supplier<CompletionStage<X>> supplier,
+                                                           boolean shouldThrow, LongConsumer durationListener) {
+        Observation<X> observation = new Observation<>(name, timer);
+        CompletableFuture<Observation<X>> future = new CompletableFuture<>();
+        long start = System.nanoTime();
+        CompletionStage<X> stage;
+        try {
+            stage = supplier.get();
+        } catch (RuntimeException e) {
+            CompletableFuture<X> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            stage = failed;
+        }
+        CandidateGuard.propagateCancellation(future, stage);
+
+        stage.whenComplete((value, throwable) -> {
+            long duration = System.nanoTime() - start;
+            observation.recordDuration(duration);
+            if (durationListener != null) {
+                durationListener.accept(duration);
+            }
+            if (throwable == null) {
+                observation.setValue(value);
+                future.complete(observation);
+                return;
+            }
+            Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null
+                ? throwable.getCause() : throwable;
+            observation.setException(cause instanceof Exception ? (Exception) cause : new ExecutionException(cause));
+            if (shouldThrow) {
+                future.completeExceptionally(cause);
+            } else {
+                future.complete(observation);
+            }
+        });
+        return future;
+    }
+}
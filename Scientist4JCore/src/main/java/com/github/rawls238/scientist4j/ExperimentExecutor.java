@@ -0,0 +1,349 @@
+package com.github.rawls238.scientist4j;
+
+import com.github.rawls238.scientist4j.metrics.MetricsProvider;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The executor experiments use to run work off the caller thread.
+ * <p>
+ * Unless an experiment is given its own {@link ExecutorService}, it uses the process-wide instance returned by
+ * {@link #getDefault()}: a bounded queue in front of a fixed number of daemon threads that time out when idle.
+ * Once the queue is full the {@link SaturationPolicy} decides what happens to candidate work. Control work is never
+ * dropped: unless the policy is {@link SaturationPolicy#REJECT} it falls back to running on the submitting thread.
+ */
+public class ExperimentExecutor extends AbstractExecutorService implements AutoCloseable {
+
+    public enum SaturationPolicy {
+        /**
+         * Skip the candidate; the experiment publishes a result without a candidate observation.
+         */
+        DROP_CANDIDATE,
+        /**
+         * Run the task on the submitting thread.
+         */
+        RUN_INLINE,
+        /**
+         * Throw a {@link RejectedExecutionException} back to the caller.
+         */
+        REJECT
+    }
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+    public static final int DEFAULT_THREADS = Math.max(8, Runtime.getRuntime().availableProcessors() * 2);
+    private static final String NAMESPACE_PREFIX = "scientist";
+    private static final long KEEP_ALIVE_SECONDS = 60;
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 5;
+
+    private static volatile ExperimentExecutor defaultExecutor;
+
+    private final ExecutorService delegate;
+    private final SaturationPolicy saturationPolicy;
+    private final LongAdder rejected = new LongAdder();
+    private final MetricsProvider.Counter rejectedCounter;
+
+    public ExperimentExecutor(int threads, int queueCapacity, SaturationPolicy saturationPolicy) {
+        this("default", threads, queueCapacity, saturationPolicy, null);
+    }
+
+    /**
+     * @param metricsProvider if not null, receives a {@code scientist.executor.[name].queue.depth} gauge and a
+     *                        {@code scientist.executor.[name].rejected} counter
+     */
+    public ExperimentExecutor(String name, int threads, int queueCapacity, SaturationPolicy saturationPolicy,
+                              MetricsProvider<?> metricsProvider) {
+        this(newBoundedPool(name, threads, queueCapacity), saturationPolicy, name, metricsProvider);
+    }
+
+    /**
+     * Wraps an existing executor. Saturation handling only applies if {@code delegate} rejects work.
+     */
+    public ExperimentExecutor(ExecutorService delegate, SaturationPolicy saturationPolicy) {
+        this(delegate, saturationPolicy, null, null);
+    }
+
+    private ExperimentExecutor(ExecutorService delegate, SaturationPolicy saturationPolicy, String name,
+                               MetricsProvider<?> metricsProvider) {
+        this.delegate = delegate;
+        this.saturationPolicy = saturationPolicy;
+        if (metricsProvider != null) {
+            metricsProvider.gauge(this::getQueueDepth, NAMESPACE_PREFIX, "executor", name, "queue.depth");
+            rejectedCounter = metricsProvider.counter(NAMESPACE_PREFIX, "executor", name, "rejected");
+        } else {
+            rejectedCounter = null;
+        }
+    }
+
+    /**
+     * The process-wide executor shared by every experiment that isn't given its own.
+     */
+    public static ExperimentExecutor getDefault() {
+        ExperimentExecutor executor = defaultExecutor;
+        if (executor == null) {
+            synchronized (ExperimentExecutor.class) {
+                executor = defaultExecutor;
+                if (executor == null) {
+                    executor = new ExperimentExecutor(DEFAULT_THREADS, DEFAULT_QUEUE_CAPACITY,
+                        SaturationPolicy.DROP_CANDIDATE);
+                    defaultExecutor = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * The process-wide executor that runs each task on a new virtual thread, for experiments whose control and
+     * candidate mostly block on I/O. Virtual threads are cheap enough that this executor has no pool size or queue;
+     * bound the load an experiment can generate with {@link ExperimentBuilder#withMaxInFlightCandidates(int)} instead.
+     * It is shared by every experiment that asks for virtual threads and should not be closed.
+     * <p>
+     * On JVMs without virtual threads (before Java 21) this falls back to {@link #getDefault()}.
+     */
+    public static ExperimentExecutor getVirtualThreads() {
+        ExperimentExecutor executor = VirtualThreads.EXECUTOR;
+        return executor != null ? executor : getDefault();
+    }
+
+    /**
+     * @return true if this JVM supports virtual threads, i.e. if {@link #getVirtualThreads()} doesn't fall back
+     */
+    public static boolean isVirtualThreadsSupported() {
+        return VirtualThreads.EXECUTOR != null;
+    }
+
+    /**
+     * Replaces the process-wide executor. Experiments constructed before this call keep the one they were given.
+     */
+    public static void setDefault(ExperimentExecutor executor) {
+        synchronized (ExperimentExecutor.class) {
+            defaultExecutor = executor;
+        }
+    }
+
+    static ExperimentExecutor of(ExecutorService executorService) {
+        if (executorService == null) {
+            return getDefault();
+        }
+        if (executorService instanceof ExperimentExecutor) {
+            return (ExperimentExecutor) executorService;
+        }
+        return new ExperimentExecutor(executorService, SaturationPolicy.DROP_CANDIDATE);
+    }
+
+    /**
+     * Submits candidate work, applying the {@link SaturationPolicy} if the executor is saturated.
+     *
+     * @param droppedValue the value the returned future completes with if the task is dropped
+     * @return a future that completes on the thread that ran the task, and interrupts it when cancelled
+     */
+    public <V> CompletableFuture<V> submitCandidate(Callable<V> task, V droppedValue) {
+        CandidateTask<V> future = new CandidateTask<>(task);
+        try {
+            delegate.execute(future);
+            return future.completion;
+        } catch (RejectedExecutionException e) {
+            recordRejection();
+            switch (saturationPolicy) {
+                case DROP_CANDIDATE:
+                    return CompletableFuture.completedFuture(droppedValue);
+                case RUN_INLINE:
+                    future.run();
+                    return future.completion;
+                default:
+                    throw e;
+            }
+        }
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        try {
+            delegate.execute(command);
+        } catch (RejectedExecutionException e) {
+            recordRejection();
+            if (saturationPolicy == SaturationPolicy.REJECT || delegate.isShutdown()) {
+                throw e;
+            }
+            command.run();
+        }
+    }
+
+    /**
+     * Runs short bookkeeping that must not be lost, such as publishing a result, on the executor if it takes it and
+     * on the calling thread otherwise, whatever the {@link SaturationPolicy}.
+     */
+    void executeOrRun(Runnable command) {
+        try {
+            execute(command);
+        } catch (RejectedExecutionException e) {
+            command.run();
+        }
+    }
+
+    public SaturationPolicy getSaturationPolicy() {
+        return saturationPolicy;
+    }
+
+    /**
+     * @return the number of tasks waiting for a thread, or 0 if the wrapped executor doesn't expose its queue
+     */
+    public int getQueueDepth() {
+        if (delegate instanceof ThreadPoolExecutor) {
+            return ((ThreadPoolExecutor) delegate).getQueue().size();
+        }
+        return 0;
+    }
+
+    /**
+     * @return the number of tasks the underlying executor has refused since this executor was created
+     */
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    private void recordRejection() {
+        rejected.increment();
+        if (rejectedCounter != null) {
+            rejectedCounter.increment();
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        delegate.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        return delegate.shutdownNow();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return delegate.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return delegate.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return delegate.awaitTermination(timeout, unit);
+    }
+
+    /**
+     * Stops accepting work and waits briefly for queued tasks to finish before interrupting them.
+     */
+    @Override
+    public void close() {
+        synchronized (ExperimentExecutor.class) {
+            if (defaultExecutor == this) {
+                defaultExecutor = null;
+            }
+        }
+        shutdown();
+        try {
+            if (!awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static ExecutorService newBoundedPool(String name, int threads, int queueCapacity) {
+        BlockingQueue<Runnable> queue = new ArrayBlockingQueue<>(queueCapacity);
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, queue,
+            new DaemonThreadFactory(NAMESPACE_PREFIX + "-" + name), new ThreadPoolExecutor.AbortPolicy());
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    /**
+     * Looks up {@code Executors.newVirtualThreadPerTaskExecutor()} reflectively, so that the library still runs on Java 8.
+     */
+    private static final class VirtualThreads {
+        static final ExperimentExecutor EXECUTOR = newVirtualThreadExecutor();
+
+        private static ExperimentExecutor newVirtualThreadExecutor() {
+            try {
+                Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+                return new ExperimentExecutor((ExecutorService) factory.invoke(null), SaturationPolicy.DROP_CANDIDATE);
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                // no virtual threads, or (Java 19 and 20) only as a preview feature that isn't enabled
+                return null;
+            }
+        }
+    }
+
+    /**
+     * A candidate task whose outcome is also exposed as a {@link CompletableFuture}, so that whatever depends on it
+     * can run as a continuation instead of waiting for it on another thread.
+     */
+    private static final class CandidateTask<V> extends FutureTask<V> {
+        final CompletableFuture<V> completion = new CompletableFuture<V>() {
+            @Override
+            public boolean cancel(boolean mayInterruptIfRunning) {
+                boolean cancelled = super.cancel(mayInterruptIfRunning);
+                CandidateTask.this.cancel(mayInterruptIfRunning);
+                return cancelled;
+            }
+        };
+
+        CandidateTask(Callable<V> task) {
+            super(task);
+        }
+
+        @Override
+        protected void done() {
+            if (isCancelled()) {
+                completion.cancel(false);
+                return;
+            }
+            try {
+                completion.complete(get());
+            } catch (ExecutionException e) {
+                completion.completeExceptionally(e.getCause());
+            } catch (InterruptedException e) {
+                // can't happen, the task is done
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    static class DaemonThreadFactory implements ThreadFactory {
+        private final String prefix;
+        private final AtomicInteger count = new AtomicInteger();
+
+        DaemonThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, prefix + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.github.rawls238.scientist4j;
+
+import com.github.rawls238.scientist4j.metrics.MetricKey;
+import com.github.rawls238.scientist4j.metrics.MetricsProvider;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The metric handles of one experiment name, resolved once.
+ * <p>
+ * Experiments resolve these when they are constructed. Where experiments are created per request, resolve them once
+ * and pass them to {@link ExperimentBuilder#withMetrics(ExperimentMetrics)}, so constructing an experiment doesn't
+ * touch the metrics registry at all. Without that, the built-in providers still cache their handles per key.
+ * <p>
+ * The counters of features that are usually off (timeouts, the in-flight cap, deduplication and bypassing) are only
+ * registered when they are first incremented, so experiments that don't use them don't add series that stay at zero.
+ */
+public final class ExperimentMetrics {
+    private static final String NAMESPACE_PREFIX = "scientist";
+
+    private final MetricsProvider<?> metricsProvider;
+    private final String experimentName;
+    final MetricsProvider.Timer controlTimer;
+    final MetricsProvider.Timer candidateTimer;
+    final MetricsProvider.Counter mismatchCount;
+    final MetricsProvider.Counter candidateExceptionCount;
+    final MetricsProvider.Counter totalCount;
+    final MetricsProvider.Counter timeoutCount;
+    final MetricsProvider.Counter throttledCount;
+    final MetricsProvider.Counter deduplicatedCount;
+    final MetricsProvider.Counter bypassedCount;
+    private final ConcurrentHashMap<String, CandidateMetrics> candidates = new ConcurrentHashMap<>();
+
+    private ExperimentMetrics(MetricsProvider<?> metricsProvider, String experimentName) {
+        this.metricsProvider = metricsProvider;
+        this.experimentName = experimentName;
+        controlTimer = metricsProvider.timer(key("control"));
+        candidateTimer = metricsProvider.timer(key("candidate"));
+        mismatchCount = metricsProvider.counter(key("mismatch"));
+        candidateExceptionCount = metricsProvider.counter(key("candidate.exception"));
+        totalCount = metricsProvider.counter(key("total"));
+        timeoutCount = new LazyCounter("candidate.timeout");
+        throttledCount = new LazyCounter("candidate.throttled");
+        deduplicatedCount = new LazyCounter("candidate.deduplicated");
+        bypassedCount = new LazyCounter("bypassed");
+    }
+
+    /**
+     * Looks up or registers the metrics of experiment {@code experimentName}, named {@code scientist.[name].*}.
+     */
+    public static ExperimentMetrics resolve(MetricsProvider<?> metricsProvider, String experimentName) {
+        return new ExperimentMetrics(metricsProvider, experimentName);
+    }
+
+    public MetricsProvider<?> getMetricsProvider() {
+        return metricsProvider;
+    }
+
+    public String getExperimentName() {
+        return experimentName;
+    }
+
+    public MetricsProvider.Timer getControlTimer() {
+        return controlTimer;
+    }
+
+    public MetricsProvider.Timer getCandidateTimer() {
+        return candidateTimer;
+    }
+
+    public MetricsProvider.Counter getMismatchCount() {
+        return mismatchCount;
+    }
+
+    public MetricsProvider.Counter getCandidateExceptionCount() {
+        return candidateExceptionCount;
+    }
+
+    public MetricsProvider.Counter getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * @return the {@code candidate.timeout} counter, registered when it is first incremented
+     */
+    public MetricsProvider.Counter getTimeoutCount() {
+        return timeoutCount;
+    }
+
+    /**
+     * @return the key of one of this experiment's metrics, {@code scientist.[name].[metric]}, for metrics that are
+     * registered elsewhere, such as by a {@link com.github.rawls238.scientist4j.sampling.SamplingPolicy}
+     */
+    public MetricKey key(String metric) {
+        return MetricKey.of(NAMESPACE_PREFIX, experimentName, metric);
+    }
+
+    /**
+     * @return whether these are the metrics an experiment with this provider and name would resolve
+     */
+    boolean isFor(MetricsProvider<?> metricsProvider, String experimentName) {
+        return this.metricsProvider == metricsProvider && this.experimentName.equals(experimentName);
+    }
+
+    /**
+     * @return the timer and mismatch counter of one of several named candidates, named
+     * {@code scientist.[name].candidate.[candidate name]} and {@code scientist.[name].candidate.[candidate name].mismatch}
+     */
+    CandidateMetrics candidate(String candidateName) {
+        CandidateMetrics metrics = candidates.get(candidateName);
+        return metrics != null ? metrics : candidates.computeIfAbsent(candidateName, CandidateMetrics::new);
+    }
+
+    final class CandidateMetrics {
+        final MetricsProvider.Timer timer;
+        final MetricsProvider.Counter mismatchCount;
+
+        CandidateMetrics(String candidateName) {
+            timer = metricsProvider.timer(MetricKey.of(NAMESPACE_PREFIX, experimentName, "candidate", candidateName));
+            mismatchCount = metricsProvider.counter(
+                MetricKey.of(NAMESPACE_PREFIX, experimentName, "candidate", candidateName, "mismatch"));
+        }
+    }
+
+    /**
+     * A counter that is registered with the provider when it is first incremented. Two threads may both register
+     * it, which the providers resolve to the same counter.
+     */
+    private final class LazyCounter implements MetricsProvider.Counter {
+        private final String metric;
+        private volatile MetricsProvider.Counter counter;
+
+        LazyCounter(String metric) {
+            this.metric = metric;
+        }
+
+        @Override
+        public void increment() {
+            MetricsProvider.Counter current = counter;
+            if (current == null) {
+                current = metricsProvider.counter(key(metric));
+                counter = current;
+            }
+            current.increment();
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package com.github.rawls238.scientist4j;
+
+import com.github.rawls238.scientist4j.metrics.MetricsProvider;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Owns a set of named experiments, {@link Experiment}s or {@link IncompatibleTypesExperiment}s, that share a metrics
+ * provider and an executor, and whose settings (see {@link ExperimentConfig}) can be changed at runtime, e.g. to turn
+ * off a candidate that is overloading a backend.
+ * <p>
+ * Settings come from {@link #configure(Properties)}, or from a properties file that is reloaded whenever it changes
+ * once {@link #watch(Path)} has been called. Experiments read their settings from a volatile field, so a reload is
+ * seen by the next call without any locking on the calling thread. A file that fails to load or parse is counted under
+ * {@code scientist.registry.config.error} and leaves the previous settings in place.
+ */
+public class ExperimentRegistry implements AutoCloseable {
+    private final MetricsProvider<?> metricsProvider;
+    private final ExecutorService executorService;
+    private final ConcurrentHashMap<String, Registration> experiments = new ConcurrentHashMap<>();
+    private final MetricsProvider.Counter configErrorCount;
+    private volatile Properties properties = new Properties();
+    private WatchService watchService;
+
+    public ExperimentRegistry(MetricsProvider<?> metricsProvider) {
+        this(metricsProvider, ExperimentExecutor.getDefault());
+    }
+
+    public ExperimentRegistry(MetricsProvider<?> metricsProvider, ExecutorService executorService) {
+        this.metricsProvider = metricsProvider;
+        this.executorService = executorService;
+        this.configErrorCount = metricsProvider.counter("scientist", "registry", "config.error");
+    }
+
+    /**
+     * Registers an experiment with the default options.
+     */
+    public <T> Experiment<T> register(String name) {
+        return register(name, new ExperimentBuilder<>());
+    }
+
+    /**
+     * Registers an experiment built from {@code builder}, which gets this registry's metrics provider and, unless it
+     * has one, its executor.
+     *
+     * @throws IllegalStateException if an experiment of that name is already registered
+     */
+    public <T> Experiment<T> register(String name, ExperimentBuilder<T> builder) {
+        return register(name, builder, Experiment::new);
+    }
+
+    /**
+     * Like {@link #register(String, ExperimentBuilder)}, for subclasses of {@link Experiment}: {@code constructor} is
+     * handed the prepared builder, e.g. {@code b -> new Experiment<T>(b) { ... }}.
+     */
+    public <T, E extends Experiment<T>> E register(String name, ExperimentBuilder<T> builder,
+                                                   Function<ExperimentBuilder<T>, E> constructor) {
+        builder.withName(name).withMetricsProvider(metricsProvider);
+        if (builder.getExecutorService() == null) {
+            builder.withExecutorService(executorService);
+        }
+        ExperimentConfig defaults = ExperimentConfig.of(builder);
+        E experiment = constructor.apply(builder);
+        add(name, new Registration(experiment, experiment::configure, defaults));
+        return experiment;
+    }
+
+    /**
+     * Registers an {@link IncompatibleTypesExperiment}, as {@link #register(String, ExperimentBuilder)} does.
+     *
+     * @throws IllegalStateException if an experiment of that name is already registered
+     */
+    public <T, U> IncompatibleTypesExperiment<T, U> register(String name,
+                                                             IncompatibleTypesExperimentBuilder<T, U> builder) {
+        return register(name, builder, IncompatibleTypesExperiment::new);
+    }
+
+    /**
+     * Like {@link #register(String, IncompatibleTypesExperimentBuilder)}, for subclasses of
+     * {@link IncompatibleTypesExperiment}.
+     */
+    public <T, U, E extends IncompatibleTypesExperiment<T, U>> E register(
+        String name, IncompatibleTypesExperimentBuilder<T, U> builder,
+        Function<IncompatibleTypesExperimentBuilder<T, U>, E> constructor) {
+        builder.withName(name).withMetricsProvider(metricsProvider);
+        if (builder.getExecutorService() == null) {
+            builder.withExecutorService(executorService);
+        }
+        ExperimentConfig defaults = ExperimentConfig.of(builder);
+        E experiment = constructor.apply(builder);
+        add(name, new Registration(experiment, experiment::configure, defaults));
+        return experiment;
+    }
+
+    private void add(String name, Registration registration) {
+        if (experiments.putIfAbsent(name, registration) != null) {
+            throw new IllegalStateException("experiment " + name + " is already registered");
+        }
+        synchronized (this) {
+            // the current settings, which a concurrent configure() may not have applied to it
+            try {
+                registration.configure(name, properties);
+            } catch (IllegalArgumentException e) {
+                configErrorCount.increment();
+            }
+        }
+    }
+
+    /**
+     * @return the {@link Experiment} registered under {@code name}, if there is one
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Optional<Experiment<T>> get(String name) {
+        Registration registration = experiments.get(name);
+        return registration == null || !(registration.experiment instanceof Experiment) ? Optional.empty()
+            : Optional.of((Experiment<T>) registration.experiment);
+    }
+
+    /**
+     * @return the {@link IncompatibleTypesExperiment} registered under {@code name}, if there is one
+     */
+    @SuppressWarnings("unchecked")
+    public <T, U> Optional<IncompatibleTypesExperiment<T, U>> getIncompatibleTypes(String name) {
+        Registration registration = experiments.get(name);
+        return registration == null || !(registration.experiment instanceof IncompatibleTypesExperiment)
+            ? Optional.empty() : Optional.of((IncompatibleTypesExperiment<T, U>) registration.experiment);
+    }
+
+    /**
+     * @return the current settings of a registered experiment
+     */
+    public Optional<ExperimentConfig> getConfig(String name) {
+        Registration registration = experiments.get(name);
+        return registration == null ? Optional.empty() : Optional.of(registration.config);
+    }
+
+    /**
+     * Replaces the settings of all experiments: each falls back to the values it was built with for settings that
+     * {@code properties} leaves out.
+     *
+     * @throws IllegalArgumentException if a setting can't be parsed, in which case no settings are changed
+     */
+    public synchronized void configure(Properties properties) {
+        Properties snapshot = new Properties();
+        snapshot.putAll(properties);
+        for (Map.Entry<String, Registration> registration : experiments.entrySet()) {
+            // validate everything before applying anything
+            registration.getValue().defaults.override(registration.getKey(), snapshot);
+        }
+        this.properties = snapshot;
+        for (Map.Entry<String, Registration> registration : experiments.entrySet()) {
+            registration.getValue().configure(registration.getKey(), snapshot);
+        }
+    }
+
+    /**
+     * Loads settings from {@code file} now, and again from a daemon thread whenever it is modified or replaced, until
+     * this registry is closed. How soon a change is noticed depends on the platform's {@link WatchService}.
+     *
+     * @throws IOException if the file can't be read or watched
+     */
+    public synchronized void watch(Path file) throws IOException {
+        if (watchService != null) {
+            throw new IllegalStateException("already watching a file");
+        }
+        Path absolute = file.toAbsolutePath();
+        configure(load(absolute));
+        watchService = FileSystems.getDefault().newWatchService();
+        absolute.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+            StandardWatchEventKinds.ENTRY_MODIFY);
+        WatchService service = watchService;
+        Thread thread = new Thread(() -> watchLoop(service, absolute), "scientist-registry-config");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops watching the config file. Registered experiments keep working with their current settings.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+            watchService = null;
+        }
+    }
+
+    private void watchLoop(WatchService service, Path file) {
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (file.getFileName().equals(event.context())
+                        || event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        changed = true;
+                    }
+                }
+                key.reset();
+                if (changed) {
+                    reload(file);
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // closed
+        }
+    }
+
+    private void reload(Path file) {
+        try {
+            configure(load(file));
+        } catch (IOException | IllegalArgumentException e) {
+            configErrorCount.increment();
+        }
+    }
+
+    private static Properties load(Path file) throws IOException {
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            properties.load(in);
+        }
+        return properties;
+    }
+
+    private static final class Registration {
+        final Object experiment;
+        final Consumer<ExperimentConfig> configurer;
+        final ExperimentConfig defaults;
+        volatile ExperimentConfig config;
+
+        Registration(Object experiment, Consumer<ExperimentConfig> configurer, ExperimentConfig defaults) {
+            this.experiment = experiment;
+            this.configurer = configurer;
+            this.defaults = defaults;
+            this.config = defaults;
+        }
+
+        void configure(String name, Properties properties) {
+            config = defaults.override(name, properties);
+            configurer.accept(config);
+        }
+    }
+}
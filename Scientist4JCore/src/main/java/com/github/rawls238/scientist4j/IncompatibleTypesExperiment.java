@@ -1,39 +1,56 @@
 package com.github.rawls238.scientist4j;
 
+import com.github.rawls238.scientist4j.aggregation.Fingerprint;
+import com.github.rawls238.scientist4j.aggregation.MismatchAggregator;
+import com.github.rawls238.scientist4j.diff.Differ;
 import com.github.rawls238.scientist4j.exceptions.MismatchException;
+import com.github.rawls238.scientist4j.latency.ExperimentLatencies;
 import com.github.rawls238.scientist4j.metrics.MetricsProvider;
+import com.github.rawls238.scientist4j.publish.ResultPublisher;
+import com.github.rawls238.scientist4j.sampling.SamplingPolicy;
 
-import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
 import java.util.function.BiPredicate;
+import java.util.function.Supplier;
 
 /**
  * An Experiment that can handle a control and candidate function that return incompatible types.
  * <p>
  * Note that this requires a comparator function to be passed in to the constructor because the existing default of
  * Objects::equals doesn't make any sense when the objects are of different types.
+ * <p>
+ * It shares {@link Experiment}'s execution modes, sampling, timeouts, bypass, {@link ResultPublisher} and
+ * {@link ExperimentRegistry} settings. Candidate deduplication, low allocation mode, several candidates and
+ * capture/replay remain specific to {@link Experiment}: each relies on a kind of {@link Result} (one reporting a cached
+ * match, one reused across calls, one holding several candidates, one with a replayed control) that
+ * {@link IncompatibleTypesExperimentResult} has no counterpart for.
  *
  * @param <T> The return type of the control function.
  * @param <U> The return type of the candidate function.
  */
 public class IncompatibleTypesExperiment<T, U> {
-    private static final String CONTROL = "control";
-    private static final String CANDIDATE = "candidate";
-    private final ExecutorService executor;
-    private static final String NAMESPACE_PREFIX = "scientist";
     private final MetricsProvider<?> metricsProvider;
     private final String name;
     private final boolean raiseOnMismatch;
-    private final Map<String, Object> context;
-    private final MetricsProvider.Timer controlTimer;
-    private final MetricsProvider.Timer candidateTimer;
+    private final ExperimentContext context;
     private final MetricsProvider.Counter mismatchCount;
     private final MetricsProvider.Counter candidateExceptionCount;
     private final MetricsProvider.Counter totalCount;
     private final BiPredicate<T, U> comparator;
+    private final SamplingPolicy samplingPolicy;
+    private final OrderingStrategy orderingStrategy;
+    private final int mismatchMessageBudget;
+    private final MismatchAggregator<IncompatibleTypesExperimentResult<T, U>> mismatchAggregator;
+    private final ExperimentLatencies latencies;
+    private final Differ<? super T, ? super U> differ;
+    private final ResultPublisher<IncompatibleTypesExperimentResult<T, U>> resultPublisher;
+    private final Engine engine;
 
     public IncompatibleTypesExperiment(final MetricsProvider<?> metricsProvider, final BiPredicate<T, U> comparator) {
         this("Experiment", metricsProvider, comparator);
@@ -56,23 +73,52 @@ public class IncompatibleTypesExperiment<T, U> {
 
     public IncompatibleTypesExperiment(final String name, final Map<String, Object> context,
                                        final boolean raiseOnMismatch, final MetricsProvider<?> metricsProvider, final BiPredicate<T, U> comparator) {
-        this(name, context, raiseOnMismatch, metricsProvider, comparator, Executors.newFixedThreadPool(2));
+        this(name, context, raiseOnMismatch, metricsProvider, comparator, ExperimentExecutor.getDefault());
     }
 
     public IncompatibleTypesExperiment(final String name, final Map<String, Object> context,
                                        final boolean raiseOnMismatch, final MetricsProvider<?> metricsProvider, final BiPredicate<T, U> comparator,
                                        final ExecutorService executorService) {
-        this.name = name;
-        this.context = context;
-        this.raiseOnMismatch = raiseOnMismatch;
-        this.comparator = comparator;
-        this.metricsProvider = metricsProvider;
-        controlTimer = getMetricsProvider().timer(NAMESPACE_PREFIX, this.name, CONTROL);
-        candidateTimer = getMetricsProvider().timer(NAMESPACE_PREFIX, this.name, CANDIDATE);
-        mismatchCount = getMetricsProvider().counter(NAMESPACE_PREFIX, this.name, "mismatch");
-        candidateExceptionCount = getMetricsProvider().counter(NAMESPACE_PREFIX, this.name, "candidate.exception");
-        totalCount = getMetricsProvider().counter(NAMESPACE_PREFIX, this.name, "total");
-        executor = executorService;
+        this(new IncompatibleTypesExperimentBuilder<T, U>()
+                .withName(name)
+                .withContext(context)
+                .withRaiseOnMismatch(raiseOnMismatch)
+                .withMetricsProvider(metricsProvider)
+                .withComparator(comparator)
+                .withExecutorService(executorService));
+    }
+
+    /**
+     * Creates an experiment from a builder; lets subclasses use every option
+     * {@link IncompatibleTypesExperimentBuilder} offers.
+     */
+    protected IncompatibleTypesExperiment(final IncompatibleTypesExperimentBuilder<T, U> builder) {
+        this.name = builder.getName();
+        this.context = ExperimentContext.of(builder.getContext());
+        this.raiseOnMismatch = builder.getRaiseOnMismatch();
+        this.comparator = builder.getComparator();
+        this.metricsProvider = builder.getMetricsProvider();
+        this.samplingPolicy = builder.getSamplingPolicy();
+        this.orderingStrategy = builder.getOrderingStrategy();
+        this.mismatchMessageBudget = builder.getMismatchMessageBudget();
+        this.differ = builder.getDiffer();
+        this.mismatchAggregator = builder.getMismatchAggregator();
+        this.resultPublisher = builder.getResultPublisher();
+        this.latencies = builder.getLatencyHistograms() ? new ExperimentLatencies() : null;
+        ExperimentMetrics metrics = builder.getMetrics();
+        if (metrics == null || !metrics.isFor(getMetricsProvider(), this.name)) {
+            metrics = ExperimentMetrics.resolve(getMetricsProvider(), this.name);
+        }
+        mismatchCount = metrics.mismatchCount;
+        candidateExceptionCount = metrics.candidateExceptionCount;
+        totalCount = metrics.totalCount;
+        CandidateGuard candidateGuard = new CandidateGuard(builder.getCandidateTimeoutNanos(),
+                builder.getMaxInFlightCandidates(), metrics.timeoutCount, metrics.throttledCount);
+        ExperimentExecutor executor = builder.getVirtualThreads() && ExperimentExecutor.isVirtualThreadsSupported()
+                ? ExperimentExecutor.getVirtualThreads() : ExperimentExecutor.of(builder.getExecutorService());
+        engine = new Engine(executor, candidateGuard, metrics.controlTimer, metrics.candidateTimer,
+                builder.getBypassWhenDisabled(),
+                builder.getBypassWhenDisabled() && builder.getCountBypassed() ? metrics.bypassedCount : null);
     }
 
     /**
@@ -88,133 +134,171 @@ public class IncompatibleTypesExperiment<T, U> {
      * function may be significantly slower than the control, it is <em>not</em> recommended to raise on mismatch.
      */
     public boolean getRaiseOnMismatch() {
-        return raiseOnMismatch;
+        final ExperimentConfig current = engine.config();
+        return current == null ? raiseOnMismatch : current.getRaiseOnMismatch();
     }
 
     public String getName() {
         return name;
     }
 
+    /**
+     * @return histograms of this experiment's control and candidate durations, if enabled with
+     * {@link IncompatibleTypesExperimentBuilder#withLatencyHistograms(boolean)}
+     */
+    public Optional<ExperimentLatencies> getLatencies() {
+        return Optional.ofNullable(latencies);
+    }
+
+    int getMismatchMessageBudget() {
+        return mismatchMessageBudget;
+    }
+
+    Differ<? super T, ? super U> getDiffer() {
+        return differ;
+    }
+
+    /**
+     * Applies settings from an {@link ExperimentRegistry}, overriding those the experiment was built with.
+     */
+    void configure(final ExperimentConfig config) {
+        engine.configure(config);
+    }
+
     public T run(final Callable<T> control, final Callable<U> candidate) throws Exception {
-        if (isAsync()) {
-            return runAsync(control, candidate);
-        } else {
-            return runSync(control, candidate);
-        }
+        return run(control, candidate, Collections.emptyMap());
     }
 
-    private T runSync(final Callable<T> control, final Callable<U> candidate) throws Exception {
-        Observation<T> controlObservation;
-        Optional<Observation<U>> candidateObservation = Optional.empty();
-        if (Math.random() < 0.5) {
-            controlObservation = executeResult(CONTROL, controlTimer, control, true);
-            if (runIf() && enabled()) {
-                candidateObservation = Optional.of(executeResult(CANDIDATE, candidateTimer, candidate, false));
-            }
+    /**
+     * Runs the experiment with attributes of this call, such as a request ID, added to the experiment's context.
+     */
+    public T run(final Callable<T> control, final Callable<U> candidate, final Map<String, ?> callContext)
+            throws Exception {
+        if (engine.bypass()) {
+            return control.call();
+        }
+        final ExperimentContext context = this.context.withAll(callContext);
+        if (isAsyncCandidateOnly()) {
+            return engine.runAsyncCandidateOnly(control, candidate, context, null);
+        } else if (isAsync()) {
+            return engine.runAsync(control, candidate, context, null);
         } else {
-            if (runIf() && enabled()) {
-                candidateObservation = Optional.of(executeResult(CANDIDATE, candidateTimer, candidate, false));
-            }
-            controlObservation = executeResult(CONTROL, controlTimer, control, true);
+            return engine.runSync(control, candidate, context, null);
         }
-
-        countExceptions(candidateObservation, candidateExceptionCount);
-        IncompatibleTypesExperimentResult<T, U> result =
-                new IncompatibleTypesExperimentResult<>(this, controlObservation, candidateObservation, context);
-        publish(result);
-        return controlObservation.getValue();
     }
 
     public T runAsync(final Callable<T> control, final Callable<U> candidate) throws Exception {
-        Future<Optional<Observation<U>>> observationFutureCandidate;
-        Future<Observation<T>> observationFutureControl;
-
-        if (runIf() && enabled()) {
-            if (Math.random() < 0.5) {
-                observationFutureControl =
-                        executor.submit(() -> executeResult(CONTROL, controlTimer, control, true));
-                observationFutureCandidate = executor.submit(
-                        () -> Optional.of(executeResult(CANDIDATE, candidateTimer, candidate, false)));
-            } else {
-                observationFutureCandidate = executor.submit(
-                        () -> Optional.of(executeResult(CANDIDATE, candidateTimer, candidate, false)));
-                observationFutureControl =
-                        executor.submit(() -> executeResult(CONTROL, controlTimer, control, true));
-            }
-        } else {
-            observationFutureControl = executor.submit(() -> executeResult(CONTROL, controlTimer, control, true));
-            observationFutureCandidate = null;
-        }
+        return runAsync(control, candidate, Collections.emptyMap());
+    }
 
-        Observation<T> controlObservation;
-        try {
-            controlObservation = observationFutureControl.get();
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new RuntimeException(e);
-        } catch (ExecutionException e) {
-            throw new RuntimeException(e);
+    /**
+     * Runs the experiment as {@link #runAsync(Callable, Callable)} does, with attributes of this call added to the
+     * experiment's context.
+     */
+    public T runAsync(final Callable<T> control, final Callable<U> candidate, final Map<String, ?> callContext)
+            throws Exception {
+        if (engine.bypass()) {
+            return control.call();
         }
+        return engine.runAsync(control, candidate, context.withAll(callContext), null);
+    }
 
-        Future<Void> publishedResult =
-                executor.submit(() -> publishAsync(controlObservation, observationFutureCandidate));
+    /**
+     * Runs an experiment on functions that are already asynchronous, without blocking the calling thread.
+     * <p>
+     * Both suppliers are invoked on the calling thread and should return promptly. The returned stage completes as soon
+     * as the control does; the comparison and {@link #publish(IncompatibleTypesExperimentResult)} run as continuations
+     * once both have completed. If {@code raiseOnMismatch} is true the returned stage instead waits for the comparison
+     * and completes exceptionally with a {@link MismatchException} on mismatch.
+     */
+    public CompletionStage<T> runAsync(final Supplier<CompletionStage<T>> control,
+                                       final Supplier<CompletionStage<U>> candidate) {
+        return runAsync(control, candidate, Collections.emptyMap());
+    }
 
-        if (raiseOnMismatch) {
-            try {
-                publishedResult.get();
-            } catch (ExecutionException e) {
-                throw (Exception) e.getCause();
-            }
+    /**
+     * Runs an experiment on functions that are already asynchronous, as {@link #runAsync(Supplier, Supplier)} does,
+     * with attributes of this call added to the experiment's context.
+     */
+    public CompletionStage<T> runAsync(final Supplier<CompletionStage<T>> control,
+                                       final Supplier<CompletionStage<U>> candidate,
+                                       final Map<String, ?> callContext) {
+        if (engine.bypass()) {
+            return control.get();
         }
+        return engine.runAsync(control, candidate, context.withAll(callContext), null);
+    }
 
-        return controlObservation.getValue();
+    /**
+     * Runs the control on the calling thread and only the candidate on the executor, saving the hop that
+     * {@link #runAsync(Callable, Callable)} makes for the control. As with that method, the caller only waits for the
+     * candidate if raising on mismatch.
+     */
+    public T runAsyncCandidateOnly(final Callable<T> control, final Callable<U> candidate) throws Exception {
+        return runAsyncCandidateOnly(control, candidate, Collections.emptyMap());
     }
 
-    private Void publishAsync(final Observation<T> controlObservation,
-                              final Future<Optional<Observation<U>>> observationFutureCandidate) throws Exception {
-        Optional<Observation<U>> candidateObservation = Optional.empty();
-        if (observationFutureCandidate != null) {
-            candidateObservation = observationFutureCandidate.get();
+    /**
+     * Runs the experiment as {@link #runAsyncCandidateOnly(Callable, Callable)} does, with attributes of this call
+     * added to the experiment's context.
+     */
+    public T runAsyncCandidateOnly(final Callable<T> control, final Callable<U> candidate,
+                                   final Map<String, ?> callContext) throws Exception {
+        if (engine.bypass()) {
+            return control.call();
         }
+        return engine.runAsyncCandidateOnly(control, candidate, context.withAll(callContext), null);
+    }
 
-        countExceptions(candidateObservation, candidateExceptionCount);
-        IncompatibleTypesExperimentResult<T, U> result =
-                new IncompatibleTypesExperimentResult<>(this, controlObservation, candidateObservation, context);
-        publish(result);
-        return null;
+    /**
+     * The non-blocking form of {@link #runAsyncCandidateOnly(Callable, Callable)}, for a control that is already
+     * asynchronous: the control supplier is invoked on the calling thread and the candidate, which may block, runs on
+     * the executor. The returned stage completes as soon as the control does, or, if {@code raiseOnMismatch} is true,
+     * once the comparison has, exceptionally with a {@link MismatchException} on mismatch.
+     */
+    public CompletionStage<T> runAsyncCandidateOnly(final Supplier<CompletionStage<T>> control,
+                                                    final Callable<U> candidate) {
+        return runAsyncCandidateOnly(control, candidate, Collections.emptyMap());
     }
 
-    private void countExceptions(final Optional<Observation<U>> observation, final MetricsProvider.Counter exceptions) {
-        if (observation.isPresent() && observation.get().getException().isPresent()) {
-            exceptions.increment();
+    /**
+     * The non-blocking form of {@link #runAsyncCandidateOnly(Callable, Callable, Map)}, with attributes of this call
+     * added to the experiment's context.
+     */
+    public CompletionStage<T> runAsyncCandidateOnly(final Supplier<CompletionStage<T>> control,
+                                                    final Callable<U> candidate, final Map<String, ?> callContext) {
+        if (engine.bypass()) {
+            return control.get();
         }
+        return engine.runAsyncCandidateOnly(control, candidate, context.withAll(callContext), null);
     }
 
-    public <X> Observation<X> executeResult(final String name, final MetricsProvider.Timer timer,
-                                            final Callable<X> control, final boolean shouldThrow) throws Exception {
-        Observation<X> observation = new Observation<>(name, timer);
-
-        observation.time(() ->
-        {
-            try {
-                observation.setValue(control.call());
-            } catch (Exception e) {
-                observation.setException(e);
+    private void recordObservations(final Observation<T> controlObservation,
+                                    final Optional<Observation<U>> observation) {
+        if (latencies != null) {
+            latencies.record(controlObservation, observation);
+        }
+        if (observation.isPresent()) {
+            samplingPolicy.recordCandidate(observation.get().getDuration());
+            if (observation.get().hasException()) {
+                candidateExceptionCount.increment();
             }
-        });
-
-        Optional<Exception> exception = observation.getException();
-        if (shouldThrow && exception.isPresent()) {
-            throw exception.get();
         }
+    }
 
-        return observation;
+    public <X> Observation<X> executeResult(final String name, final MetricsProvider.Timer timer,
+                                            final Callable<X> control, final boolean shouldThrow) throws Exception {
+        return ExperimentEngine.execute(name, timer, control, shouldThrow);
     }
 
     protected boolean compareResults(final T controlVal, final U candidateVal) {
         return this.comparator.test(controlVal, candidateVal);
     }
 
+    /**
+     * @return false on a mismatch. The {@link IncompatibleTypesExperimentResult} raises a {@link MismatchException} if configured to, so no
+     * exception is created when raising is disabled.
+     */
     public boolean compare(final Observation<T> controlVal, final Observation<U> candidateVal)
             throws MismatchException {
         boolean resultsMatch = !candidateVal.getException().isPresent() &&
@@ -222,9 +306,25 @@ public class IncompatibleTypesExperiment<T, U> {
         totalCount.increment();
         if (!resultsMatch) {
             mismatchCount.increment();
-            handleComparisonMismatch(controlVal, candidateVal);
         }
-        return true;
+        return resultsMatch;
+    }
+
+    /**
+     * Hands a result to the configured {@link ResultPublisher}, or to
+     * {@link #publish(IncompatibleTypesExperimentResult)} if there is none, and counts it in the
+     * {@link MismatchAggregator} in the background if it is a mismatch.
+     */
+    private void dispatch(final IncompatibleTypesExperimentResult<T, U> result) {
+        if (mismatchAggregator != null && !result.getMatch().orElse(true)) {
+            // fingerprinting diffs the values, which the thread that ran the experiment shouldn't wait for
+            engine.executeInBackground(() -> mismatchAggregator.record(Fingerprint.of(result), result));
+        }
+        if (resultPublisher != null) {
+            resultPublisher.offer(result);
+        } else {
+            publish(result);
+        }
     }
 
     protected void publish(final IncompatibleTypesExperimentResult<T, U> result) {
@@ -238,23 +338,54 @@ public class IncompatibleTypesExperiment<T, U> {
         return true;
     }
 
+    /**
+     * Decides whether the control or candidate starts first; random by default.
+     */
+    protected OrderingStrategy getOrderingStrategy() {
+        return orderingStrategy;
+    }
+
     protected boolean isAsync() {
         return false;
     }
 
-    private void handleComparisonMismatch(final Observation<T> controlVal, final Observation<U> candidateVal)
-            throws MismatchException {
-        String msg;
-        Optional<Exception> exception = candidateVal.getException();
-        if (exception.isPresent()) {
-            String stackTrace = Arrays.toString(exception.get().getStackTrace());
-            String exceptionName = exception.get().getClass().getName();
-            msg = candidateVal.getName() + " raised an exception: " + exceptionName + " " + stackTrace;
-        } else {
-            msg =
-                    candidateVal.getName() + " does not match control value (" + controlVal.getValue().toString() + " != " +
-                            candidateVal.getValue().toString() + ")";
+    protected boolean isAsyncCandidateOnly() {
+        return false;
+    }
+
+    private final class Engine extends ExperimentEngine<T, U> {
+        Engine(final ExperimentExecutor executor, final CandidateGuard candidateGuard,
+               final MetricsProvider.Timer controlTimer, final MetricsProvider.Timer candidateTimer,
+               final boolean bypassWhenDisabled, final MetricsProvider.Counter bypassedCount) {
+            super(executor, candidateGuard, controlTimer, candidateTimer, bypassWhenDisabled, bypassedCount);
+        }
+
+        @Override
+        boolean enabled() {
+            return runIf() && IncompatibleTypesExperiment.this.enabled();
+        }
+
+        @Override
+        SamplingPolicy samplingPolicy() {
+            return samplingPolicy;
+        }
+
+        @Override
+        OrderingStrategy orderingStrategy() {
+            return getOrderingStrategy();
+        }
+
+        @Override
+        boolean raiseOnMismatch() {
+            return getRaiseOnMismatch();
+        }
+
+        @Override
+        void complete(final Observation<T> controlObservation, final Optional<Observation<U>> candidateObservation,
+                      final ExperimentContext context, final Object deduplicationKey) throws MismatchException {
+            recordObservations(controlObservation, candidateObservation);
+            dispatch(new IncompatibleTypesExperimentResult<>(IncompatibleTypesExperiment.this, controlObservation,
+                    candidateObservation, context));
         }
-        throw new MismatchException(msg);
     }
 }
@@ -0,0 +1,255 @@
+package com.github.rawls238.scientist4j;
+
+import com.github.rawls238.scientist4j.aggregation.MismatchAggregator;
+import com.github.rawls238.scientist4j.diff.Differ;
+import com.github.rawls238.scientist4j.metrics.MetricsProvider;
+import com.github.rawls238.scientist4j.publish.ResultPublisher;
+import com.github.rawls238.scientist4j.sampling.SamplingPolicy;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiPredicate;
+
+public class IncompatibleTypesExperimentBuilder<T, U> {
+    private String name;
+    private MetricsProvider<?> metricsProvider;
+    private ExperimentMetrics metrics;
+    private BiPredicate<T, U> comparator;
+    private Map<String, Object> context;
+    private ExecutorService executorService;
+    private boolean raiseOnMismatch;
+    private SamplingPolicy samplingPolicy;
+    private OrderingStrategy orderingStrategy;
+    private long candidateTimeoutNanos;
+    private int maxInFlightCandidates;
+    private boolean virtualThreads;
+    private int mismatchMessageBudget = Mismatch.DEFAULT_MESSAGE_BUDGET;
+    private boolean latencyHistograms;
+    private MismatchAggregator<IncompatibleTypesExperimentResult<T, U>> mismatchAggregator;
+    private Differ<? super T, ? super U> differ;
+    private ResultPublisher<IncompatibleTypesExperimentResult<T, U>> resultPublisher;
+    private boolean bypassWhenDisabled;
+    private boolean countBypassed;
+
+    public IncompatibleTypesExperimentBuilder() {
+        context = new HashMap<>();
+        samplingPolicy = SamplingPolicy.always();
+        orderingStrategy = OrderingStrategy.random();
+    }
+
+    public IncompatibleTypesExperimentBuilder<T, U> withName(final String name) {
+        this.name = name;
+        return this;
+    }
+
+    public IncompatibleTypesExperimentBuilder<T, U> withMetricsProvider(final MetricsProvider<?> metricsProvider) {
+        this.metricsProvider = metricsProvider;
+        return this;
+    }
+
+    /**
+     * Uses metric handles that were resolved ahead of time, along with their experiment name and metrics provider,
+     * which makes constructing experiments per request cheap.
+     */
+    public IncompatibleTypesExperimentBuilder<T, U> withMetrics(final ExperimentMetrics metrics) {
+        this.metrics = metrics;
+        this.name = metrics.getExperimentName();
+        this.metricsProvider = metrics.getMetricsProvider();
+        return this;
+    }
+
+    public IncompatibleTypesExperimentBuilder<T, U> withComparator(final BiPredicate<T, U> comparator) {
+        this.comparator = comparator;
+        return this;
+    }
+
+    public IncompatibleTypesExperimentBuilder<T, U> withContext(final Map<String, Object> context) {
+        this.context = context;
+        return this;
+    }
+
+    public IncompatibleTypesExperimentBuilder<T, U> withRaiseOnMismatch(final boolean raiseOnMismatch) {
+        this.raiseOnMismatch = raiseOnMismatch;
+        return this;
+    }
+
+    public IncompatibleTypesExperimentBuilder<T, U> withExecutorService(final ExecutorService executorService) {
+        this.executorService = executorService;
+        return this;
+    }
+
+    /**
+     * See {@link ExperimentBuilder#withSamplingPolicy(SamplingPolicy)}.
+     */
+    public IncompatibleTypesExperimentBuilder<T, U> withSamplingPolicy(final SamplingPolicy samplingPolicy) {
+        this.samplingPolicy = samplingPolicy;
+        return this;
+    }
+
+    /**
+     * See {@link ExperimentBuilder#withOrderingStrategy(OrderingStrategy)}.
+     */
+    public IncompatibleTypesExperimentBuilder<T, U> withOrderingStrategy(final OrderingStrategy orderingStrategy) {
+        this.orderingStrategy = orderingStrategy;
+        return this;
+    }
+
+    /**
+     * See {@link ExperimentBuilder#withCandidateTimeout(long, TimeUnit)}.
+     */
+    public IncompatibleTypesExperimentBuilder<T, U> withCandidateTimeout(final long timeout, final TimeUnit unit) {
+        this.candidateTimeoutNanos = unit.toNanos(timeout);
+        return this;
+    }
+
+    /**
+     * See {@link ExperimentBuilder#withMaxInFlightCandidates(int)}.
+     */
+    public IncompatibleTypesExperimentBuilder<T, U> withMaxInFlightCandidates(final int maxInFlightCandidates) {
+        this.maxInFlightCandidates = maxInFlightCandidates;
+        return this;
+    }
+
+    /**
+     * See {@link ExperimentBuilder#withVirtualThreads(boolean)}.
+     */
+    public IncompatibleTypesExperimentBuilder<T, U> withVirtualThreads(final boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+        return this;
+    }
+
+    /**
+     * See {@link ExperimentBuilder#withMismatchMessageBudget(int)}.
+     */
+    public IncompatibleTypesExperimentBuilder<T, U> withMismatchMessageBudget(final int mismatchMessageBudget) {
+        this.mismatchMessageBudget = mismatchMessageBudget;
+        return this;
+    }
+
+    /**
+     * See {@link ExperimentBuilder#withDiffer(Differ)}.
+     */
+    public IncompatibleTypesExperimentBuilder<T, U> withDiffer(final Differ<? super T, ? super U> differ) {
+        this.differ = differ;
+        return this;
+    }
+
+    /**
+     * See {@link ExperimentBuilder#withMismatchAggregator(MismatchAggregator)}.
+     */
+    public IncompatibleTypesExperimentBuilder<T, U> withMismatchAggregator(final MismatchAggregator<IncompatibleTypesExperimentResult<T, U>> mismatchAggregator) {
+        this.mismatchAggregator = mismatchAggregator;
+        return this;
+    }
+
+    /**
+     * See {@link ExperimentBuilder#withResultPublisher(ResultPublisher)}.
+     */
+    public IncompatibleTypesExperimentBuilder<T, U> withResultPublisher(final ResultPublisher<IncompatibleTypesExperimentResult<T, U>> resultPublisher) {
+        this.resultPublisher = resultPublisher;
+        return this;
+    }
+
+    /**
+     * See {@link ExperimentBuilder#withBypassWhenDisabled(boolean, boolean)}.
+     */
+    public IncompatibleTypesExperimentBuilder<T, U> withBypassWhenDisabled(final boolean bypassWhenDisabled,
+                                                                           final boolean countBypassed) {
+        this.bypassWhenDisabled = bypassWhenDisabled;
+        this.countBypassed = countBypassed;
+        return this;
+    }
+
+    /**
+     * See {@link ExperimentBuilder#withLatencyHistograms(boolean)}.
+     */
+    public IncompatibleTypesExperimentBuilder<T, U> withLatencyHistograms(final boolean latencyHistograms) {
+        this.latencyHistograms = latencyHistograms;
+        return this;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    MetricsProvider<?> getMetricsProvider() {
+        return metricsProvider;
+    }
+
+    ExperimentMetrics getMetrics() {
+        return metrics;
+    }
+
+    BiPredicate<T, U> getComparator() {
+        return comparator;
+    }
+
+    Map<String, Object> getContext() {
+        return context;
+    }
+
+    ExecutorService getExecutorService() {
+        return executorService;
+    }
+
+    boolean getRaiseOnMismatch() {
+        return raiseOnMismatch;
+    }
+
+    SamplingPolicy getSamplingPolicy() {
+        return samplingPolicy;
+    }
+
+    OrderingStrategy getOrderingStrategy() {
+        return orderingStrategy;
+    }
+
+    long getCandidateTimeoutNanos() {
+        return candidateTimeoutNanos;
+    }
+
+    int getMaxInFlightCandidates() {
+        return maxInFlightCandidates;
+    }
+
+    boolean getVirtualThreads() {
+        return virtualThreads;
+    }
+
+    int getMismatchMessageBudget() {
+        return mismatchMessageBudget;
+    }
+
+    boolean getLatencyHistograms() {
+        return latencyHistograms;
+    }
+
+    MismatchAggregator<IncompatibleTypesExperimentResult<T, U>> getMismatchAggregator() {
+        return mismatchAggregator;
+    }
+
+    Differ<? super T, ? super U> getDiffer() {
+        return differ;
+    }
+
+    ResultPublisher<IncompatibleTypesExperimentResult<T, U>> getResultPublisher() {
+        return resultPublisher;
+    }
+
+    boolean getBypassWhenDisabled() {
+        return bypassWhenDisabled;
+    }
+
+    boolean getCountBypassed() {
+        return countBypassed;
+    }
+
+    public IncompatibleTypesExperiment<T, U> build() {
+        assert name != null;
+        assert metricsProvider != null;
+        assert comparator != null;
+        return new IncompatibleTypesExperiment<>(this);
+    }
+}
@@ -1,5 +1,6 @@
 package com.github.rawls238.scientist4j;
 
+import com.github.rawls238.scientist4j.diff.Diff;
 import com.github.rawls238.scientist4j.exceptions.MismatchException;
 
 import java.util.Map;
@@ -10,24 +11,39 @@ import java.util.Optional;
  * @param <U> The return type of the candidate function.
  */
 public class IncompatibleTypesExperimentResult<T, U> {
+    private static final Optional<Boolean> MATCHED = Optional.of(true);
+    private static final Optional<Boolean> MISMATCHED = Optional.of(false);
+
+    private final IncompatibleTypesExperiment<T, U> experiment;
     private final Observation<T> control;
     private final Optional<Observation<U>> candidate;
     private Optional<Boolean> match;
     private final Map<String, Object> context;
+    private Optional<Diff> diff;
 
     public IncompatibleTypesExperimentResult(final IncompatibleTypesExperiment<T, U> experiment, final Observation<T> control,
                                              final Optional<Observation<U>> candidate, final Map<String, Object> context) throws MismatchException {
+        this.experiment = experiment;
         this.control = control;
         this.candidate = candidate;
         this.context = context;
         this.match = Optional.empty();
 
         if (candidate.isPresent()) {
+            boolean matched;
             try {
-                this.match = Optional.of(experiment.compare(control, candidate.get()));
+                matched = experiment.compare(control, candidate.get());
             } catch (MismatchException e) {
-                this.match = Optional.of(false);
-                throw e;
+                // subclasses may still override compare() to throw
+                this.match = MISMATCHED;
+                if (experiment.getRaiseOnMismatch()) {
+                    throw e;
+                }
+                return;
+            }
+            this.match = matched ? MATCHED : MISMATCHED;
+            if (!matched && experiment.getRaiseOnMismatch()) {
+                throw new MismatchException(getMismatch().get());
             }
         }
     }
@@ -36,6 +52,33 @@ public class IncompatibleTypesExperimentResult<T, U> {
         return match;
     }
 
+    /**
+     * @return a description of the mismatch, if the candidate ran and didn't match; its message is only rendered when
+     * asked for
+     */
+    public Optional<Mismatch> getMismatch() {
+        if (match != MISMATCHED) {
+            return Optional.empty();
+        }
+        return Optional.of(new Mismatch(experiment.getName(), control, candidate.get(),
+                experiment.getMismatchMessageBudget()));
+    }
+
+    /**
+     * @return where the candidate value differs from the control value, if it mismatched without throwing and the
+     * experiment has a {@link com.github.rawls238.scientist4j.diff.Differ}. Computed on the first call.
+     */
+    public Optional<Diff> getDiff() {
+        if (diff == null) {
+            if (experiment.getDiffer() == null || match != MISMATCHED || candidate.get().hasException()) {
+                diff = Optional.empty();
+            } else {
+                diff = Optional.of(experiment.getDiffer().diff(control.getValue(), candidate.get().getValue()));
+            }
+        }
+        return diff;
+    }
+
     public Observation<T> getControl() {
         return control;
     }
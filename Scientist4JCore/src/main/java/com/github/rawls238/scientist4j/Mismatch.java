@@ -0,0 +1,102 @@
+package com.github.rawls238.scientist4j;
+
+import java.util.Optional;
+
+/**
+ * Describes why a candidate didn't match its control.
+ * <p>
+ * Creating one is cheap: the message is only rendered when {@link #getMessage()} is first called, and each value in it
+ * is truncated to the experiment's mismatch message budget, so large payloads don't produce huge strings.
+ */
+public class Mismatch {
+    public static final int DEFAULT_MESSAGE_BUDGET = 1024;
+    private static final String TRUNCATED = "...";
+
+    private final String experimentName;
+    private final Observation<?> control;
+    private final Observation<?> candidate;
+    private final int messageBudget;
+    private String message;
+
+    /**
+     * @param messageBudget the maximum number of UTF-8 bytes each rendered value may take up in the message
+     */
+    public Mismatch(String experimentName, Observation<?> control, Observation<?> candidate, int messageBudget) {
+        this.experimentName = experimentName;
+        this.control = control;
+        this.candidate = candidate;
+        this.messageBudget = messageBudget;
+    }
+
+    public String getExperimentName() {
+        return experimentName;
+    }
+
+    public Observation<?> getControl() {
+        return control;
+    }
+
+    public Observation<?> getCandidate() {
+        return candidate;
+    }
+
+    public String getMessage() {
+        if (message == null) {
+            message = render();
+        }
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        return getMessage();
+    }
+
+    private String render() {
+        StringBuilder msg = new StringBuilder().append(candidate.getName());
+        Optional<Exception> exception = candidate.getException();
+        if (exception.isPresent()) {
+            msg.append(" raised an exception: ").append(exception.get().getClass().getName());
+            if (exception.get().getMessage() != null) {
+                msg.append(": ");
+                appendTruncated(msg, exception.get().getMessage(), messageBudget);
+            }
+        } else {
+            msg.append(" does not match control value (");
+            appendTruncated(msg, String.valueOf(control.getValue()), messageBudget);
+            msg.append(" != ");
+            appendTruncated(msg, String.valueOf(candidate.getValue()), messageBudget);
+            msg.append(")");
+        }
+        return msg.toString();
+    }
+
+    /**
+     * Appends as much of {@code value} as fits in {@code budget} UTF-8 bytes, followed by "..." if it didn't all fit.
+     */
+    static void appendTruncated(StringBuilder msg, String value, int budget) {
+        int bytes = 0;
+        int i = 0;
+        while (i < value.length()) {
+            int codePoint = value.codePointAt(i);
+            bytes += utf8Length(codePoint);
+            if (bytes > budget) {
+                msg.append(value, 0, i).append(TRUNCATED);
+                return;
+            }
+            i += Character.charCount(codePoint);
+        }
+        msg.append(value);
+    }
+
+    private static int utf8Length(int codePoint) {
+        if (codePoint < 0x80) {
+            return 1;
+        } else if (codePoint < 0x800) {
+            return 2;
+        } else if (codePoint < 0x10000) {
+            return 3;
+        }
+        return 4;
+    }
+}
@@ -3,18 +3,19 @@ package com.github.rawls238.scientist4j;
 import com.github.rawls238.scientist4j.metrics.MetricsProvider.Timer;
 
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 public class Observation<T> {
 
     private String name;
-    private Optional<Exception> exception;
+    private Exception exception;
     private T value;
     private Timer timer;
+    private long duration;
 
     public Observation(String name, Timer timer) {
       this.name = name;
       this.timer = timer;
-      this.exception = Optional.empty();
     }
 
     public String getName() {
@@ -30,18 +31,57 @@ public class Observation<T> {
     }
 
     public void setException(Exception e) {
-        this.exception = Optional.of(e);
+        this.exception = e;
     }
 
     public Optional<Exception> getException() {
+        return Optional.ofNullable(exception);
+    }
+
+    boolean hasException() {
+        return exception != null;
+    }
+
+    Exception exceptionOrNull() {
         return exception;
     }
 
+    /**
+     * @return how long this observation took, in nanoseconds
+     */
     public long getDuration() {
-        return timer.getDuration();
+        return duration;
     }
 
     public void time(Runnable runnable) {
-        timer.record(runnable);
+        this.duration = timer.time(runnable);
+    }
+
+    /**
+     * Records a duration measured by the caller, e.g. for a {@link java.util.concurrent.CompletionStage}.
+     */
+    void recordDuration(long nanos) {
+        this.duration = nanos;
+        timer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @return an observation with the same outcome, which stays intact when this one is reset
+     */
+    Observation<T> copy() {
+        Observation<T> copy = new Observation<>(name, timer);
+        copy.value = value;
+        copy.exception = exception;
+        copy.duration = duration;
+        return copy;
+    }
+
+    /**
+     * Clears the outcome so a pooled observation can be reused for another call.
+     */
+    void reset() {
+        this.value = null;
+        this.exception = null;
+        this.duration = 0;
     }
 }
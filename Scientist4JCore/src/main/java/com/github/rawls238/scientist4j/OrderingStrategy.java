@@ -0,0 +1,37 @@
+package com.github.rawls238.scientist4j;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides whether the control or the candidate is started first on a given call.
+ */
+public interface OrderingStrategy {
+
+    /**
+     * @return true if the control should be started before the candidate
+     */
+    boolean controlFirst();
+
+    /**
+     * A coin flip per call, using {@link ThreadLocalRandom} so that threads don't contend on a shared seed.
+     */
+    static OrderingStrategy random() {
+        return () -> ThreadLocalRandom.current().nextBoolean();
+    }
+
+    static OrderingStrategy alwaysControlFirst() {
+        return () -> true;
+    }
+
+    static OrderingStrategy alwaysCandidateFirst() {
+        return () -> false;
+    }
+
+    /**
+     * Alternates between control first and candidate first. Threads are spread over a few padded counters, so the
+     * alternation is exact per stripe rather than globally.
+     */
+    static OrderingStrategy alternating() {
+        return new AlternatingOrderingStrategy();
+    }
+}
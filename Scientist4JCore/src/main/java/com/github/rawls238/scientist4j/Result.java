@@ -1,35 +1,109 @@
 package com.github.rawls238.scientist4j;
 
+import com.github.rawls238.scientist4j.diff.Diff;
+import com.github.rawls238.scientist4j.diff.Differ;
 import com.github.rawls238.scientist4j.exceptions.MismatchException;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Optional;
 
 public class Result<T> {
-    private Experiment experiment;
-    private Observation control;
+    private static final Optional<Boolean> MATCHED = Optional.of(true);
+    private static final Optional<Boolean> MISMATCHED = Optional.of(false);
+
+    private Experiment<T> experiment;
+    private Observation<T> control;
     private Optional<Observation<T>> candidate;
     private Optional<Boolean> match;
     private Map<String, Object> context;
+    private Optional<Diff> diff;
+    private boolean deduplicated;
+    private Map<String, Observation<T>> candidates = Collections.emptyMap();
+    private Map<String, Boolean> matches = Collections.emptyMap();
+    // the candidate that getMismatch() and getDiff() describe
+    private Observation<T> mismatched;
+
+    public Result(Experiment<T> experiment, Observation<T> control, Optional<Observation<T>> candidate, Map<String, Object> context) throws MismatchException {
+      update(experiment, control, candidate, context);
+    }
 
-    public Result(Experiment experiment, Observation<T> control, Optional<Observation<T>> candidate, Map<String, Object> context) throws MismatchException {
+    /**
+     * A result for a call whose candidate was skipped because an identical call was compared recently; it reports
+     * that comparison's outcome as its match.
+     */
+    Result(Experiment<T> experiment, Observation<T> control, boolean cachedMatch, Map<String, Object> context) {
+      this.experiment = experiment;
+      this.control = control;
+      this.candidate = Optional.empty();
+      this.context = context;
+      this.match = cachedMatch ? MATCHED : MISMATCHED;
+      this.deduplicated = true;
+    }
+
+    /**
+     * The result of running several candidates against one control: each is compared with the control, and the
+     * result matches if all of them do. Unlike the other constructor this never raises; the experiment does.
+     */
+    Result(Experiment<T> experiment, Observation<T> control, Map<String, Observation<T>> candidates,
+           Map<String, Object> context) {
+      this.experiment = experiment;
+      this.control = control;
+      this.context = context;
+      this.candidates = Collections.unmodifiableMap(candidates);
+      Map<String, Boolean> matches = new LinkedHashMap<>();
+      for (Map.Entry<String, Observation<T>> entry : candidates.entrySet()) {
+        boolean matched;
+        try {
+          matched = experiment.compare(control, entry.getValue());
+        } catch (MismatchException e) {
+          matched = false;
+        }
+        matches.put(entry.getKey(), matched);
+        if (!matched && mismatched == null) {
+          mismatched = entry.getValue();
+        }
+      }
+      this.matches = Collections.unmodifiableMap(matches);
+      this.match = candidates.isEmpty() ? Optional.empty() : mismatched == null ? MATCHED : MISMATCHED;
+      // so that publishers written for a single candidate still see the one that matters
+      this.candidate = mismatched != null ? Optional.of(mismatched)
+          : candidates.values().stream().findFirst();
+    }
+
+    /**
+     * A result that is filled in by {@link #update}, for experiments that reuse their results.
+     */
+    Result() {
+      this.match = Optional.empty();
+    }
+
+    void update(Experiment<T> experiment, Observation<T> control, Optional<Observation<T>> candidate, Map<String, Object> context) throws MismatchException {
       this.experiment = experiment;
       this.control = control;
       this.candidate = candidate;
       this.context = context;
       this.match = Optional.empty();
+      this.diff = null;
+      this.deduplicated = false;
+      this.mismatched = candidate.orElse(null);
 
       if (candidate.isPresent()) {
-        Optional<MismatchException> ex = Optional.empty();
+        boolean matched;
         try {
-          this.match = Optional.of(experiment.compare(control, candidate.get()));
+          matched = experiment.compare(control, candidate.get());
         } catch (MismatchException e) {
-          ex = Optional.of(e);
-          this.match = Optional.of(false);
-        } finally {
-          if (experiment.getRaiseOnMismatch() && ex.isPresent()) {
-            throw ex.get();
+          // subclasses may still override compare() to throw
+          this.match = MISMATCHED;
+          if (experiment.getRaiseOnMismatch()) {
+            throw e;
           }
+          return;
+        }
+        this.match = matched ? MATCHED : MISMATCHED;
+        if (!matched && experiment.getRaiseOnMismatch()) {
+          throw new MismatchException(getMismatch().get());
         }
       }
     }
@@ -38,14 +112,68 @@ public class Result<T> {
       return match;
     }
 
+    /**
+     * @return a description of the mismatch, if the candidate ran and didn't match; its message is only rendered when
+     * asked for. With several candidates, this describes the first one that didn't match.
+     */
+    public Optional<Mismatch> getMismatch() {
+      if (match != MISMATCHED || mismatched == null) {
+        return Optional.empty();
+      }
+      return Optional.of(new Mismatch(experiment.getName(), control, mismatched, experiment.getMismatchMessageBudget()));
+    }
+
+    /**
+     * @return where the candidate value differs from the control value, if it mismatched without throwing and the
+     * experiment has a {@link Differ}. Computed on the first call; with several candidates, for the first one that
+     * didn't match.
+     */
+    public Optional<Diff> getDiff() {
+      if (diff == null) {
+        Differ<? super T, ? super T> differ = experiment.getDiffer();
+        if (differ == null || match != MISMATCHED || mismatched == null || mismatched.hasException()) {
+          diff = Optional.empty();
+        } else {
+          diff = Optional.of(differ.diff(control.getValue(), mismatched.getValue()));
+        }
+      }
+      return diff;
+    }
+
+    /**
+     * @return whether the candidate was skipped because an identical call was compared recently, see
+     * {@link ExperimentBuilder#withCandidateDeduplication}
+     */
+    public boolean isDeduplicated() {
+      return deduplicated;
+    }
+
     public Observation<T> getControl() {
       return control;
     }
 
+    /**
+     * @return the candidate observation, if the candidate ran. With several candidates, the first one that didn't
+     * match, or the first one if they all matched; see {@link #getCandidates()} for all of them.
+     */
     public Optional<Observation<T>> getCandidate() {
       return candidate;
     }
 
+    /**
+     * @return the candidates that ran, by name, for experiments run with several candidates; empty otherwise
+     */
+    public Map<String, Observation<T>> getCandidates() {
+      return candidates;
+    }
+
+    /**
+     * @return whether each of {@link #getCandidates()} matched the control
+     */
+    public Map<String, Boolean> getMatches() {
+      return matches;
+    }
+
     public Map<String, Object> getContext() {
       return context;
     }
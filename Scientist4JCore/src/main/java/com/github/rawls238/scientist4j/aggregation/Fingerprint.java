@@ -0,0 +1,95 @@
+package com.github.rawls238.scientist4j.aggregation;
+
+import com.github.rawls238.scientist4j.IncompatibleTypesExperimentResult;
+import com.github.rawls238.scientist4j.Observation;
+import com.github.rawls238.scientist4j.Result;
+import com.github.rawls238.scientist4j.diff.Diff;
+import com.github.rawls238.scientist4j.diff.Difference;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+
+/**
+ * Identifies a category of mismatch: what the candidate threw or, failing that, the shape of its diff, along with the
+ * context keys of the call. Indexes in diff paths are replaced by {@code *}, so that the same field differing in
+ * different list elements falls into one category.
+ */
+public final class Fingerprint {
+    private static final Pattern INDEX = Pattern.compile("\\[\\d+]");
+
+    private final String description;
+
+    private Fingerprint(String description) {
+        this.description = description;
+    }
+
+    /**
+     * With several candidates, the fingerprint is that of the first one that didn't match, prefixed with its name.
+     */
+    public static Fingerprint of(Result<?> result) {
+        for (Map.Entry<String, Boolean> match : result.getMatches().entrySet()) {
+            if (!match.getValue()) {
+                Fingerprint fingerprint = of(Optional.of(result.getCandidates().get(match.getKey())), result.getDiff(),
+                    result.getContext());
+                return new Fingerprint("candidate " + match.getKey() + " " + fingerprint.description);
+            }
+        }
+        return of(result.getCandidate(), result.getDiff(), result.getContext());
+    }
+
+    public static Fingerprint of(IncompatibleTypesExperimentResult<?, ?> result) {
+        return of(result.getCandidate(), result.getDiff(), result.getContext());
+    }
+
+    static Fingerprint of(Optional<? extends Observation<?>> candidate, Optional<Diff> diff, Map<String, Object> context) {
+        StringBuilder sb = new StringBuilder();
+        Optional<Exception> exception = candidate.isPresent() ? candidate.get().getException() : Optional.empty();
+        if (exception.isPresent()) {
+            sb.append("exception ").append(exception.get().getClass().getName());
+        } else if (diff.isPresent() && !diff.get().isEmpty()) {
+            Set<String> shape = new LinkedHashSet<>();
+            for (Difference difference : diff.get().getDifferences()) {
+                shape.add(difference.getKind() + " " + INDEX.matcher(difference.getPath()).replaceAll("[*]"));
+            }
+            sb.append("diff ").append(String.join(", ", shape));
+        } else {
+            sb.append("value");
+        }
+        Set<String> keys = context == null ? Collections.emptySet() : new TreeSet<>(context.keySet());
+        if (!keys.isEmpty()) {
+            sb.append(" context ").append(keys);
+        }
+        return new Fingerprint(sb.toString());
+    }
+
+    /**
+     * A fingerprint with a description of your choosing, for callers that categorise mismatches themselves.
+     */
+    public static Fingerprint of(String description) {
+        return new Fingerprint(description);
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Fingerprint && description.equals(((Fingerprint) o).description);
+    }
+
+    @Override
+    public int hashCode() {
+        return description.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return description;
+    }
+}
@@ -0,0 +1,188 @@
+package com.github.rawls238.scientist4j.aggregation;
+
+import com.github.rawls238.scientist4j.ExperimentBuilder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Counts mismatches by {@link Fingerprint} in a table of bounded size, so that you can see which categories dominate
+ * without shipping every result off the box.
+ * <p>
+ * The table tracks at most {@code capacity} categories using the Space-Saving algorithm: once it is full, a new
+ * category replaces the least frequent one and inherits its count, which makes every count an overestimate by at most
+ * the reported error but guarantees that any category with more than {@code total / capacity} mismatches is tracked.
+ * Counting a category that is already tracked is lock-free; only replacing one takes a lock. Each category keeps a
+ * uniform sample of up to {@code exemplarsPerCategory} results.
+ * <p>
+ * Give an aggregator to {@link ExperimentBuilder#withMismatchAggregator(MismatchAggregator)}, then read it with
+ * {@link #snapshot()} or have it hand you one every so often with {@link #scheduleSnapshots}.
+ *
+ * @param <R> the type of the exemplar results, e.g. {@code Result<T>}
+ */
+public class MismatchAggregator<R> implements AutoCloseable {
+    public static final int DEFAULT_CAPACITY = 64;
+    public static final int DEFAULT_EXEMPLARS_PER_CATEGORY = 3;
+
+    private final int capacity;
+    private final int exemplarsPerCategory;
+    private volatile Table<R> table;
+    private ScheduledExecutorService scheduler;
+
+    public MismatchAggregator() {
+        this(DEFAULT_CAPACITY, DEFAULT_EXEMPLARS_PER_CATEGORY);
+    }
+
+    public MismatchAggregator(int capacity, int exemplarsPerCategory) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.exemplarsPerCategory = exemplarsPerCategory;
+        this.table = new Table<>();
+    }
+
+    public void record(Fingerprint fingerprint, R exemplar) {
+        Table<R> current = table;
+        current.total.increment();
+        Entry<R> entry = current.entries.get(fingerprint);
+        if (entry == null) {
+            entry = admit(current, fingerprint);
+        }
+        entry.add(exemplar);
+    }
+
+    /**
+     * @return the tracked categories and their counts since this aggregator was created or last reset
+     */
+    public MismatchSnapshot<R> snapshot() {
+        return table.snapshot();
+    }
+
+    /**
+     * Starts counting afresh and returns what was counted until now. Mismatches recorded concurrently with the reset
+     * may be left out of both.
+     */
+    public MismatchSnapshot<R> snapshotAndReset() {
+        Table<R> previous = table;
+        table = new Table<>();
+        return previous.snapshot();
+    }
+
+    /**
+     * Hands {@code listener} a {@link #snapshotAndReset()} every {@code period}, from a daemon thread, until this
+     * aggregator is closed.
+     */
+    public synchronized void scheduleSnapshots(long period, TimeUnit unit, Consumer<MismatchSnapshot<R>> listener) {
+        if (scheduler == null) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "scientist-mismatch-snapshots");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        scheduler.scheduleAtFixedRate(() -> listener.accept(snapshotAndReset()), period, period, unit);
+    }
+
+    /**
+     * Stops any scheduled snapshots.
+     */
+    @Override
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    private Entry<R> admit(Table<R> current, Fingerprint fingerprint) {
+        synchronized (current) {
+            Entry<R> entry = current.entries.get(fingerprint);
+            if (entry != null) {
+                return entry;
+            }
+            long inherited = 0;
+            if (current.entries.size() >= capacity) {
+                Entry<R> min = null;
+                for (Entry<R> candidate : current.entries.values()) {
+                    if (min == null || candidate.count.get() < min.count.get()) {
+                        min = candidate;
+                    }
+                }
+                current.entries.remove(min.fingerprint);
+                inherited = min.count.get();
+            }
+            entry = new Entry<>(fingerprint, inherited, exemplarsPerCategory);
+            current.entries.put(fingerprint, entry);
+            return entry;
+        }
+    }
+
+    private static final class Table<R> {
+        final ConcurrentHashMap<Fingerprint, Entry<R>> entries = new ConcurrentHashMap<>();
+        final LongAdder total = new LongAdder();
+
+        MismatchSnapshot<R> snapshot() {
+            List<MismatchCategory<R>> categories = new ArrayList<>(entries.size());
+            for (Entry<R> entry : entries.values()) {
+                categories.add(entry.toCategory());
+            }
+            categories.sort((a, b) -> Long.compare(b.getCount(), a.getCount()));
+            return new MismatchSnapshot<>(Collections.unmodifiableList(categories), total.sum());
+        }
+    }
+
+    private static final class Entry<R> {
+        final Fingerprint fingerprint;
+        final AtomicLong count;
+        final long error;
+        final AtomicReferenceArray<R> exemplars;
+
+        Entry(Fingerprint fingerprint, long inherited, int exemplarsPerCategory) {
+            this.fingerprint = fingerprint;
+            this.count = new AtomicLong(inherited);
+            this.error = inherited;
+            this.exemplars = new AtomicReferenceArray<>(exemplarsPerCategory);
+        }
+
+        /**
+         * Counts a mismatch and keeps {@code exemplar} by reservoir sampling over this entry's own mismatches.
+         */
+        void add(R exemplar) {
+            long seen = count.incrementAndGet() - error;
+            int slots = exemplars.length();
+            if (slots == 0) {
+                return;
+            }
+            if (seen <= slots) {
+                exemplars.set((int) seen - 1, exemplar);
+            } else {
+                long slot = ThreadLocalRandom.current().nextLong(seen);
+                if (slot < slots) {
+                    exemplars.set((int) slot, exemplar);
+                }
+            }
+        }
+
+        MismatchCategory<R> toCategory() {
+            List<R> sample = new ArrayList<>(exemplars.length());
+            for (int i = 0; i < exemplars.length(); i++) {
+                R exemplar = exemplars.get(i);
+                if (exemplar != null) {
+                    sample.add(exemplar);
+                }
+            }
+            return new MismatchCategory<>(fingerprint, count.get(), error, Collections.unmodifiableList(sample));
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.github.rawls238.scientist4j.aggregation;
+
+import java.util.List;
+
+/**
+ * One row of a {@link MismatchSnapshot}.
+ *
+ * @param <R> the type of the exemplar results
+ */
+public final class MismatchCategory<R> {
+    private final Fingerprint fingerprint;
+    private final long count;
+    private final long error;
+    private final List<R> exemplars;
+
+    MismatchCategory(Fingerprint fingerprint, long count, long error, List<R> exemplars) {
+        this.fingerprint = fingerprint;
+        this.count = count;
+        this.error = error;
+        this.exemplars = exemplars;
+    }
+
+    public Fingerprint getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * @return the number of mismatches counted for this category; an overestimate by at most {@link #getError()}
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return how many of {@link #getCount()} may belong to categories this one displaced from the table
+     */
+    public long getError() {
+        return error;
+    }
+
+    /**
+     * @return a few results from this category, sampled uniformly
+     */
+    public List<R> getExemplars() {
+        return exemplars;
+    }
+
+    @Override
+    public String toString() {
+        return fingerprint + ": " + count;
+    }
+}
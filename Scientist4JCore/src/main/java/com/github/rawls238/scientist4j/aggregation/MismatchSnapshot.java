@@ -0,0 +1,32 @@
+package com.github.rawls238.scientist4j.aggregation;
+
+import java.util.List;
+
+/**
+ * The most frequent mismatch categories at a point in time.
+ *
+ * @param <R> the type of the exemplar results
+ */
+public final class MismatchSnapshot<R> {
+    private final List<MismatchCategory<R>> categories;
+    private final long total;
+
+    MismatchSnapshot(List<MismatchCategory<R>> categories, long total) {
+        this.categories = categories;
+        this.total = total;
+    }
+
+    /**
+     * @return the tracked categories, most frequent first
+     */
+    public List<MismatchCategory<R>> getCategories() {
+        return categories;
+    }
+
+    /**
+     * @return the number of mismatches recorded, including those of categories that are no longer tracked
+     */
+    public long getTotal() {
+        return total;
+    }
+}
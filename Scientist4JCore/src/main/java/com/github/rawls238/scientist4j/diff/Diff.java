@@ -0,0 +1,57 @@
+package com.github.rawls238.scientist4j.diff;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The differences between a control and a candidate value, in the order they were found.
+ */
+public final class Diff {
+    private static final Diff EMPTY = new Diff(Collections.emptyList(), false);
+
+    private final List<Difference> differences;
+    private final boolean truncated;
+
+    /**
+     * @param truncated whether the differ stopped looking before it compared everything, e.g. after finding its maximum
+     *                  number of differences
+     */
+    public Diff(List<Difference> differences, boolean truncated) {
+        this.differences = Collections.unmodifiableList(differences);
+        this.truncated = truncated;
+    }
+
+    public static Diff empty() {
+        return EMPTY;
+    }
+
+    public List<Difference> getDifferences() {
+        return differences;
+    }
+
+    public boolean isEmpty() {
+        return differences.isEmpty();
+    }
+
+    /**
+     * @return true if there may be more differences than {@link #getDifferences()} lists
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (Difference difference : differences) {
+            if (sb.length() > 0) {
+                sb.append('\n');
+            }
+            sb.append(difference);
+        }
+        if (truncated) {
+            sb.append("\n...");
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,25 @@
+package com.github.rawls238.scientist4j.diff;
+
+/**
+ * Works out where a candidate value differs from the control value.
+ *
+ * @param <T> the type of the control value
+ * @param <U> the type of the candidate value
+ */
+@FunctionalInterface
+public interface Differ<T, U> {
+
+    Diff diff(T control, U candidate);
+
+    /**
+     * Walks collections, maps, arrays, records and bean getters, reporting up to
+     * {@link ReflectiveDiffer#DEFAULT_MAX_DIFFERENCES} differences.
+     */
+    static Differ<Object, Object> reflective() {
+        return new ReflectiveDiffer(ReflectiveDiffer.DEFAULT_MAX_DIFFERENCES);
+    }
+
+    static Differ<Object, Object> reflective(int maxDifferences) {
+        return new ReflectiveDiffer(maxDifferences);
+    }
+}
@@ -0,0 +1,71 @@
+package com.github.rawls238.scientist4j.diff;
+
+/**
+ * One place where the candidate value differs from the control value.
+ */
+public final class Difference {
+
+    public enum Kind {
+        /**
+         * Present on both sides with different values (or types).
+         */
+        CHANGED,
+        /**
+         * Only present in the candidate value.
+         */
+        ADDED,
+        /**
+         * Only present in the control value.
+         */
+        REMOVED
+    }
+
+    private final String path;
+    private final Kind kind;
+    private final Object control;
+    private final Object candidate;
+
+    public Difference(String path, Kind kind, Object control, Object candidate) {
+        this.path = path;
+        this.kind = kind;
+        this.control = control;
+        this.candidate = candidate;
+    }
+
+    /**
+     * @return where the values differ, e.g. {@code $.orders[2].total} or {@code $.prices[EUR]}
+     */
+    public String getPath() {
+        return path;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * @return the control's value at {@link #getPath()}, or null if it has none
+     */
+    public Object getControl() {
+        return control;
+    }
+
+    /**
+     * @return the candidate's value at {@link #getPath()}, or null if it has none
+     */
+    public Object getCandidate() {
+        return candidate;
+    }
+
+    @Override
+    public String toString() {
+        switch (kind) {
+            case ADDED:
+                return path + ": only in candidate (" + candidate + ")";
+            case REMOVED:
+                return path + ": only in control (" + control + ")";
+            default:
+                return path + ": " + control + " != " + candidate;
+        }
+    }
+}
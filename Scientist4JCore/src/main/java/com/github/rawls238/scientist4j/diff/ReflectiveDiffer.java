@@ -0,0 +1,361 @@
+package com.github.rawls238.scientist4j.diff;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A {@link Differ} that walks both values side by side.
+ * <p>
+ * Lists, other non-set collections and arrays are compared by index, sets by membership and maps by key. Records are
+ * compared component by component and other classes getter by getter, using {@link MethodHandle}s that are looked up
+ * once per class. JDK types ({@code java.*}), enums and classes without getters are compared with {@code equals}.
+ * The walk stops as soon as {@code maxDifferences} differences have been found. It doesn't descend deeper than
+ * {@value #MAX_DEPTH} levels of collections, maps, arrays or beans, nor back into one it is already inside of, so
+ * deeply nested and cyclic values can't overflow the stack; the diff is marked as truncated where it stopped short.
+ */
+public class ReflectiveDiffer implements Differ<Object, Object> {
+    public static final int DEFAULT_MAX_DIFFERENCES = 16;
+    static final int MAX_DEPTH = 32;
+    private static final String ROOT = "$";
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final ClassValue<Property[]> PROPERTIES = new ClassValue<Property[]>() {
+        @Override
+        protected Property[] computeValue(Class<?> type) {
+            return properties(type);
+        }
+    };
+
+    private final int maxDifferences;
+
+    public ReflectiveDiffer(int maxDifferences) {
+        if (maxDifferences < 1) {
+            throw new IllegalArgumentException("maxDifferences must be positive: " + maxDifferences);
+        }
+        this.maxDifferences = maxDifferences;
+    }
+
+    @Override
+    public Diff diff(Object control, Object candidate) {
+        Walk walk = new Walk();
+        walk.path.append(ROOT);
+        walk.compare(control, candidate, 0);
+        if (walk.differences == null && !walk.incomplete) {
+            return Diff.empty();
+        }
+        return new Diff(walk.differences == null ? Collections.<Difference>emptyList() : walk.differences,
+            walk.truncated || walk.incomplete);
+    }
+
+    private final class Walk {
+        final StringBuilder path = new StringBuilder();
+        List<Difference> differences;
+        boolean truncated;
+        boolean incomplete;
+        IdentityHashMap<Object, Boolean> onPath;
+
+        boolean full() {
+            return differences != null && differences.size() >= maxDifferences;
+        }
+
+        void record(Difference.Kind kind, Object control, Object candidate) {
+            if (full()) {
+                truncated = true;
+                return;
+            }
+            if (differences == null) {
+                differences = new ArrayList<>();
+            }
+            differences.add(new Difference(path.toString(), kind, control, candidate));
+        }
+
+        void compare(Object control, Object candidate, int depth) {
+            if (control == candidate) {
+                return;
+            }
+            if (full()) {
+                truncated = true;
+                return;
+            }
+            if (control == null || candidate == null) {
+                record(Difference.Kind.CHANGED, control, candidate);
+                return;
+            }
+            if (control instanceof Set && candidate instanceof Set) {
+                compareSets((Set<?>) control, (Set<?>) candidate);
+                return;
+            }
+            boolean maps = control instanceof Map && candidate instanceof Map;
+            boolean sequences = control instanceof Collection && candidate instanceof Collection;
+            boolean arrays = control.getClass().isArray() && candidate.getClass().isArray();
+            Property[] properties = null;
+            if (!maps && !sequences && !arrays) {
+                if (control.getClass() != candidate.getClass()) {
+                    record(Difference.Kind.CHANGED, control, candidate);
+                    return;
+                }
+                properties = PROPERTIES.get(control.getClass());
+                if (properties.length == 0) {
+                    if (!control.equals(candidate)) {
+                        record(Difference.Kind.CHANGED, control, candidate);
+                    }
+                    return;
+                }
+            }
+            if (!enter(control, candidate, depth)) {
+                return;
+            }
+            try {
+                if (maps) {
+                    compareMaps((Map<?, ?>) control, (Map<?, ?>) candidate, depth);
+                } else if (sequences) {
+                    compareSequences(((Collection<?>) control).iterator(), ((Collection<?>) candidate).iterator(),
+                        depth);
+                } else if (arrays) {
+                    compareArrays(control, candidate, depth);
+                } else {
+                    compareProperties(properties, control, candidate, depth);
+                }
+            } finally {
+                onPath.remove(control);
+                onPath.remove(candidate);
+            }
+        }
+
+        /**
+         * Whether to walk into a pair of containers or beans: not deeper than {@link #MAX_DEPTH}, and not into one
+         * that is already being walked further up, which would go round a cycle. Where it doesn't, the diff is
+         * marked as truncated, since their contents weren't compared.
+         */
+        boolean enter(Object control, Object candidate, int depth) {
+            if (onPath == null) {
+                onPath = new IdentityHashMap<>();
+            }
+            if (depth >= MAX_DEPTH || onPath.containsKey(control) || onPath.containsKey(candidate)) {
+                incomplete = true;
+                return false;
+            }
+            onPath.put(control, Boolean.TRUE);
+            onPath.put(candidate, Boolean.TRUE);
+            return true;
+        }
+
+        void compareProperties(Property[] properties, Object control, Object candidate, int depth) {
+            int mark = path.length();
+            for (Property property : properties) {
+                path.append('.').append(property.name);
+                compare(property.get(control), property.get(candidate), depth + 1);
+                path.setLength(mark);
+                if (truncated) {
+                    return;
+                }
+            }
+        }
+
+        void compareSequences(Iterator<?> control, Iterator<?> candidate, int depth) {
+            int mark = path.length();
+            for (int i = 0; (control.hasNext() || candidate.hasNext()) && !truncated; i++) {
+                path.append('[').append(i).append(']');
+                if (!candidate.hasNext()) {
+                    record(Difference.Kind.REMOVED, control.next(), null);
+                } else if (!control.hasNext()) {
+                    record(Difference.Kind.ADDED, null, candidate.next());
+                } else {
+                    compare(control.next(), candidate.next(), depth + 1);
+                }
+                path.setLength(mark);
+            }
+        }
+
+        void compareArrays(Object control, Object candidate, int depth) {
+            int controlLength = Array.getLength(control);
+            int candidateLength = Array.getLength(candidate);
+            int mark = path.length();
+            for (int i = 0; i < Math.max(controlLength, candidateLength) && !truncated; i++) {
+                path.append('[').append(i).append(']');
+                if (i >= candidateLength) {
+                    record(Difference.Kind.REMOVED, Array.get(control, i), null);
+                } else if (i >= controlLength) {
+                    record(Difference.Kind.ADDED, null, Array.get(candidate, i));
+                } else {
+                    compare(Array.get(control, i), Array.get(candidate, i), depth + 1);
+                }
+                path.setLength(mark);
+            }
+        }
+
+        void compareSets(Set<?> control, Set<?> candidate) {
+            int mark = path.length();
+            for (Object element : control) {
+                if (truncated) {
+                    return;
+                }
+                if (!candidate.contains(element)) {
+                    path.append('[').append(element).append(']');
+                    record(Difference.Kind.REMOVED, element, null);
+                    path.setLength(mark);
+                }
+            }
+            for (Object element : candidate) {
+                if (truncated) {
+                    return;
+                }
+                if (!control.contains(element)) {
+                    path.append('[').append(element).append(']');
+                    record(Difference.Kind.ADDED, null, element);
+                    path.setLength(mark);
+                }
+            }
+        }
+
+        void compareMaps(Map<?, ?> control, Map<?, ?> candidate, int depth) {
+            int mark = path.length();
+            for (Map.Entry<?, ?> entry : control.entrySet()) {
+                if (truncated) {
+                    return;
+                }
+                path.append('[').append(entry.getKey()).append(']');
+                if (candidate.containsKey(entry.getKey())) {
+                    compare(entry.getValue(), candidate.get(entry.getKey()), depth + 1);
+                } else {
+                    record(Difference.Kind.REMOVED, entry.getValue(), null);
+                }
+                path.setLength(mark);
+            }
+            for (Map.Entry<?, ?> entry : candidate.entrySet()) {
+                if (truncated) {
+                    return;
+                }
+                if (!control.containsKey(entry.getKey())) {
+                    path.append('[').append(entry.getKey()).append(']');
+                    record(Difference.Kind.ADDED, null, entry.getValue());
+                    path.setLength(mark);
+                }
+            }
+        }
+    }
+
+    /**
+     * A record component or bean getter, with a method handle adapted to {@code (Object) -> Object}.
+     */
+    private static final class Property {
+        final String name;
+        final MethodHandle getter;
+
+        Property(String name, MethodHandle getter) {
+            this.name = name;
+            this.getter = getter;
+        }
+
+        Object get(Object target) {
+            try {
+                return (Object) getter.invokeExact(target);
+            } catch (Throwable t) {
+                // report what the getter threw in place of its value
+                return t;
+            }
+        }
+    }
+
+    private static Property[] properties(Class<?> type) {
+        if (type.isEnum() || type.isPrimitive() || type.getName().startsWith("java.")) {
+            return new Property[0];
+        }
+        Method[] recordAccessors = Records.accessors(type);
+        if (recordAccessors != null) {
+            List<Property> properties = new ArrayList<>();
+            for (Method accessor : recordAccessors) {
+                addProperty(properties, accessor.getName(), accessor);
+            }
+            return properties.toArray(new Property[0]);
+        }
+
+        Method[] methods = type.getMethods();
+        Arrays.sort(methods, Comparator.comparing(Method::getName));
+        List<Property> properties = new ArrayList<>();
+        for (Method method : methods) {
+            String name = propertyName(method);
+            if (name != null) {
+                addProperty(properties, name, method);
+            }
+        }
+        return properties.toArray(new Property[0]);
+    }
+
+    private static String propertyName(Method method) {
+        if (Modifier.isStatic(method.getModifiers()) || method.getParameterCount() != 0
+            || method.getDeclaringClass() == Object.class) {
+            return null;
+        }
+        String name = method.getName();
+        if (name.length() > 3 && name.startsWith("get") && method.getReturnType() != void.class) {
+            return Character.toLowerCase(name.charAt(3)) + name.substring(4);
+        }
+        if (name.length() > 2 && name.startsWith("is") && method.getReturnType() == boolean.class) {
+            return Character.toLowerCase(name.charAt(2)) + name.substring(3);
+        }
+        return null;
+    }
+
+    private static void addProperty(List<Property> properties, String name, Method method) {
+        try {
+            method.setAccessible(true);
+            properties.add(new Property(name, MethodHandles.lookup().unreflect(method).asType(GETTER_TYPE)));
+        } catch (IllegalAccessException | RuntimeException e) {
+            // not accessible from here (e.g. a module that isn't open to us): leave the property out
+        }
+    }
+
+    /**
+     * Finds record components reflectively, so that the library still runs on Java 8.
+     */
+    private static final class Records {
+        private static final Method IS_RECORD = method(Class.class, "isRecord");
+        private static final Method GET_RECORD_COMPONENTS = method(Class.class, "getRecordComponents");
+        private static final Method GET_ACCESSOR = IS_RECORD == null ? null
+            : method(GET_RECORD_COMPONENTS.getReturnType().getComponentType(), "getAccessor");
+
+        private static Method method(Class<?> type, String name) {
+            try {
+                return type.getMethod(name);
+            } catch (NoSuchMethodException e) {
+                return null;
+            }
+        }
+
+        /**
+         * @return the accessors of a record's components, in declaration order, or null if {@code type} isn't a record
+         */
+        static Method[] accessors(Class<?> type) {
+            if (IS_RECORD == null) {
+                return null;
+            }
+            try {
+                if (!(Boolean) IS_RECORD.invoke(type)) {
+                    return null;
+                }
+                Object[] components = (Object[]) GET_RECORD_COMPONENTS.invoke(type);
+                Method[] accessors = new Method[components.length];
+                for (int i = 0; i < components.length; i++) {
+                    accessors[i] = (Method) GET_ACCESSOR.invoke(components[i]);
+                }
+                return accessors;
+            } catch (ReflectiveOperationException e) {
+                return null;
+            }
+        }
+    }
+}
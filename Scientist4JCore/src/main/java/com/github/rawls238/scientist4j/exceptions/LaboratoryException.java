@@ -4,4 +4,8 @@ public class LaboratoryException extends Exception {
     public LaboratoryException(String msg) {
         super(msg);
     }
+
+    protected LaboratoryException(String msg, Throwable cause, boolean enableSuppression, boolean writableStackTrace) {
+        super(msg, cause, enableSuppression, writableStackTrace);
+    }
 }
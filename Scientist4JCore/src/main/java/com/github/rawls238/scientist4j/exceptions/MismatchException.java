@@ -1,7 +1,33 @@
 package com.github.rawls238.scientist4j.exceptions;
 
+import com.github.rawls238.scientist4j.Mismatch;
+
 public class MismatchException extends LaboratoryException {
+    private final Mismatch mismatch;
+
     public MismatchException(String msg) {
         super(msg);
+        this.mismatch = null;
+    }
+
+    /**
+     * A stackless exception whose message is rendered from {@code mismatch} on demand. Mismatches are expected
+     * outcomes rather than bugs, so the stack trace wouldn't point anywhere useful and isn't worth filling in.
+     */
+    public MismatchException(Mismatch mismatch) {
+        super(null, null, false, false);
+        this.mismatch = mismatch;
+    }
+
+    @Override
+    public String getMessage() {
+        return mismatch != null ? mismatch.getMessage() : super.getMessage();
+    }
+
+    /**
+     * @return the mismatch this exception was raised for, or null if it was created from a message
+     */
+    public Mismatch getMismatch() {
+        return mismatch;
     }
 }
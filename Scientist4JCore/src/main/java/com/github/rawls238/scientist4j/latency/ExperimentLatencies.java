@@ -0,0 +1,54 @@
+package com.github.rawls238.scientist4j.latency;
+
+import com.github.rawls238.scientist4j.Observation;
+
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * Histograms of an experiment's control and candidate durations, and of how much longer the candidate took than the
+ * control on the calls that ran both. All values are in nanoseconds.
+ */
+public class ExperimentLatencies {
+    private final LatencyHistogram control = new LatencyHistogram();
+    private final LatencyHistogram candidate = new LatencyHistogram();
+    private final LatencyHistogram delta = LatencyHistogram.signed();
+
+    public void record(Observation<?> controlObservation, Optional<? extends Observation<?>> candidateObservation) {
+        long controlDuration = controlObservation.getDuration();
+        control.record(controlDuration);
+        if (candidateObservation.isPresent()) {
+            long candidateDuration = candidateObservation.get().getDuration();
+            candidate.record(candidateDuration);
+            delta.record(candidateDuration - controlDuration);
+        }
+    }
+
+    /**
+     * Records a call that ran several candidates; each of them is recorded as a candidate, against the same control.
+     */
+    public void record(Observation<?> controlObservation, Collection<? extends Observation<?>> candidateObservations) {
+        long controlDuration = controlObservation.getDuration();
+        control.record(controlDuration);
+        for (Observation<?> candidateObservation : candidateObservations) {
+            long candidateDuration = candidateObservation.getDuration();
+            candidate.record(candidateDuration);
+            delta.record(candidateDuration - controlDuration);
+        }
+    }
+
+    public HistogramSnapshot getControl() {
+        return control.snapshot();
+    }
+
+    public HistogramSnapshot getCandidate() {
+        return candidate.snapshot();
+    }
+
+    /**
+     * @return candidate minus control duration per call; positive where the candidate was slower
+     */
+    public HistogramSnapshot getDelta() {
+        return delta.snapshot();
+    }
+}
@@ -0,0 +1,74 @@
+package com.github.rawls238.scientist4j.latency;
+
+/**
+ * The values a {@link LatencyHistogram} had recorded when the snapshot was taken.
+ * <p>
+ * Percentiles are reported as the highest value of the bucket they fall into, so they may overstate the true value by
+ * the histogram's precision but never understate it.
+ */
+public final class HistogramSnapshot {
+    private final long[] negative;
+    private final long[] positive;
+    private final long count;
+    private final long sum;
+
+    HistogramSnapshot(long[] negative, long[] positive, long sum) {
+        this.negative = negative;
+        this.positive = positive;
+        this.sum = sum;
+        long total = 0;
+        for (int i = 0; i < positive.length; i++) {
+            total += positive[i] + (negative != null ? negative[i] : 0);
+        }
+        this.count = total;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMean() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    /**
+     * @param percentile between 0 and 100, e.g. 99.9
+     * @return the value that {@code percentile}% of recorded values are at or below, or 0 if nothing was recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(Math.min(100, Math.max(0, percentile)) / 100 * count));
+        long seen = 0;
+        if (negative != null) {
+            for (int i = negative.length - 1; i >= 0; i--) {
+                seen += negative[i];
+                if (seen >= rank) {
+                    return -LatencyHistogram.lowestValue(i);
+                }
+            }
+        }
+        for (int i = 0; i < positive.length; i++) {
+            seen += positive[i];
+            if (seen >= rank) {
+                return LatencyHistogram.highestValue(i);
+            }
+        }
+        return LatencyHistogram.MAX_VALUE;
+    }
+
+    public long getMin() {
+        return getValueAtPercentile(0);
+    }
+
+    public long getMax() {
+        return getValueAtPercentile(100);
+    }
+
+    @Override
+    public String toString() {
+        return "count=" + count + ", mean=" + (long) getMean() + ", p50=" + getValueAtPercentile(50)
+            + ", p99=" + getValueAtPercentile(99) + ", p99.9=" + getValueAtPercentile(99.9) + ", max=" + getMax();
+    }
+}
@@ -0,0 +1,125 @@
+package com.github.rawls238.scientist4j.latency;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A lock-free histogram of durations in nanoseconds, in the style of HdrHistogram.
+ * <p>
+ * Buckets are log-linear: every power of two is split into {@value #SUB_BUCKETS} equal sub-buckets, so a recorded value
+ * is off by at most 1/{@value #SUB_BUCKETS} (about 3%) of itself, from one nanosecond up to {@link #MAX_VALUE} (about
+ * an hour, longer values are clamped). Writers are spread over a few stripes chosen by thread id, which keeps
+ * them from contending on the same counters; the stripes are only merged when a {@link #snapshot()} is taken. A
+ * stripe is allocated the first time a thread that maps to it records a value.
+ * <p>
+ * A {@link #signed()} histogram also records negative values, such as the difference between two durations.
+ */
+public class LatencyHistogram {
+    static final int SUB_BUCKET_BITS = 5;
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 42;
+    public static final long MAX_VALUE = (1L << (MAX_EXPONENT + 1)) - 1;
+    static final int BUCKETS = bucketIndex(MAX_VALUE) + 1;
+    private static final int STRIPES = stripes();
+
+    private final boolean signed;
+    private final AtomicReferenceArray<AtomicLongArray> stripes = new AtomicReferenceArray<>(STRIPES);
+
+    public LatencyHistogram() {
+        this(false);
+    }
+
+    private LatencyHistogram(boolean signed) {
+        this.signed = signed;
+    }
+
+    /**
+     * A histogram that keeps negative values rather than clamping them to zero.
+     */
+    public static LatencyHistogram signed() {
+        return new LatencyHistogram(true);
+    }
+
+    public void record(long value) {
+        AtomicLongArray stripe = stripe();
+        int index;
+        if (value >= 0) {
+            index = bucketIndex(Math.min(value, MAX_VALUE));
+        } else if (signed) {
+            index = BUCKETS + bucketIndex(Math.min(-value, MAX_VALUE));
+        } else {
+            value = 0;
+            index = 0;
+        }
+        stripe.getAndIncrement(index);
+        stripe.getAndAdd(stripe.length() - 1, value);
+    }
+
+    public HistogramSnapshot snapshot() {
+        long[] positive = new long[BUCKETS];
+        long[] negative = signed ? new long[BUCKETS] : null;
+        long sum = 0;
+        for (int s = 0; s < STRIPES; s++) {
+            AtomicLongArray stripe = stripes.get(s);
+            if (stripe == null) {
+                continue;
+            }
+            for (int i = 0; i < BUCKETS; i++) {
+                positive[i] += stripe.get(i);
+                if (negative != null) {
+                    negative[i] += stripe.get(BUCKETS + i);
+                }
+            }
+            sum += stripe.get(stripe.length() - 1);
+        }
+        return new HistogramSnapshot(negative, positive, sum);
+    }
+
+    private AtomicLongArray stripe() {
+        int index = (int) Thread.currentThread().getId() & (STRIPES - 1);
+        AtomicLongArray stripe = stripes.get(index);
+        if (stripe == null) {
+            // the counters of both signs, then the sum
+            stripes.compareAndSet(index, null, new AtomicLongArray(BUCKETS * (signed ? 2 : 1) + 1));
+            stripe = stripes.get(index);
+        }
+        return stripe;
+    }
+
+    /**
+     * Values below {@link #SUB_BUCKETS} get a bucket each; above that, the bucket is picked by the exponent of the
+     * value and its next {@value #SUB_BUCKET_BITS} bits.
+     */
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        return ((shift + 1) << SUB_BUCKET_BITS) + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    /**
+     * @return the smallest value that falls into bucket {@code index}
+     */
+    static long lowestValue(int index) {
+        int group = index >>> SUB_BUCKET_BITS;
+        int subBucket = index & (SUB_BUCKETS - 1);
+        if (group == 0) {
+            return subBucket;
+        }
+        return ((long) (SUB_BUCKETS + subBucket)) << (group - 1);
+    }
+
+    /**
+     * @return the largest value that falls into bucket {@code index}
+     */
+    static long highestValue(int index) {
+        return index + 1 < BUCKETS ? lowestValue(index + 1) - 1 : MAX_VALUE;
+    }
+
+    private static int stripes() {
+        int processors = Runtime.getRuntime().availableProcessors();
+        return Math.max(4, Integer.highestOneBit(processors * 2 - 1) * 2);
+    }
+}
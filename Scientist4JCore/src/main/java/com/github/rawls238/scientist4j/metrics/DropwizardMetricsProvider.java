@@ -1,13 +1,17 @@
 package com.github.rawls238.scientist4j.metrics;
 
+import io.dropwizard.metrics5.MetricName;
 import io.dropwizard.metrics5.MetricRegistry;
-import io.dropwizard.metrics5.Timer.Context;
 
-import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
 
 public class DropwizardMetricsProvider implements MetricsProvider<MetricRegistry> {
 
     private MetricRegistry registry;
+    private final ConcurrentHashMap<MetricKey, Timer> timers = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<MetricKey, Counter> counters = new ConcurrentHashMap<>();
 
     public DropwizardMetricsProvider() {
         this(new MetricRegistry());
@@ -19,25 +23,19 @@ public class DropwizardMetricsProvider implements MetricsProvider<MetricRegistry
 
     @Override
     public Timer timer(String... nameComponents) {
-        final io.dropwizard.metrics5.Timer timer = registry.timer(MetricRegistry.name(nameComponents[0], Arrays.copyOfRange(nameComponents, 1, nameComponents.length)));
+        final io.dropwizard.metrics5.Timer timer = registry.timer(MetricName.build(nameComponents));
 
         return new Timer() {
-
-            long duration;
+            private volatile long duration;
 
             @Override
-            public void record(Runnable runnable) {
-
-                final Context context = timer.time();
-
-                try {
-                    runnable.run();
-                } finally {
-                    duration = context.stop();
-                }
+            public void record(long duration, TimeUnit unit) {
+                timer.update(duration, unit);
+                this.duration = unit.toNanos(duration);
             }
 
             @Override
+            @SuppressWarnings("deprecation")
             public long getDuration() {
                 return duration;
             }
@@ -47,7 +45,7 @@ public class DropwizardMetricsProvider implements MetricsProvider<MetricRegistry
     @Override
     public Counter counter(String... nameComponents) {
 
-        final io.dropwizard.metrics5.Counter counter = registry.counter(MetricRegistry.name(nameComponents[0], Arrays.copyOfRange(nameComponents, 1, nameComponents.length)));
+        final io.dropwizard.metrics5.Counter counter = registry.counter(MetricName.build(nameComponents));
 
         return new Counter() {
 
@@ -58,6 +56,23 @@ public class DropwizardMetricsProvider implements MetricsProvider<MetricRegistry
         };
     }
 
+    @Override
+    public Timer timer(MetricKey key) {
+        Timer timer = timers.get(key);
+        return timer != null ? timer : timers.computeIfAbsent(key, k -> timer(k.toArray()));
+    }
+
+    @Override
+    public Counter counter(MetricKey key) {
+        Counter counter = counters.get(key);
+        return counter != null ? counter : counters.computeIfAbsent(key, k -> counter(k.toArray()));
+    }
+
+    @Override
+    public void gauge(LongSupplier supplier, String... nameComponents) {
+        registry.gauge(MetricName.build(nameComponents), () -> supplier::getAsLong);
+    }
+
     @Override
     public MetricRegistry getRegistry() {
         return this.registry;
@@ -66,5 +81,7 @@ public class DropwizardMetricsProvider implements MetricsProvider<MetricRegistry
     @Override
     public void setRegistry(MetricRegistry registry) {
         this.registry = registry;
+        timers.clear();
+        counters.clear();
     }
 }
@@ -0,0 +1,72 @@
+package com.github.rawls238.scientist4j.metrics;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The name of a metric, split into components, e.g. {@code scientist}, {@code foo}, {@code control}.
+ * <p>
+ * Keys are values, equal when their components are, with the hash code and joined name computed once, so providers
+ * can cache handles by key cheaply. Nothing is cached globally: a provider's cache goes away with the provider.
+ */
+public final class MetricKey {
+    private final String[] components;
+    private final List<String> componentList;
+    private final String name;
+    private final int hash;
+
+    private MetricKey(List<String> componentList) {
+        this.componentList = componentList;
+        this.components = componentList.toArray(new String[0]);
+        this.name = String.join(".", componentList);
+        this.hash = componentList.hashCode();
+    }
+
+    public static MetricKey of(String... components) {
+        if (components.length == 0) {
+            throw new IllegalArgumentException("a metric key needs at least one component");
+        }
+        return new MetricKey(Collections.unmodifiableList(Arrays.asList(components.clone())));
+    }
+
+    public List<String> getComponents() {
+        return componentList;
+    }
+
+    /**
+     * @return the components joined with dots
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return a copy of the components, for the varargs methods of {@link MetricsProvider}
+     */
+    String[] toArray() {
+        return components.clone();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof MetricKey)) {
+            return false;
+        }
+        MetricKey other = (MetricKey) o;
+        return hash == other.hash && Arrays.equals(components, other.components);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -1,21 +1,96 @@
 package com.github.rawls238.scientist4j.metrics;
 
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
 public interface MetricsProvider<T> {
 
     Timer timer(String... nameComponents);
 
     Counter counter(String... nameComponents);
 
+    /**
+     * Looks up a timer by a pre-built key. Providers that are asked for the same metrics repeatedly, e.g. because
+     * experiments are created per request, should cache the handle per key.
+     */
+    default Timer timer(MetricKey key) {
+        return timer(key.toArray());
+    }
+
+    /**
+     * Looks up a counter by a pre-built key, see {@link #timer(MetricKey)}.
+     */
+    default Counter counter(MetricKey key) {
+        return counter(key.toArray());
+    }
+
+    /**
+     * Registers a gauge that reads its value from {@code supplier}. Providers without gauge support can ignore it.
+     */
+    default void gauge(LongSupplier supplier, String... nameComponents) {
+    }
+
+    /**
+     * Registers a gauge by a pre-built key, see {@link #gauge(LongSupplier, String...)}.
+     */
+    default void gauge(LongSupplier supplier, MetricKey key) {
+        gauge(supplier, key.toArray());
+    }
+
+    /**
+     * A timer is shared by every invocation of an experiment, across threads. Durations are measured by the caller
+     * and handed to {@link #record(long, TimeUnit)}, so implementations only need to update their registry.
+     * <p>
+     * Every method has a default, so that timers written against earlier versions, which implement
+     * {@link #record(Runnable)} and {@link #getDuration()}, keep compiling and keep timing synchronous calls. They don't
+     * receive durations measured by the caller, such as those of {@link java.util.concurrent.CompletionStage}s, until
+     * they implement {@link #record(long, TimeUnit)}.
+     */
     interface Timer {
 
-        void record(Runnable runnable);
+        /**
+         * Records a duration that was measured by the caller.
+         */
+        default void record(long duration, TimeUnit unit) {
+        }
+
+        /**
+         * Runs {@code runnable} and records how long it took.
+         *
+         * @deprecated implement {@link #record(long, TimeUnit)} instead, and call {@link #time(Runnable)}, which also
+         * returns the duration of the invocation
+         */
+        @Deprecated
+        default void record(Runnable runnable) {
+            long start = System.nanoTime();
+            try {
+                runnable.run();
+            } finally {
+                record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        /**
+         * Runs {@code runnable} and records how long it took.
+         *
+         * @return the duration of this invocation in nanoseconds
+         */
+        default long time(Runnable runnable) {
+            long start = System.nanoTime();
+            record(runnable);
+            return System.nanoTime() - start;
+        }
 
         /**
-         * The duration recorded by this timer
+         * @deprecated a timer is shared between concurrent invocations, so it has no meaningful "last" duration; use
+         * the value returned by {@link #time(Runnable)} or {@code Observation.getDuration()} instead
          *
-         * @return timer duration in nanoseconds
+         * @return the duration recorded by this timer, in nanoseconds, as before; 0 unless implemented
          */
-        long getDuration();
+        @Deprecated
+        default long getDuration() {
+            return 0;
+        }
     }
 
     interface Counter {
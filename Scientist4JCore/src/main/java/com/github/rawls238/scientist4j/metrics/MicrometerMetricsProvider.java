@@ -3,11 +3,15 @@ package com.github.rawls238.scientist4j.metrics;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
 
 public class MicrometerMetricsProvider implements MetricsProvider<MeterRegistry> {
 
     private MeterRegistry registry;
+    private final ConcurrentHashMap<MetricKey, Timer> timers = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<MetricKey, Counter> counters = new ConcurrentHashMap<>();
 
     public MicrometerMetricsProvider() {
         this(new SimpleMeterRegistry());
@@ -24,13 +28,14 @@ public class MicrometerMetricsProvider implements MetricsProvider<MeterRegistry>
 
         return new Timer() {
             @Override
-            public void record(Runnable runnable) {
-                timer.record(runnable);
+            public void record(long duration, TimeUnit unit) {
+                timer.record(duration, unit);
             }
 
             @Override
+            @SuppressWarnings("deprecation")
             public long getDuration() {
-                return (long)timer.totalTime(TimeUnit.NANOSECONDS);
+                return (long) timer.totalTime(TimeUnit.NANOSECONDS);
             }
         };
     }
@@ -48,6 +53,23 @@ public class MicrometerMetricsProvider implements MetricsProvider<MeterRegistry>
         };
     }
 
+    @Override
+    public Timer timer(MetricKey key) {
+        Timer timer = timers.get(key);
+        return timer != null ? timer : timers.computeIfAbsent(key, k -> timer(k.getName()));
+    }
+
+    @Override
+    public Counter counter(MetricKey key) {
+        Counter counter = counters.get(key);
+        return counter != null ? counter : counters.computeIfAbsent(key, k -> counter(k.getName()));
+    }
+
+    @Override
+    public void gauge(LongSupplier supplier, String... nameComponents) {
+        io.micrometer.core.instrument.Gauge.builder(String.join(".", nameComponents), supplier::getAsLong).register(this.registry);
+    }
+
     @Override
     public MeterRegistry getRegistry() {
         return registry;
@@ -56,5 +78,7 @@ public class MicrometerMetricsProvider implements MetricsProvider<MeterRegistry>
     @Override
     public void setRegistry(MeterRegistry registry) {
         this.registry = registry;
+        timers.clear();
+        counters.clear();
     }
 }
@@ -0,0 +1,16 @@
+package com.github.rawls238.scientist4j.publish;
+
+/**
+ * What a {@link ResultPublisher} does with a result when its buffer is full. Either way the caller never waits and the
+ * dropped result is counted.
+ */
+public enum OverflowPolicy {
+    /**
+     * Drop the result being offered.
+     */
+    DROP_NEWEST,
+    /**
+     * Drop the oldest buffered result to make room for the one being offered.
+     */
+    DROP_OLDEST
+}
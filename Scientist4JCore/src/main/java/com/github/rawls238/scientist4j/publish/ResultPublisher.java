@@ -0,0 +1,199 @@
+package com.github.rawls238.scientist4j.publish;
+
+import com.github.rawls238.scientist4j.metrics.MetricsProvider;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Moves publishing off the threads that run experiments.
+ * <p>
+ * {@link #offer(Object)} puts a result into a bounded lock-free ring buffer and returns immediately; a dedicated
+ * daemon thread drains the buffer and hands results to the {@link ResultSink} in batches. When the buffer is full the
+ * {@link OverflowPolicy} decides which result is dropped, so a slow sink costs results rather than caller latency.
+ * An idle consumer parks until the next offer wakes it, so a quiet publisher costs no CPU.
+ * {@link #close()} stops accepting results and flushes what is buffered.
+ *
+ * @param <R> the type of result, e.g. {@code Result<T>}
+ */
+public class ResultPublisher<R> implements AutoCloseable {
+
+    public static final int DEFAULT_CAPACITY = 8192;
+    public static final int DEFAULT_MAX_BATCH_SIZE = 256;
+    private static final String NAMESPACE_PREFIX = "scientist";
+    private static final int SPINS_BEFORE_PARKING = 100;
+    private static final int DROP_OLDEST_ATTEMPTS = 8;
+    private static final long CLOSE_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(5);
+
+    private final ResultSink<R> sink;
+    private final BoundedRingBuffer<R> buffer;
+    private final int maxBatchSize;
+    private final OverflowPolicy overflowPolicy;
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder sinkFailures = new LongAdder();
+    private final MetricsProvider.Counter droppedCounter;
+    private final Thread consumer;
+    private volatile boolean closed;
+    private volatile boolean parked;
+    private volatile boolean drained;
+
+    public ResultPublisher(ResultSink<R> sink) {
+        this("default", sink, DEFAULT_CAPACITY, DEFAULT_MAX_BATCH_SIZE, OverflowPolicy.DROP_NEWEST, null);
+    }
+
+    /**
+     * @param capacity        the number of buffered results, rounded up to a power of two
+     * @param metricsProvider if not null, receives a {@code scientist.publisher.[name].dropped} counter and a
+     *                        {@code scientist.publisher.[name].queue.depth} gauge
+     */
+    public ResultPublisher(String name, ResultSink<R> sink, int capacity, int maxBatchSize,
+                           OverflowPolicy overflowPolicy, MetricsProvider<?> metricsProvider) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("maxBatchSize must be positive: " + maxBatchSize);
+        }
+        this.sink = sink;
+        this.buffer = new BoundedRingBuffer<>(capacity);
+        this.maxBatchSize = maxBatchSize;
+        this.overflowPolicy = overflowPolicy;
+        if (metricsProvider != null) {
+            droppedCounter = metricsProvider.counter(NAMESPACE_PREFIX, "publisher", name, "dropped");
+            metricsProvider.gauge(buffer::size, NAMESPACE_PREFIX, "publisher", name, "queue.depth");
+        } else {
+            droppedCounter = null;
+        }
+        consumer = new Thread(this::drain, NAMESPACE_PREFIX + "-publisher-" + name);
+        consumer.setDaemon(true);
+        consumer.start();
+    }
+
+    /**
+     * Buffers a result for publishing. Never blocks.
+     *
+     * @return false if the result was dropped, either because the buffer was full or the publisher is closed
+     */
+    public boolean offer(R result) {
+        if (closed) {
+            recordDrop();
+            return false;
+        }
+        if (buffer.offer(result)) {
+            return enqueued();
+        }
+        if (overflowPolicy == OverflowPolicy.DROP_OLDEST) {
+            for (int i = 0; i < DROP_OLDEST_ATTEMPTS; i++) {
+                if (buffer.poll() != null) {
+                    recordDrop();
+                }
+                if (buffer.offer(result)) {
+                    return enqueued();
+                }
+            }
+        }
+        recordDrop();
+        return false;
+    }
+
+    /**
+     * @return the number of results dropped since this publisher was created
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * @return the number of batches the sink has thrown on
+     */
+    public long getSinkFailureCount() {
+        return sinkFailures.sum();
+    }
+
+    /**
+     * @return the number of results waiting to be published
+     */
+    public int getQueueDepth() {
+        return buffer.size();
+    }
+
+    /**
+     * Stops accepting results and waits for the ones already buffered to be published.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(consumer);
+        try {
+            consumer.join(CLOSE_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Wakes the consumer if it parked on an empty buffer. A result that raced {@link #close()} and landed after the
+     * consumer's final drain would never be published, so it is taken back out and counted as dropped.
+     */
+    private boolean enqueued() {
+        if (drained) {
+            while (buffer.poll() != null) {
+                recordDrop();
+            }
+            return false;
+        }
+        if (parked) {
+            LockSupport.unpark(consumer);
+        }
+        return true;
+    }
+
+    private void recordDrop() {
+        dropped.increment();
+        if (droppedCounter != null) {
+            droppedCounter.increment();
+        }
+    }
+
+    private void drain() {
+        int idle = 0;
+        while (true) {
+            List<R> batch = null;
+            R result;
+            while ((batch == null || batch.size() < maxBatchSize) && (result = buffer.poll()) != null) {
+                if (batch == null) {
+                    batch = new ArrayList<>(Math.min(maxBatchSize, buffer.size() + 1));
+                }
+                batch.add(result);
+            }
+
+            if (batch != null) {
+                deliver(batch);
+                idle = 0;
+            } else if (closed) {
+                // flag first so that a racing offer either sees it or is seen by the size check
+                drained = true;
+                if (buffer.size() == 0) {
+                    return;
+                }
+            } else if (++idle < SPINS_BEFORE_PARKING) {
+                Thread.yield();
+            } else {
+                // offer unparks us once it sees the flag, so re-check the buffer after raising it
+                parked = true;
+                if (buffer.size() == 0 && !closed) {
+                    LockSupport.park(this);
+                }
+                parked = false;
+            }
+        }
+    }
+
+    private void deliver(List<R> batch) {
+        try {
+            sink.publish(batch);
+        } catch (Exception e) {
+            sinkFailures.increment();
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.github.rawls238.scientist4j.publish;
+
+import java.util.List;
+
+/**
+ * Where a {@link ResultPublisher} delivers its batches, e.g. a log shipper or a Kafka producer.
+ */
+@FunctionalInterface
+public interface ResultSink<R> {
+
+    /**
+     * Called from the publisher's own thread, one batch at a time. Exceptions are counted and the batch is discarded.
+     */
+    void publish(List<R> batch) throws Exception;
+}
@@ -0,0 +1,141 @@
+package com.github.rawls238.scientist4j.replay;
+
+import com.github.rawls238.scientist4j.Experiment;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An append-only log of control calls, their inputs and what they returned, for replaying candidates against them
+ * offline with a {@link ReplayRunner} instead of against live traffic. Fill it with
+ * {@link Experiment#capture(Object, Callable, CaptureLog)}.
+ * <p>
+ * The file is written through memory-mapped segments of {@code segmentSize} bytes, so appending a call is a copy into
+ * memory under a short lock; the operating system writes it out. A call that can't be captured, because a codec
+ * failed, it is larger than a segment or the file couldn't be grown, is dropped and counted in {@link #getDropped()}
+ * rather than failing the control. Each record is its length, the control's duration, the length of the input, the
+ * input and the value; a record that doesn't fit in the rest of a segment starts the next one.
+ *
+ * @param <I> the type of the inputs
+ * @param <T> the type of the control values
+ */
+public class CaptureLog<I, T> implements AutoCloseable {
+    public static final int DEFAULT_SEGMENT_SIZE = 64 << 20;
+    static final int MAGIC = 0x53434c47;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 12;
+    static final int RECORD_HEADER_SIZE = 16;
+    static final int SKIP = -1;
+
+    private final FileChannel channel;
+    private final Codec<I> inputCodec;
+    private final Codec<T> valueCodec;
+    private final int segmentSize;
+    private final LongAdder dropped = new LongAdder();
+    private MappedByteBuffer segment;
+    private long segmentStart;
+    private boolean closed;
+
+    public CaptureLog(Path file, Codec<I> inputCodec, Codec<T> valueCodec) throws IOException {
+        this(file, inputCodec, valueCodec, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Creates the log, replacing {@code file} if it exists.
+     */
+    public CaptureLog(Path file, Codec<I> inputCodec, Codec<T> valueCodec, int segmentSize) throws IOException {
+        if (segmentSize < HEADER_SIZE + RECORD_HEADER_SIZE) {
+            throw new IllegalArgumentException("segmentSize is too small: " + segmentSize);
+        }
+        this.inputCodec = inputCodec;
+        this.valueCodec = valueCodec;
+        this.segmentSize = segmentSize;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        segment.putInt(MAGIC).putInt(VERSION).putInt(segmentSize);
+    }
+
+    /**
+     * Appends a control call.
+     *
+     * @return false if it was dropped
+     */
+    public boolean append(I input, T value, long durationNanos) {
+        byte[] encodedInput;
+        byte[] encodedValue;
+        try {
+            encodedInput = inputCodec.encode(input);
+            encodedValue = valueCodec.encode(value);
+        } catch (RuntimeException e) {
+            dropped.increment();
+            return false;
+        }
+        long length = (long) RECORD_HEADER_SIZE + encodedInput.length + encodedValue.length;
+        if (length > segmentSize - HEADER_SIZE) {
+            dropped.increment();
+            return false;
+        }
+
+        synchronized (this) {
+            if (closed) {
+                dropped.increment();
+                return false;
+            }
+            if (segment.remaining() < length) {
+                try {
+                    MappedByteBuffer next = channel.map(FileChannel.MapMode.READ_WRITE, segmentStart + segmentSize,
+                        segmentSize);
+                    if (segment.remaining() >= Integer.BYTES) {
+                        segment.putInt(SKIP);
+                    }
+                    segment = next;
+                    segmentStart += segmentSize;
+                } catch (IOException e) {
+                    dropped.increment();
+                    return false;
+                }
+            }
+            segment.putInt((int) length).putLong(durationNanos).putInt(encodedInput.length).put(encodedInput)
+                .put(encodedValue);
+        }
+        return true;
+    }
+
+    /**
+     * @return how many calls couldn't be captured
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Forces what has been appended so far out to the file.
+     */
+    public synchronized void flush() {
+        segment.force();
+    }
+
+    /**
+     * Flushes the log and trims the file to what was written. Calls appended afterwards are dropped.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        segment.force();
+        long end = segmentStart + segment.position();
+        try {
+            channel.truncate(end);
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.github.rawls238.scientist4j.replay;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Streams the calls of a {@link CaptureLog} in the order they were appended, mapping one segment at a time. A log
+ * that wasn't closed, e.g. because the process died, is read up to the last complete record.
+ */
+public class CaptureLogReader<I, T> implements Iterator<CapturedCall<I, T>>, AutoCloseable {
+    private final FileChannel channel;
+    private final Codec<I> inputCodec;
+    private final Codec<T> valueCodec;
+    private final long size;
+    private final int segmentSize;
+    private MappedByteBuffer segment;
+    private long segmentStart;
+    private CapturedCall<I, T> next;
+    private boolean done;
+
+    public CaptureLogReader(Path file, Codec<I> inputCodec, Codec<T> valueCodec) throws IOException {
+        this.inputCodec = inputCodec;
+        this.valueCodec = valueCodec;
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            this.size = channel.size();
+            if (size < CaptureLog.HEADER_SIZE) {
+                throw new IOException("not a capture log: " + file);
+            }
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, CaptureLog.HEADER_SIZE);
+            if (header.getInt() != CaptureLog.MAGIC || header.getInt() != CaptureLog.VERSION) {
+                throw new IOException("not a capture log: " + file);
+            }
+            this.segmentSize = header.getInt();
+            this.segment = map(0);
+            segment.position(CaptureLog.HEADER_SIZE);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null && !done) {
+            try {
+                next = read();
+            } catch (IOException e) {
+                throw new IllegalStateException("failed to read the capture log", e);
+            }
+            done = next == null;
+        }
+        return next != null;
+    }
+
+    @Override
+    public CapturedCall<I, T> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        CapturedCall<I, T> call = next;
+        next = null;
+        return call;
+    }
+
+    private CapturedCall<I, T> read() throws IOException {
+        while (true) {
+            int length = segment.remaining() >= Integer.BYTES ? segment.getInt() : CaptureLog.SKIP;
+            if (length == CaptureLog.SKIP) {
+                if (segmentStart + segmentSize >= size) {
+                    return null;
+                }
+                segmentStart += segmentSize;
+                segment = map(segmentStart);
+                continue;
+            }
+            if (length < CaptureLog.RECORD_HEADER_SIZE || length - Integer.BYTES > segment.remaining()) {
+                // zeroes past the end of a log that wasn't closed, or a torn record
+                return null;
+            }
+            long duration = segment.getLong();
+            int inputLength = segment.getInt();
+            if (inputLength < 0 || inputLength > length - CaptureLog.RECORD_HEADER_SIZE) {
+                return null;
+            }
+            byte[] input = new byte[inputLength];
+            segment.get(input);
+            byte[] value = new byte[length - CaptureLog.RECORD_HEADER_SIZE - input.length];
+            segment.get(value);
+            return new CapturedCall<>(inputCodec.decode(input), valueCodec.decode(value), duration);
+        }
+    }
+
+    private MappedByteBuffer map(long start) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(segmentSize, size - start));
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,34 @@
+package com.github.rawls238.scientist4j.replay;
+
+/**
+ * One control call read back from a {@link CaptureLog}.
+ */
+public final class CapturedCall<I, T> {
+    private final I input;
+    private final T value;
+    private final long durationNanos;
+
+    CapturedCall(I input, T value, long durationNanos) {
+        this.input = input;
+        this.value = value;
+        this.durationNanos = durationNanos;
+    }
+
+    public I getInput() {
+        return input;
+    }
+
+    /**
+     * @return what the control returned
+     */
+    public T getValue() {
+        return value;
+    }
+
+    /**
+     * @return how long the control took, in nanoseconds
+     */
+    public long getDuration() {
+        return durationNanos;
+    }
+}
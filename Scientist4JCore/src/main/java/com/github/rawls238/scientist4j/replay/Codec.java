@@ -0,0 +1,32 @@
+package com.github.rawls238.scientist4j.replay;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Turns values into bytes for a {@link CaptureLog} and back.
+ *
+ * @param <V> the type of the values
+ */
+public interface Codec<V> {
+
+    byte[] encode(V value);
+
+    V decode(byte[] bytes);
+
+    /**
+     * @return a codec for strings, as UTF-8
+     */
+    static Codec<String> utf8() {
+        return new Codec<String>() {
+            @Override
+            public byte[] encode(String value) {
+                return value.getBytes(StandardCharsets.UTF_8);
+            }
+
+            @Override
+            public String decode(byte[] bytes) {
+                return new String(bytes, StandardCharsets.UTF_8);
+            }
+        };
+    }
+}
@@ -0,0 +1,114 @@
+package com.github.rawls238.scientist4j.replay;
+
+import com.github.rawls238.scientist4j.Experiment;
+import com.github.rawls238.scientist4j.exceptions.MismatchException;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Runs a candidate offline against control calls captured in a {@link CaptureLog}, going through the experiment's
+ * usual comparison, metrics and {@code publish} as if the calls were live (see
+ * {@link Experiment#replay(Object, long, java.util.concurrent.Callable)}).
+ * <p>
+ * Calls are read in batches; each batch is split across a {@link ForkJoinPool} while the next one is read and
+ * decoded, so a batch box can be kept busy on every core. Give the experiment a {@code raiseOnMismatch} of false, or
+ * mismatching calls are left out of {@code publish}, as they would be live.
+ *
+ * @param <I> the type of the captured inputs
+ * @param <T> the type of the control and candidate values
+ */
+public class ReplayRunner<I, T> {
+    public static final int DEFAULT_BATCH_SIZE = 1024;
+
+    private final Experiment<T> experiment;
+    private final Candidate<I, T> candidate;
+    private final ForkJoinPool pool;
+    private final int batchSize;
+
+    /**
+     * The candidate, given the input of a captured call.
+     */
+    @FunctionalInterface
+    public interface Candidate<I, T> {
+        T call(I input) throws Exception;
+    }
+
+    public ReplayRunner(Experiment<T> experiment, Candidate<I, T> candidate) {
+        this(experiment, candidate, ForkJoinPool.commonPool(), DEFAULT_BATCH_SIZE);
+    }
+
+    public ReplayRunner(Experiment<T> experiment, Candidate<I, T> candidate, ForkJoinPool pool, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+        }
+        this.experiment = experiment;
+        this.candidate = candidate;
+        this.pool = pool;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Replays every call {@code calls} yields, e.g. a {@link CaptureLogReader}, and returns once all have been
+     * published.
+     *
+     * @return how many calls were replayed
+     */
+    public long replay(Iterator<CapturedCall<I, T>> calls) {
+        long replayed = 0;
+        ForkJoinTask<Void> running = null;
+        while (calls.hasNext()) {
+            List<CapturedCall<I, T>> batch = new ArrayList<>(batchSize);
+            while (batch.size() < batchSize && calls.hasNext()) {
+                batch.add(calls.next());
+            }
+            if (running != null) {
+                running.join();
+            }
+            running = pool.submit(new Replay(batch, 0, batch.size()));
+            replayed += batch.size();
+        }
+        if (running != null) {
+            running.join();
+        }
+        return replayed;
+    }
+
+    private void replay(CapturedCall<I, T> call) {
+        try {
+            experiment.replay(call.getValue(), call.getDuration(), () -> candidate.call(call.getInput()));
+        } catch (MismatchException e) {
+            // counted by the experiment; keep going
+        } catch (Exception e) {
+            throw new IllegalStateException("failed to replay a call", e);
+        }
+    }
+
+    private final class Replay extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final List<CapturedCall<I, T>> batch;
+        private final int from;
+        private final int to;
+
+        Replay(List<CapturedCall<I, T>> batch, int from, int to) {
+            this.batch = batch;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                replay(batch.get(from));
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new Replay(batch, from, middle), new Replay(batch, middle, to));
+        }
+    }
+}
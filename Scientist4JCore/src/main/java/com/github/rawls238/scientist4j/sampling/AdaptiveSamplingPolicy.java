@@ -0,0 +1,98 @@
+package com.github.rawls238.scientist4j.sampling;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Backs off candidate executions when the candidate gets slow or the executor backs up.
+ * <p>
+ * Candidate latency is evaluated over one second windows. The candidate p99 is over the threshold exactly when more
+ * than 1% of the window's candidates took longer than it, so a window only needs two counters. Each slow window
+ * halves the fraction of calls that are sampled (down to {@link #MIN_FRACTION}); each healthy window gives back
+ * {@link #RECOVERY_STEP}. While the queue depth is over its limit no candidates are sampled at all.
+ */
+public class AdaptiveSamplingPolicy implements SamplingPolicy {
+
+    public static final double MIN_FRACTION = 0.01;
+    public static final double RECOVERY_STEP = 0.05;
+    private static final double TAIL_FRACTION = 0.01;
+    private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final SamplingPolicy delegate;
+    private final long latencyThresholdNanos;
+    private final LongSupplier queueDepth;
+    private final long maxQueueDepth;
+    private final long windowNanos;
+    private final AtomicLong windowStart = new AtomicLong(System.nanoTime());
+    private final LongAdder windowSamples = new LongAdder();
+    private final LongAdder windowSlowSamples = new LongAdder();
+    private volatile double fraction = 1.0;
+
+    /**
+     * @param queueDepth may be null to only adapt to latency
+     */
+    public AdaptiveSamplingPolicy(SamplingPolicy delegate, long latencyThreshold, TimeUnit unit,
+                                  LongSupplier queueDepth, long maxQueueDepth) {
+        this(delegate, latencyThreshold, unit, queueDepth, maxQueueDepth, WINDOW_NANOS);
+    }
+
+    AdaptiveSamplingPolicy(SamplingPolicy delegate, long latencyThreshold, TimeUnit unit,
+                           LongSupplier queueDepth, long maxQueueDepth, long windowNanos) {
+        this.delegate = delegate;
+        this.latencyThresholdNanos = unit.toNanos(latencyThreshold);
+        this.queueDepth = queueDepth;
+        this.maxQueueDepth = maxQueueDepth;
+        this.windowNanos = windowNanos;
+    }
+
+    @Override
+    public boolean sample() {
+        rollWindow(System.nanoTime());
+        if (queueDepth != null && queueDepth.getAsLong() > maxQueueDepth) {
+            return false;
+        }
+        double current = fraction;
+        if (current < 1.0 && ThreadLocalRandom.current().nextDouble() >= current) {
+            return false;
+        }
+        return delegate.sample();
+    }
+
+    @Override
+    public void recordCandidate(long durationNanos) {
+        windowSamples.increment();
+        if (durationNanos > latencyThresholdNanos) {
+            windowSlowSamples.increment();
+        }
+        delegate.recordCandidate(durationNanos);
+    }
+
+    @Override
+    public void recordControl(long durationNanos) {
+        delegate.recordControl(durationNanos);
+    }
+
+    /**
+     * @return the fraction of calls currently let through to the delegate policy
+     */
+    public double getFraction() {
+        return fraction;
+    }
+
+    private void rollWindow(long now) {
+        long start = windowStart.get();
+        if (now - start < windowNanos || !windowStart.compareAndSet(start, now)) {
+            return;
+        }
+        long samples = windowSamples.sumThenReset();
+        long slowSamples = windowSlowSamples.sumThenReset();
+        if (samples > 0 && slowSamples > samples * TAIL_FRACTION) {
+            fraction = Math.max(MIN_FRACTION, fraction / 2);
+        } else {
+            fraction = Math.min(1.0, fraction + RECOVERY_STEP);
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.github.rawls238.scientist4j.sampling;
+
+import com.github.rawls238.scientist4j.ExperimentMetrics;
+import com.github.rawls238.scientist4j.metrics.MetricsProvider;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Sheds candidate executions while production is under pressure, so that shadow traffic is never what pushes it over
+ * its SLO: when the control's p99 latency goes over a budget, or the load reported by a supplier (e.g.
+ * {@link #systemLoadPerProcessor()} or {@link #processCpuLoad()}) goes over a limit, no candidates run at all.
+ * <p>
+ * Unlike {@link AdaptiveSamplingPolicy}, this watches the control, through {@link #recordControl(long)}, so it keeps
+ * seeing the effect of shedding while no candidates run. Both signals are evaluated over one second windows, the
+ * p99 with the same two counters. Candidates are restored with some hysteresis: only once a window is well clear of
+ * both limits, under {@link #RECOVERY_RATIO} of each, and then gradually, doubling the fraction of sampled calls from
+ * {@link #MIN_FRACTION} with each such window. A window between the two thresholds holds the current fraction.
+ */
+public class LoadSheddingSamplingPolicy implements SamplingPolicy {
+
+    /**
+     * What the policy is currently doing, as reported by its gauge.
+     */
+    public enum State {
+        /** Every call is passed on to the delegate policy. */
+        NORMAL,
+        /** Candidates are being restored, and only a fraction of calls is passed on. */
+        RECOVERING,
+        /** No candidates run. */
+        SHEDDING
+    }
+
+    public static final double MIN_FRACTION = 1.0 / 64;
+    public static final double RECOVERY_RATIO = 0.8;
+    private static final double TAIL_FRACTION = 0.01;
+    private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final SamplingPolicy delegate;
+    private final long latencyBudgetNanos;
+    private final long recoveryLatencyNanos;
+    private final DoubleSupplier load;
+    private final double maxLoad;
+    private final long windowNanos;
+    private final MetricsProvider.Counter shedCount;
+    private final AtomicLong windowStart = new AtomicLong(System.nanoTime());
+    private final LongAdder windowControls = new LongAdder();
+    private final LongAdder windowSlowControls = new LongAdder();
+    private final LongAdder windowUnrecoveredControls = new LongAdder();
+    private volatile double fraction = 1.0;
+    private volatile State state = State.NORMAL;
+
+    /**
+     * @param load may be null to only watch the control latency; negative readings are ignored
+     */
+    public LoadSheddingSamplingPolicy(SamplingPolicy delegate, long latencyBudget, TimeUnit unit, DoubleSupplier load,
+                                      double maxLoad) {
+        this(delegate, latencyBudget, unit, load, maxLoad, null);
+    }
+
+    /**
+     * @param metrics if not null, the metrics of the experiment this policy samples for, with which a
+     *                {@code scientist.[name].candidate.shed} counter of the calls whose candidate was shed and a
+     *                {@code scientist.[name].candidate.shedding} gauge of the {@link State}'s ordinal are registered
+     */
+    public LoadSheddingSamplingPolicy(SamplingPolicy delegate, long latencyBudget, TimeUnit unit, DoubleSupplier load,
+                                      double maxLoad, ExperimentMetrics metrics) {
+        this(delegate, latencyBudget, unit, load, maxLoad, metrics, WINDOW_NANOS);
+    }
+
+    LoadSheddingSamplingPolicy(SamplingPolicy delegate, long latencyBudget, TimeUnit unit, DoubleSupplier load,
+                               double maxLoad, ExperimentMetrics metrics, long windowNanos) {
+        this.delegate = delegate;
+        this.latencyBudgetNanos = unit.toNanos(latencyBudget);
+        this.recoveryLatencyNanos = (long) (latencyBudgetNanos * RECOVERY_RATIO);
+        this.load = load;
+        this.maxLoad = maxLoad;
+        this.windowNanos = windowNanos;
+        if (metrics != null) {
+            shedCount = metrics.getMetricsProvider().counter(metrics.key("candidate.shed"));
+            metrics.getMetricsProvider().gauge(() -> state.ordinal(), metrics.key("candidate.shedding"));
+        } else {
+            shedCount = null;
+        }
+    }
+
+    @Override
+    public boolean sample() {
+        rollWindow(System.nanoTime());
+        double current = fraction;
+        if (current < 1.0 && (current == 0 || ThreadLocalRandom.current().nextDouble() >= current)) {
+            if (shedCount != null) {
+                shedCount.increment();
+            }
+            return false;
+        }
+        return delegate.sample();
+    }
+
+    @Override
+    public void recordControl(long durationNanos) {
+        windowControls.increment();
+        if (durationNanos > recoveryLatencyNanos) {
+            windowUnrecoveredControls.increment();
+            if (durationNanos > latencyBudgetNanos) {
+                windowSlowControls.increment();
+            }
+        }
+        delegate.recordControl(durationNanos);
+    }
+
+    @Override
+    public void recordCandidate(long durationNanos) {
+        delegate.recordCandidate(durationNanos);
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * @return the fraction of calls currently let through to the delegate policy
+     */
+    public double getFraction() {
+        return fraction;
+    }
+
+    private void rollWindow(long now) {
+        long start = windowStart.get();
+        if (now - start < windowNanos || !windowStart.compareAndSet(start, now)) {
+            return;
+        }
+        long controls = windowControls.sumThenReset();
+        long slowControls = windowSlowControls.sumThenReset();
+        long unrecoveredControls = windowUnrecoveredControls.sumThenReset();
+        double currentLoad = load == null ? -1 : load.getAsDouble();
+
+        boolean overloaded = slowControls > controls * TAIL_FRACTION || currentLoad > maxLoad;
+        boolean recovered = unrecoveredControls <= controls * TAIL_FRACTION && currentLoad <= maxLoad * RECOVERY_RATIO;
+        if (overloaded) {
+            fraction = 0;
+            state = State.SHEDDING;
+        } else if (recovered && fraction < 1.0) {
+            double next = Math.min(1.0, Math.max(MIN_FRACTION, fraction * 2));
+            fraction = next;
+            state = next < 1.0 ? State.RECOVERING : State.NORMAL;
+        }
+    }
+
+    /**
+     * @return the system load average over the last minute divided by the number of processors, so that 1 means every
+     * processor is busy; negative where the platform doesn't report it
+     */
+    public static DoubleSupplier systemLoadPerProcessor() {
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        return () -> os.getSystemLoadAverage() / os.getAvailableProcessors();
+    }
+
+    /**
+     * @return the recent CPU usage of this JVM, between 0 and 1; negative where the JVM doesn't report it
+     */
+    public static DoubleSupplier processCpuLoad() {
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        Method processCpuLoad;
+        try {
+            processCpuLoad = Class.forName("com.sun.management.OperatingSystemMXBean").getMethod("getProcessCpuLoad");
+        } catch (ReflectiveOperationException e) {
+            return () -> -1;
+        }
+        if (!processCpuLoad.getDeclaringClass().isInstance(os)) {
+            return () -> -1;
+        }
+        return () -> {
+            try {
+                return (Double) processCpuLoad.invoke(os);
+            } catch (ReflectiveOperationException e) {
+                return -1;
+            }
+        };
+    }
+}
@@ -0,0 +1,30 @@
+package com.github.rawls238.scientist4j.sampling;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Runs the candidate for a fixed fraction of calls.
+ */
+public class PercentageSamplingPolicy implements SamplingPolicy {
+
+    private final double fraction;
+
+    public PercentageSamplingPolicy(double fraction) {
+        if (fraction < 0 || fraction > 1) {
+            throw new IllegalArgumentException("fraction must be between 0 and 1: " + fraction);
+        }
+        this.fraction = fraction;
+    }
+
+    @Override
+    public boolean sample() {
+        if (fraction >= 1) {
+            return true;
+        }
+        return fraction > 0 && ThreadLocalRandom.current().nextDouble() < fraction;
+    }
+
+    public double getFraction() {
+        return fraction;
+    }
+}
@@ -0,0 +1,51 @@
+package com.github.rawls238.scientist4j.sampling;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caps candidate executions with a token bucket.
+ * <p>
+ * The bucket is kept as a single "theoretical arrival time" (the generic cell rate algorithm), so taking a token is
+ * one compare-and-set on an {@link AtomicLong}.
+ */
+public class RateLimitedSamplingPolicy implements SamplingPolicy {
+
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final AtomicLong theoreticalArrival;
+
+    /**
+     * Allows up to one second's worth of permits in a burst.
+     */
+    public RateLimitedSamplingPolicy(double permitsPerSecond) {
+        this(permitsPerSecond, Math.max(1, (long) permitsPerSecond));
+    }
+
+    public RateLimitedSamplingPolicy(double permitsPerSecond, long burst) {
+        if (permitsPerSecond <= 0) {
+            throw new IllegalArgumentException("permitsPerSecond must be positive: " + permitsPerSecond);
+        }
+        if (burst < 1) {
+            throw new IllegalArgumentException("burst must be at least 1: " + burst);
+        }
+        this.intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+        this.burstNanos = intervalNanos * burst;
+        this.theoreticalArrival = new AtomicLong(System.nanoTime() - burstNanos);
+    }
+
+    @Override
+    public boolean sample() {
+        while (true) {
+            long now = System.nanoTime();
+            long arrival = theoreticalArrival.get();
+            long next = Math.max(arrival - now, 0) + now + intervalNanos;
+            if (next - now > burstNanos) {
+                return false;
+            }
+            if (theoreticalArrival.compareAndSet(arrival, next)) {
+                return true;
+            }
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.github.rawls238.scientist4j.sampling;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * Decides, per call, whether an experiment runs its candidate.
+ * <p>
+ * Implementations are consulted on every call of the experiment, so {@link #sample()} must be cheap, thread safe and
+ * should not allocate.
+ */
+public interface SamplingPolicy {
+
+    /**
+     * @return true if the candidate should run for this call
+     */
+    boolean sample();
+
+    /**
+     * Called with the duration of every candidate that ran, for policies that adapt to candidate latency.
+     */
+    default void recordCandidate(long durationNanos) {
+    }
+
+    /**
+     * Called with the duration of every control that ran, including those that threw, for policies that protect the
+     * control.
+     */
+    default void recordControl(long durationNanos) {
+    }
+
+    /**
+     * @return a policy that only samples if both this policy and {@code other} do
+     */
+    default SamplingPolicy and(SamplingPolicy other) {
+        SamplingPolicy self = this;
+        return new SamplingPolicy() {
+            @Override
+            public boolean sample() {
+                return self.sample() && other.sample();
+            }
+
+            @Override
+            public void recordCandidate(long durationNanos) {
+                self.recordCandidate(durationNanos);
+                other.recordCandidate(durationNanos);
+            }
+
+            @Override
+            public void recordControl(long durationNanos) {
+                self.recordControl(durationNanos);
+                other.recordControl(durationNanos);
+            }
+        };
+    }
+
+    /**
+     * @return a policy that always runs the candidate
+     */
+    static SamplingPolicy always() {
+        return () -> true;
+    }
+
+    /**
+     * @param fraction the fraction of calls, between 0 and 1, that run the candidate
+     */
+    static SamplingPolicy percentage(double fraction) {
+        return new PercentageSamplingPolicy(fraction);
+    }
+
+    /**
+     * @param permitsPerSecond the maximum sustained rate of candidate executions
+     */
+    static SamplingPolicy rateLimited(double permitsPerSecond) {
+        return new RateLimitedSamplingPolicy(permitsPerSecond);
+    }
+
+    /**
+     * Wraps {@code delegate} so that candidates are backed off while the candidate p99 latency is above
+     * {@code latencyThreshold} or {@code queueDepth} is above {@code maxQueueDepth}.
+     *
+     * @param queueDepth e.g. {@code ExperimentExecutor::getQueueDepth}
+     */
+    static SamplingPolicy adaptive(SamplingPolicy delegate, long latencyThreshold, TimeUnit unit,
+                                   LongSupplier queueDepth, long maxQueueDepth) {
+        return new AdaptiveSamplingPolicy(delegate, latencyThreshold, unit, queueDepth, maxQueueDepth);
+    }
+
+    /**
+     * Wraps {@code delegate} so that no candidates run while the control p99 latency is over {@code latencyBudget} or
+     * {@code load} is over {@code maxLoad}, and they are restored gradually once both are well clear of it.
+     *
+     * @param load e.g. {@link LoadSheddingSamplingPolicy#systemLoadPerProcessor()}, or null
+     */
+    static SamplingPolicy loadShedding(SamplingPolicy delegate, long latencyBudget, TimeUnit unit, DoubleSupplier load,
+                                       double maxLoad) {
+        return new LoadSheddingSamplingPolicy(delegate, latencyBudget, unit, load, maxLoad);
+    }
+}
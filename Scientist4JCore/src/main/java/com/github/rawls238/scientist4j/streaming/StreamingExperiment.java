@@ -0,0 +1,506 @@
+package com.github.rawls238.scientist4j.streaming;
+
+import com.github.rawls238.scientist4j.ExperimentContext;
+import com.github.rawls238.scientist4j.ExperimentMetrics;
+import com.github.rawls238.scientist4j.metrics.MetricsProvider;
+import com.github.rawls238.scientist4j.sampling.SamplingPolicy;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiPredicate;
+import java.util.function.Supplier;
+
+/**
+ * An experiment on code that returns a stream of elements rather than a single value.
+ * <p>
+ * Subscribing to the publisher {@link #run(Publisher, Supplier)} returns subscribes to both the control and the
+ * candidate. Control elements, completion and errors are passed downstream as they arrive, and downstream demand goes
+ * straight to the control. Elements are compared pairwise as both streams produce them, so at most
+ * {@code maxBufferedElements} of either stream are held at a time: the candidate is only asked for as many elements as
+ * there is room for, and if the control gets more than that ahead of the candidate, the comparison is aborted and the
+ * candidate cancelled rather than buffering more. The first mismatch cancels the candidate too. Each compared stream
+ * results in one {@link StreamingResult} given to {@link #publish(StreamingResult)}.
+ * <p>
+ * The candidate is subscribed to just before the control, so that a candidate publisher that emits on the subscribing
+ * thread fills its buffer before a control that does the same runs ahead of it. Such a candidate delays the control
+ * by at most {@code maxBufferedElements} elements.
+ * <p>
+ * Both streams are timed from subscription until they end, under the experiment's usual {@code control} and
+ * {@code candidate} timers. With a candidate timeout, a comparison whose candidate hasn't ended in time is aborted and
+ * the candidate cancelled, on a shared timer thread.
+ * <p>
+ * This needs {@code org.reactivestreams:reactive-streams} on the classpath. On Java 9 and later,
+ * {@code java.util.concurrent.Flow} publishers can be adapted with {@code org.reactivestreams.FlowAdapters}.
+ *
+ * @param <T> the type of the stream elements
+ */
+public class StreamingExperiment<T> {
+    public static final int DEFAULT_MAX_BUFFERED_ELEMENTS = 256;
+
+    private final String name;
+    private final ExperimentContext context;
+    private final BiPredicate<T, T> comparator;
+    private final SamplingPolicy samplingPolicy;
+    private final int maxBufferedElements;
+    private final int replenishThreshold;
+    private final long candidateTimeoutNanos;
+    private final MetricsProvider<?> metricsProvider;
+    private final MetricsProvider.Timer controlTimer;
+    private final MetricsProvider.Timer candidateTimer;
+    private final MetricsProvider.Counter totalCount;
+    private final MetricsProvider.Counter mismatchCount;
+    private final MetricsProvider.Counter candidateExceptionCount;
+    private final MetricsProvider.Counter abortedCount;
+    private final MetricsProvider.Counter timeoutCount;
+
+    public StreamingExperiment(String name, MetricsProvider<?> metricsProvider) {
+        this(new StreamingExperimentBuilder<T>()
+            .withName(name)
+            .withMetricsProvider(metricsProvider));
+    }
+
+    /**
+     * Creates an experiment from a builder; lets subclasses use every option {@link StreamingExperimentBuilder} offers.
+     */
+    protected StreamingExperiment(StreamingExperimentBuilder<T> builder) {
+        if (builder.getMaxBufferedElements() < 1) {
+            throw new IllegalArgumentException("maxBufferedElements must be positive: " + builder.getMaxBufferedElements());
+        }
+        this.name = builder.getName();
+        this.context = ExperimentContext.of(builder.getContext());
+        this.comparator = builder.getComparator();
+        this.samplingPolicy = builder.getSamplingPolicy();
+        this.maxBufferedElements = builder.getMaxBufferedElements();
+        this.replenishThreshold = Math.max(1, maxBufferedElements / 2);
+        this.candidateTimeoutNanos = builder.getCandidateTimeoutNanos();
+        this.metricsProvider = builder.getMetricsProvider();
+        ExperimentMetrics metrics = builder.getMetrics();
+        if (metrics == null || metrics.getMetricsProvider() != metricsProvider
+            || !metrics.getExperimentName().equals(name)) {
+            metrics = ExperimentMetrics.resolve(metricsProvider, name);
+        }
+        controlTimer = metrics.getControlTimer();
+        candidateTimer = metrics.getCandidateTimer();
+        totalCount = metrics.getTotalCount();
+        mismatchCount = metrics.getMismatchCount();
+        candidateExceptionCount = metrics.getCandidateExceptionCount();
+        timeoutCount = metrics.getTimeoutCount();
+        abortedCount = metricsProvider.counter(metrics.key("candidate.aborted"));
+    }
+
+    public MetricsProvider<?> getMetricsProvider() {
+        return metricsProvider;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getMaxBufferedElements() {
+        return maxBufferedElements;
+    }
+
+    /**
+     * @param candidate called for each subscription the candidate runs for; not called at all when it doesn't
+     * @return a publisher of the control's elements
+     */
+    public Publisher<T> run(Publisher<T> control, Supplier<? extends Publisher<T>> candidate) {
+        return run(control, candidate, Collections.emptyMap());
+    }
+
+    /**
+     * Like {@link #run(Publisher, Supplier)}, with attributes added to this experiment's context for this call only.
+     */
+    public Publisher<T> run(Publisher<T> control, Supplier<? extends Publisher<T>> candidate,
+                            Map<String, ?> callContext) {
+        return subscriber -> subscribe(control, candidate, callContext, subscriber);
+    }
+
+    private void subscribe(Publisher<T> control, Supplier<? extends Publisher<T>> candidate, Map<String, ?> callContext,
+                           Subscriber<? super T> subscriber) {
+        if (!runIf() || !enabled() || !samplingPolicy.sample()) {
+            control.subscribe(new ControlSubscriber(subscriber, null));
+            return;
+        }
+        Publisher<T> candidatePublisher;
+        try {
+            candidatePublisher = candidate.get();
+        } catch (RuntimeException e) {
+            candidateExceptionCount.increment();
+            control.subscribe(new ControlSubscriber(subscriber, null));
+            return;
+        }
+        Comparison comparison = new Comparison(context.withAll(callContext));
+        if (candidateTimeoutNanos > 0) {
+            comparison.startTimeout();
+        }
+        try {
+            candidatePublisher.subscribe(comparison);
+        } catch (RuntimeException e) {
+            comparison.onError(e);
+        }
+        control.subscribe(new ControlSubscriber(subscriber, comparison));
+    }
+
+    protected void publish(StreamingResult<T> result) {
+    }
+
+    protected boolean runIf() {
+        return true;
+    }
+
+    protected boolean enabled() {
+        return true;
+    }
+
+    protected boolean compareElements(T controlElement, T candidateElement) {
+        return comparator.test(controlElement, candidateElement);
+    }
+
+    private void report(StreamingResult<T> result) {
+        totalCount.increment();
+        if (result.isAborted()) {
+            abortedCount.increment();
+        } else if (!result.getMatch().get()) {
+            mismatchCount.increment();
+        }
+        try {
+            publish(result);
+        } catch (RuntimeException e) {
+            // this runs on the control's signals, which must not throw
+        }
+    }
+
+    /**
+     * Times the control and passes its signals downstream, and on to the comparison if the candidate runs.
+     */
+    private final class ControlSubscriber implements Subscriber<T>, Subscription {
+        private final Subscriber<? super T> downstream;
+        private final Comparison comparison;
+        private final long start = System.nanoTime();
+        private Subscription upstream;
+
+        ControlSubscriber(Subscriber<? super T> downstream, Comparison comparison) {
+            this.downstream = downstream;
+            this.comparison = comparison;
+        }
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            upstream = subscription;
+            downstream.onSubscribe(this);
+        }
+
+        @Override
+        public void onNext(T element) {
+            downstream.onNext(element);
+            if (comparison != null) {
+                comparison.controlElement(element);
+            }
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            recordDuration();
+            downstream.onError(error);
+            if (comparison != null) {
+                comparison.controlTerminated(error);
+            }
+        }
+
+        @Override
+        public void onComplete() {
+            recordDuration();
+            downstream.onComplete();
+            if (comparison != null) {
+                comparison.controlTerminated(null);
+            }
+        }
+
+        @Override
+        public void request(long n) {
+            upstream.request(n);
+        }
+
+        @Override
+        public void cancel() {
+            upstream.cancel();
+            if (comparison != null) {
+                comparison.controlCancelled();
+            }
+        }
+
+        private void recordDuration() {
+            long duration = System.nanoTime() - start;
+            controlTimer.record(duration, TimeUnit.NANOSECONDS);
+            samplingPolicy.recordControl(duration);
+        }
+    }
+
+    /**
+     * The state of one comparison, which subscribes to the candidate. Control and candidate signals may arrive on
+     * different threads, so the state is guarded by this; the candidate subscription is only ever called, and results
+     * only published, outside of it.
+     */
+    private final class Comparison implements Subscriber<T> {
+        private final Map<String, Object> context;
+        private final ArrayDeque<T> controlBuffer = new ArrayDeque<>();
+        private final ArrayDeque<T> candidateBuffer = new ArrayDeque<>();
+        private final long start = System.nanoTime();
+        private volatile ScheduledFuture<?> timeout;
+        private Subscription candidateSubscription;
+        private long comparedElements;
+        private long consumed;
+        private boolean controlDone;
+        private boolean candidateDone;
+        private Throwable controlError;
+        private Throwable candidateError;
+        private boolean finished;
+
+        Comparison(Map<String, Object> context) {
+            this.context = context;
+        }
+
+        void startTimeout() {
+            timeout = Timeouts.SCHEDULER.schedule(this::timedOut, candidateTimeoutNanos, TimeUnit.NANOSECONDS);
+        }
+
+        private void timedOut() {
+            StreamingResult<T> result;
+            Subscription subscription;
+            synchronized (this) {
+                if (finished) {
+                    return;
+                }
+                result = end(Optional.empty(), true, null, null);
+                subscription = candidateSubscription;
+            }
+            timeoutCount.increment();
+            afterSignal(result, subscription, 0);
+        }
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            boolean cancel;
+            synchronized (this) {
+                cancel = finished || candidateSubscription != null;
+                if (!cancel) {
+                    candidateSubscription = subscription;
+                }
+            }
+            if (cancel) {
+                subscription.cancel();
+            } else {
+                subscription.request(maxBufferedElements);
+            }
+        }
+
+        @Override
+        public void onNext(T element) {
+            StreamingResult<T> result;
+            Subscription subscription;
+            long demand;
+            synchronized (this) {
+                if (finished) {
+                    return;
+                }
+                T controlElement = controlBuffer.poll();
+                if (controlElement != null) {
+                    result = compare(controlElement, element);
+                } else if (controlDone) {
+                    result = mismatch(null, element);
+                } else {
+                    candidateBuffer.add(element);
+                    result = null;
+                }
+                subscription = candidateSubscription;
+                demand = takeDemand();
+            }
+            afterSignal(result, subscription, demand);
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            candidateTerminated(error);
+        }
+
+        @Override
+        public void onComplete() {
+            candidateTerminated(null);
+        }
+
+        void controlElement(T element) {
+            StreamingResult<T> result;
+            Subscription subscription;
+            long demand;
+            synchronized (this) {
+                if (finished) {
+                    return;
+                }
+                T candidateElement = candidateBuffer.poll();
+                if (candidateElement != null) {
+                    result = compare(element, candidateElement);
+                } else if (candidateDone) {
+                    result = mismatch(element, null);
+                } else if (controlBuffer.size() < maxBufferedElements) {
+                    controlBuffer.add(element);
+                    result = null;
+                } else {
+                    result = end(Optional.empty(), true, null, null);
+                }
+                subscription = candidateSubscription;
+                demand = takeDemand();
+            }
+            afterSignal(result, subscription, demand);
+        }
+
+        void controlTerminated(Throwable error) {
+            StreamingResult<T> result;
+            Subscription subscription;
+            synchronized (this) {
+                if (finished) {
+                    return;
+                }
+                controlDone = true;
+                controlError = error;
+                if (!controlBuffer.isEmpty()) {
+                    // the candidate is behind, and may still catch up
+                    result = null;
+                } else if (!candidateBuffer.isEmpty()) {
+                    result = mismatch(null, candidateBuffer.peek());
+                } else if (candidateDone) {
+                    result = terminated();
+                } else {
+                    result = null;
+                }
+                subscription = candidateSubscription;
+            }
+            afterSignal(result, subscription, 0);
+        }
+
+        void controlCancelled() {
+            StreamingResult<T> result;
+            Subscription subscription;
+            synchronized (this) {
+                if (finished) {
+                    return;
+                }
+                result = end(Optional.empty(), true, null, null);
+                subscription = candidateSubscription;
+            }
+            afterSignal(result, subscription, 0);
+        }
+
+        private void candidateTerminated(Throwable error) {
+            StreamingResult<T> result;
+            long duration = System.nanoTime() - start;
+            synchronized (this) {
+                if (finished) {
+                    return;
+                }
+                candidateDone = true;
+                candidateError = error;
+                if (!controlBuffer.isEmpty()) {
+                    result = mismatch(controlBuffer.peek(), null);
+                } else if (controlDone) {
+                    result = terminated();
+                } else {
+                    result = null;
+                }
+            }
+            candidateTimer.record(duration, TimeUnit.NANOSECONDS);
+            samplingPolicy.recordCandidate(duration);
+            if (error != null) {
+                candidateExceptionCount.increment();
+            }
+            if (result != null) {
+                finish(result);
+            }
+        }
+
+        private void afterSignal(StreamingResult<T> result, Subscription subscription, long demand) {
+            if (result != null) {
+                // a no-op if the candidate already ended
+                if (subscription != null) {
+                    subscription.cancel();
+                }
+                finish(result);
+            } else if (demand > 0) {
+                subscription.request(demand);
+            }
+        }
+
+        private void finish(StreamingResult<T> result) {
+            ScheduledFuture<?> current = timeout;
+            if (current != null) {
+                current.cancel(false);
+            }
+            report(result);
+        }
+
+        private StreamingResult<T> compare(T controlElement, T candidateElement) {
+            consumed++;
+            boolean matched;
+            try {
+                matched = compareElements(controlElement, candidateElement);
+            } catch (RuntimeException e) {
+                matched = false;
+            }
+            if (!matched) {
+                return mismatch(controlElement, candidateElement);
+            }
+            comparedElements++;
+            return null;
+        }
+
+        private long takeDemand() {
+            if (finished || candidateSubscription == null || consumed < replenishThreshold) {
+                return 0;
+            }
+            long demand = consumed;
+            consumed = 0;
+            return demand;
+        }
+
+        private StreamingResult<T> mismatch(T controlElement, T candidateElement) {
+            return end(Optional.of(false), false, controlElement, candidateElement);
+        }
+
+        private StreamingResult<T> terminated() {
+            boolean matched = controlError == null ? candidateError == null
+                : candidateError != null && controlError.getClass() == candidateError.getClass();
+            return end(Optional.of(matched), false, null, null);
+        }
+
+        private StreamingResult<T> end(Optional<Boolean> match, boolean aborted, T controlElement,
+                                       T candidateElement) {
+            finished = true;
+            controlBuffer.clear();
+            candidateBuffer.clear();
+            return new StreamingResult<>(name, match, aborted, comparedElements, controlElement, candidateElement,
+                controlError, candidateError, context);
+        }
+    }
+
+    private static final class Timeouts {
+        static final ScheduledThreadPoolExecutor SCHEDULER = newScheduler();
+
+        private static ScheduledThreadPoolExecutor newScheduler() {
+            ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+                Thread thread = new Thread(runnable, "scientist-stream-timeout");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.setRemoveOnCancelPolicy(true);
+            return scheduler;
+        }
+    }
+}
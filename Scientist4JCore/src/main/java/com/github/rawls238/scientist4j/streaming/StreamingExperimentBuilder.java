@@ -0,0 +1,126 @@
+package com.github.rawls238.scientist4j.streaming;
+
+import com.github.rawls238.scientist4j.ExperimentMetrics;
+import com.github.rawls238.scientist4j.metrics.MetricsProvider;
+import com.github.rawls238.scientist4j.sampling.SamplingPolicy;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiPredicate;
+
+public class StreamingExperimentBuilder<T> {
+    private String name;
+    private MetricsProvider<?> metricsProvider;
+    private ExperimentMetrics metrics;
+    private BiPredicate<T, T> comparator;
+    private Map<String, Object> context;
+    private SamplingPolicy samplingPolicy;
+    private int maxBufferedElements;
+    private long candidateTimeoutNanos;
+
+    public StreamingExperimentBuilder() {
+        context = new HashMap<>();
+        comparator = Objects::equals;
+        samplingPolicy = SamplingPolicy.always();
+        maxBufferedElements = StreamingExperiment.DEFAULT_MAX_BUFFERED_ELEMENTS;
+    }
+
+    public StreamingExperimentBuilder<T> withName(final String name) {
+        this.name = name;
+        return this;
+    }
+
+    public StreamingExperimentBuilder<T> withMetricsProvider(final MetricsProvider<?> metricsProvider) {
+        this.metricsProvider = metricsProvider;
+        return this;
+    }
+
+    /**
+     * Uses metrics resolved ahead of time, see {@link ExperimentMetrics}; also sets the name and metrics provider.
+     */
+    public StreamingExperimentBuilder<T> withMetrics(final ExperimentMetrics metrics) {
+        this.metrics = metrics;
+        this.name = metrics.getExperimentName();
+        this.metricsProvider = metrics.getMetricsProvider();
+        return this;
+    }
+
+    /**
+     * Compares one control element with the candidate element at the same position.
+     */
+    public StreamingExperimentBuilder<T> withComparator(final BiPredicate<T, T> comparator) {
+        this.comparator = comparator;
+        return this;
+    }
+
+    public StreamingExperimentBuilder<T> withContext(final Map<String, Object> context) {
+        this.context = context;
+        return this;
+    }
+
+    /**
+     * Decides, once per subscription, whether the candidate stream runs at all.
+     */
+    public StreamingExperimentBuilder<T> withSamplingPolicy(final SamplingPolicy samplingPolicy) {
+        this.samplingPolicy = samplingPolicy;
+        return this;
+    }
+
+    /**
+     * How many elements of either stream may wait for their counterpart from the other one. The candidate is never
+     * asked for more than that; if the control gets further ahead than that, the comparison is aborted.
+     */
+    public StreamingExperimentBuilder<T> withMaxBufferedElements(final int maxBufferedElements) {
+        this.maxBufferedElements = maxBufferedElements;
+        return this;
+    }
+
+    /**
+     * Aborts the comparison if the candidate stream hasn't ended within {@code timeout} of being subscribed to,
+     * cancelling it. Such comparisons are counted under {@code candidate.timeout}. The control is never affected.
+     */
+    public StreamingExperimentBuilder<T> withCandidateTimeout(final long timeout, final TimeUnit unit) {
+        this.candidateTimeoutNanos = unit.toNanos(timeout);
+        return this;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    MetricsProvider<?> getMetricsProvider() {
+        return metricsProvider;
+    }
+
+    ExperimentMetrics getMetrics() {
+        return metrics;
+    }
+
+    BiPredicate<T, T> getComparator() {
+        return comparator;
+    }
+
+    Map<String, Object> getContext() {
+        return context;
+    }
+
+    SamplingPolicy getSamplingPolicy() {
+        return samplingPolicy;
+    }
+
+    int getMaxBufferedElements() {
+        return maxBufferedElements;
+    }
+
+    long getCandidateTimeoutNanos() {
+        return candidateTimeoutNanos;
+    }
+
+    public StreamingExperiment<T> build() {
+        assert name != null;
+        assert metricsProvider != null;
+        return new StreamingExperiment<>(this);
+    }
+}
@@ -0,0 +1,95 @@
+package com.github.rawls238.scientist4j.streaming;
+
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * The outcome of comparing one control stream with its candidate stream.
+ *
+ * @param <T> the type of the stream elements
+ */
+public class StreamingResult<T> {
+    private final String experimentName;
+    private final Optional<Boolean> match;
+    private final boolean aborted;
+    private final long comparedElements;
+    private final T controlElement;
+    private final T candidateElement;
+    private final Throwable controlError;
+    private final Throwable candidateError;
+    private final Map<String, Object> context;
+
+    StreamingResult(String experimentName, Optional<Boolean> match, boolean aborted, long comparedElements,
+                    T controlElement, T candidateElement, Throwable controlError, Throwable candidateError,
+                    Map<String, Object> context) {
+        this.experimentName = experimentName;
+        this.match = match;
+        this.aborted = aborted;
+        this.comparedElements = comparedElements;
+        this.controlElement = controlElement;
+        this.candidateElement = candidateElement;
+        this.controlError = controlError;
+        this.candidateError = candidateError;
+        this.context = context;
+    }
+
+    public String getExperimentName() {
+        return experimentName;
+    }
+
+    /**
+     * @return whether both streams had equal elements and ended the same way; empty if the comparison was aborted
+     */
+    public Optional<Boolean> getMatch() {
+        return match;
+    }
+
+    /**
+     * @return whether the comparison was given up before either stream ended, because the control got too far ahead
+     * of the candidate, the candidate timed out or the control was cancelled downstream
+     */
+    public boolean isAborted() {
+        return aborted;
+    }
+
+    /**
+     * @return how many pairs of elements were found to match
+     */
+    public long getComparedElements() {
+        return comparedElements;
+    }
+
+    /**
+     * @return the position of the first element that didn't match, or of the end of the shorter stream, if the streams
+     * mismatched
+     */
+    public Optional<Long> getMismatchIndex() {
+        return match.orElse(true) ? Optional.empty() : Optional.of(comparedElements);
+    }
+
+    /**
+     * @return the control element at {@link #getMismatchIndex()}, if there was one
+     */
+    public Optional<T> getControlElement() {
+        return Optional.ofNullable(controlElement);
+    }
+
+    /**
+     * @return the candidate element at {@link #getMismatchIndex()}, if there was one
+     */
+    public Optional<T> getCandidateElement() {
+        return Optional.ofNullable(candidateElement);
+    }
+
+    public Optional<Throwable> getControlError() {
+        return Optional.ofNullable(controlError);
+    }
+
+    public Optional<Throwable> getCandidateError() {
+        return Optional.ofNullable(candidateError);
+    }
+
+    public Map<String, Object> getContext() {
+        return context;
+    }
+}
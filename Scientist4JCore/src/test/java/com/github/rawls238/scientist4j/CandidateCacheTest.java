@@ -0,0 +1,158 @@
+package com.github.rawls238.scientist4j;
+
+import com.github.rawls238.scientist4j.exceptions.MismatchException;
+import com.github.rawls238.scientist4j.metrics.DropwizardMetricsProvider;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.github.rawls238.scientist4j.TestExperiments.count;
+import static com.github.rawls238.scientist4j.TestExperiments.experiment;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+
+public class CandidateCacheTest {
+
+  private static Experiment<Integer> deduplicating(DropwizardMetricsProvider provider,
+                                                   List<Result<Integer>> published, boolean raiseOnMismatch) {
+    return experiment(provider, published, new ExperimentBuilder<Integer>()
+        .withRaiseOnMismatch(raiseOnMismatch)
+        .withOrderingStrategy(OrderingStrategy.alwaysCandidateFirst())
+        .withCandidateDeduplication(context -> context.get("id"), 1, TimeUnit.MINUTES, 16));
+  }
+
+  @Test
+  public void itSkipsCandidatesOfRecentlyComparedKeys() throws Exception {
+    DropwizardMetricsProvider provider = new DropwizardMetricsProvider();
+    List<Result<Integer>> published = new CopyOnWriteArrayList<>();
+    AtomicInteger candidateCalls = new AtomicInteger();
+    Experiment<Integer> exp = deduplicating(provider, published, false);
+
+    for (int i = 0; i < 3; i++) {
+      assertThat(exp.run(() -> 1, () -> candidateCalls.incrementAndGet() > 0 ? 1 : 0, id(1))).isEqualTo(1);
+    }
+    exp.run(() -> 2, () -> 2, id(2));
+
+    assertThat(candidateCalls.get()).isEqualTo(1);
+    assertThat(count(provider, "candidate.deduplicated")).isEqualTo(2);
+    assertThat(count(provider, "total")).isEqualTo(2);
+    assertThat(published).hasSize(4);
+    assertThat(published.get(0).isDeduplicated()).isFalse();
+    assertThat(published.get(1).isDeduplicated()).isTrue();
+    assertThat(published.get(1).getCandidate()).isEmpty();
+    assertThat(published.get(1).getMatch()).contains(true);
+    assertThat(published.get(3).isDeduplicated()).isFalse();
+  }
+
+  @Test
+  public void itRemembersMismatchesEvenWhenRaising() throws Exception {
+    DropwizardMetricsProvider provider = new DropwizardMetricsProvider();
+    List<Result<Integer>> published = new CopyOnWriteArrayList<>();
+    Experiment<Integer> exp = deduplicating(provider, published, true);
+
+    assertThat(catchThrowableOfType(() -> exp.run(() -> 1, () -> 2, id(1)), MismatchException.class)).isNotNull();
+    assertThat(exp.run(() -> 1, () -> 2, id(1))).isEqualTo(1);
+
+    assertThat(published).hasSize(1);
+    assertThat(published.get(0).isDeduplicated()).isTrue();
+    assertThat(published.get(0).getMatch()).contains(false);
+    assertThat(published.get(0).getMismatch()).isEmpty();
+    assertThat(count(provider, "mismatch")).isEqualTo(1);
+  }
+
+  @Test
+  public void itDeduplicatesAsyncCandidates() throws Exception {
+    DropwizardMetricsProvider provider = new DropwizardMetricsProvider();
+    List<Result<Integer>> published = new CopyOnWriteArrayList<>();
+    AtomicInteger candidateCalls = new AtomicInteger();
+    Experiment<Integer> exp = deduplicating(provider, published, true);
+
+    exp.runAsyncCandidateOnly(() -> 1, () -> {
+      candidateCalls.incrementAndGet();
+      return 1;
+    }, id(1));
+    exp.runAsyncCandidateOnly(() -> 1, () -> {
+      candidateCalls.incrementAndGet();
+      return 1;
+    }, id(1));
+    exp.runAsync(() -> CompletableFuture.completedFuture(1), () -> {
+      candidateCalls.incrementAndGet();
+      return CompletableFuture.completedFuture(1);
+    }, id(1)).toCompletableFuture().join();
+
+    assertThat(candidateCalls.get()).isEqualTo(1);
+    assertThat(count(provider, "candidate.deduplicated")).isEqualTo(2);
+  }
+
+  @Test
+  public void itKeysCallsByTheirContextRatherThanTheControlValue() throws Exception {
+    DropwizardMetricsProvider provider = new DropwizardMetricsProvider();
+    List<Result<Integer>> published = new CopyOnWriteArrayList<>();
+    List<String> calls = new CopyOnWriteArrayList<>();
+    Experiment<Integer> exp = deduplicating(provider, published, false);
+
+    for (int id = 1; id <= 2; id++) {
+      exp.run(() -> {
+        calls.add("control");
+        return 0;
+      }, () -> {
+        calls.add("candidate");
+        return 0;
+      }, id(id));
+    }
+
+    assertThat(calls).containsExactly("candidate", "control", "candidate", "control");
+    assertThat(published).extracting(Result::isDeduplicated).containsExactly(false, false);
+  }
+
+  private static Map<String, Object> id(int id) {
+    return Collections.singletonMap("id", id);
+  }
+
+  @Test
+  public void itExpiresEntries() throws Exception {
+    CandidateCache cache = new CandidateCache(context -> context.get("id"), 1, 16);
+
+    cache.put(1, true);
+    Thread.sleep(1);
+
+    assertThat(cache.get(1)).isNull();
+    assertThat(cache.size()).isZero();
+  }
+
+  @Test
+  public void itEvictsTheOldestKeysBeyondItsSize() {
+    CandidateCache cache = new CandidateCache(context -> context.get("id"), TimeUnit.MINUTES.toNanos(1), 2);
+
+    cache.put(1, true);
+    cache.put(2, false);
+    cache.put(3, true);
+
+    assertThat(cache.get(1)).isNull();
+    assertThat(cache.get(2)).isFalse();
+    assertThat(cache.get(3)).isTrue();
+    assertThat(cache.size()).isEqualTo(2);
+  }
+
+  @Test
+  public void itDoesNotDeduplicateNullKeys() throws Exception {
+    DropwizardMetricsProvider provider = new DropwizardMetricsProvider();
+    AtomicInteger candidateCalls = new AtomicInteger();
+    Experiment<String> exp = new ExperimentBuilder<String>()
+        .withName("test")
+        .withMetricsProvider(provider)
+        .withCandidateDeduplication(context -> context.get("id"), 1, TimeUnit.MINUTES, 16)
+        .build();
+
+    exp.run(() -> "a", () -> "a" + candidateCalls.incrementAndGet());
+    exp.run(() -> "a", () -> "a" + candidateCalls.incrementAndGet());
+
+    assertThat(candidateCalls.get()).isEqualTo(2);
+  }
+}
@@ -0,0 +1,132 @@
+package com.github.rawls238.scientist4j;
+
+import com.github.rawls238.scientist4j.metrics.DropwizardMetricsProvider;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.github.rawls238.scientist4j.TestExperiments.count;
+import static com.github.rawls238.scientist4j.TestExperiments.experiment;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CandidateGuardTest {
+
+  @Test
+  public void itInterruptsCandidatesThatTimeOut() throws Exception {
+    DropwizardMetricsProvider provider = new DropwizardMetricsProvider();
+    CountDownLatch interrupted = new CountDownLatch(1);
+    List<Result<Integer>> published = new CopyOnWriteArrayList<>();
+    Experiment<Integer> exp = experiment(provider, published, new ExperimentBuilder<Integer>()
+        .withRaiseOnMismatch(true)
+        .withCandidateTimeout(100, TimeUnit.MILLISECONDS));
+
+    Integer val = exp.runAsync(() -> 1, () -> {
+      try {
+        Thread.sleep(60_000);
+      } catch (InterruptedException e) {
+        interrupted.countDown();
+      }
+      return 2;
+    });
+
+    assertThat(val).isEqualTo(1);
+    assertThat(published).hasSize(1);
+    assertThat(published.get(0).getCandidate()).isEmpty();
+    assertThat(interrupted.await(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(count(provider, "candidate.timeout")).isEqualTo(1);
+  }
+
+  @Test
+  public void itCancelsCandidateStagesThatTimeOut() throws Exception {
+    DropwizardMetricsProvider provider = new DropwizardMetricsProvider();
+    CompletableFuture<Integer> candidate = new CompletableFuture<>();
+    CountDownLatch cancelled = new CountDownLatch(1);
+    candidate.whenComplete((value, throwable) -> {
+      if (candidate.isCancelled()) {
+        cancelled.countDown();
+      }
+    });
+    List<Result<Integer>> published = new CopyOnWriteArrayList<>();
+    Experiment<Integer> exp = experiment(provider, published, new ExperimentBuilder<Integer>()
+        .withRaiseOnMismatch(true)
+        .withCandidateTimeout(100, TimeUnit.MILLISECONDS));
+
+    Integer val = exp.runAsync(() -> CompletableFuture.completedFuture(1), () -> candidate)
+        .toCompletableFuture().get(5, TimeUnit.SECONDS);
+
+    assertThat(val).isEqualTo(1);
+    assertThat(published.get(0).getCandidate()).isEmpty();
+    assertThat(cancelled.await(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(count(provider, "candidate.timeout")).isEqualTo(1);
+  }
+
+  @Test
+  public void itTimesOutIncompatibleTypesCandidates() throws Exception {
+    DropwizardMetricsProvider provider = new DropwizardMetricsProvider();
+    IncompatibleTypesExperiment<Integer, String> exp = new IncompatibleTypesExperimentBuilder<Integer, String>()
+        .withName("test")
+        .withMetricsProvider(provider)
+        .withComparator((control, candidate) -> control.toString().equals(candidate))
+        .withRaiseOnMismatch(true)
+        .withCandidateTimeout(100, TimeUnit.MILLISECONDS)
+        .build();
+
+    Integer val = exp.runAsync(() -> 1, () -> {
+      Thread.sleep(60_000);
+      return "1";
+    });
+
+    assertThat(val).isEqualTo(1);
+    assertThat(count(provider, "candidate.timeout")).isEqualTo(1);
+  }
+
+  @Test
+  public void itSkipsCandidatesOverTheInFlightCap() throws Exception {
+    DropwizardMetricsProvider provider = new DropwizardMetricsProvider();
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicInteger candidateRuns = new AtomicInteger();
+    Experiment<Integer> exp = new ExperimentBuilder<Integer>()
+        .withName("test")
+        .withMetricsProvider(provider)
+        .withMaxInFlightCandidates(1)
+        .build();
+
+    for (int i = 0; i < 3; i++) {
+      assertThat(exp.runAsyncCandidateOnly(() -> 1, () -> {
+        candidateRuns.incrementAndGet();
+        release.await();
+        return 1;
+      })).isEqualTo(1);
+    }
+    release.countDown();
+
+    assertThat(count(provider, "candidate.throttled")).isEqualTo(2);
+    assertThat(candidateRuns.get()).isLessThanOrEqualTo(1);
+  }
+
+  @Test
+  public void permitsAreReleasedWhenCandidatesAreDropped() throws Exception {
+    CandidateGuard guard = new CandidateGuard(0, 1, () -> { }, () -> { });
+    ExperimentExecutor executor = new ExperimentExecutor(1, 1, ExperimentExecutor.SaturationPolicy.DROP_CANDIDATE);
+    CountDownLatch release = new CountDownLatch(1);
+    try {
+      executor.submit(() -> {
+        release.await();
+        return null;
+      });
+      executor.submit(() -> null);
+
+      CandidateGuard.Permit permit = guard.tryAcquire();
+      assertThat(guard.submit(executor, permit, () -> 1, 0).get()).isEqualTo(0);
+      assertThat(guard.getInFlight()).isEqualTo(0);
+    } finally {
+      release.countDown();
+      executor.close();
+    }
+  }
+}
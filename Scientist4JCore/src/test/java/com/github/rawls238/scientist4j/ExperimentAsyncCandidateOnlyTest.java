@@ -6,8 +6,11 @@ import org.junit.Test;
 
 import java.util.Date;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -162,6 +165,17 @@ public class ExperimentAsyncCandidateOnlyTest {
     assertThat(doesNotRaiseExecutionTime).isLessThan(200);
   }
 
+  @Test
+  public void theStageCompletesWithoutWaitingForTheCandidate() throws Exception {
+    Experiment<Integer> exp = new Experiment<>("test", new NoopMetricsProvider());
+    CompletableFuture<Integer> control = new CompletableFuture<>();
+
+    CompletionStage<Integer> stage = exp.runAsyncCandidateOnly(() -> control, this::sleepFunction);
+    control.complete(3);
+
+    assertThat(stage.toCompletableFuture().get(500, TimeUnit.MILLISECONDS)).isEqualTo(3);
+  }
+
   private long timeExperiment(final Experiment<Integer> exp) throws Exception {
     Date date1 = new Date();
     exp.runAsyncCandidateOnly(this::shortSleepFunction, this::sleepFunction);
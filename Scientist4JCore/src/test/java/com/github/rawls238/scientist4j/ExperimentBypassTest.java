@@ -0,0 +1,133 @@
+package com.github.rawls238.scientist4j;
+
+import com.github.rawls238.scientist4j.metrics.DropwizardMetricsProvider;
+import io.dropwizard.metrics5.MetricName;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.github.rawls238.scientist4j.TestExperiments.count;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ExperimentBypassTest {
+
+  private static Experiment<Integer> experiment(DropwizardMetricsProvider provider, List<Result<Integer>> published,
+                                                AtomicBoolean enabled, boolean countBypassed) {
+    return new Experiment<Integer>(new ExperimentBuilder<Integer>()
+        .withName("test")
+        .withMetricsProvider(provider)
+        .withBypassWhenDisabled(true, countBypassed)) {
+      @Override
+      protected boolean enabled() {
+        return enabled.get();
+      }
+
+      @Override
+      protected void publish(Result<Integer> r) {
+        published.add(r);
+      }
+    };
+  }
+
+  @Test
+  public void itCallsTheControlDirectlyWhenDisabled() throws Exception {
+    DropwizardMetricsProvider provider = new DropwizardMetricsProvider();
+    List<Result<Integer>> published = new CopyOnWriteArrayList<>();
+    AtomicInteger candidateCalls = new AtomicInteger();
+    Experiment<Integer> exp = experiment(provider, published, new AtomicBoolean(false), true);
+
+    assertThat(exp.run(() -> 1, candidateCalls::incrementAndGet)).isEqualTo(1);
+    assertThat(exp.runAsync(() -> 1, candidateCalls::incrementAndGet)).isEqualTo(1);
+    assertThat(exp.runAsyncCandidateOnly(() -> 1, candidateCalls::incrementAndGet)).isEqualTo(1);
+    assertThat(exp.runAsync(() -> CompletableFuture.completedFuture(1), () -> CompletableFuture.completedFuture(2))
+        .toCompletableFuture().get()).isEqualTo(1);
+    assertThat(exp.run(() -> 1, Collections.singletonMap("a", candidateCalls::incrementAndGet))).isEqualTo(1);
+
+    assertThat(candidateCalls.get()).isZero();
+    assertThat(published).isEmpty();
+    assertThat(count(provider, "bypassed")).isEqualTo(5);
+    assertThat(provider.getRegistry().getTimers().get(MetricName.build("scientist", "test", "control")).getCount())
+        .isZero();
+  }
+
+  @Test
+  public void itRunsTheExperimentWhenEnabled() throws Exception {
+    DropwizardMetricsProvider provider = new DropwizardMetricsProvider();
+    List<Result<Integer>> published = new CopyOnWriteArrayList<>();
+    AtomicBoolean enabled = new AtomicBoolean(true);
+    Experiment<Integer> exp = experiment(provider, published, enabled, false);
+
+    exp.run(() -> 1, () -> 1);
+    enabled.set(false);
+    exp.run(() -> 1, () -> 1);
+
+    assertThat(published).hasSize(1);
+    assertThat(published.get(0).getCandidate()).isPresent();
+    assertThat(provider.getRegistry().getCounters()).doesNotContainKey(MetricName.build("scientist", "test", "bypassed"));
+  }
+
+  @Test
+  public void itBypassesExperimentsDisabledInTheRegistry() throws Exception {
+    DropwizardMetricsProvider provider = new DropwizardMetricsProvider();
+    List<Result<Integer>> published = new CopyOnWriteArrayList<>();
+    ExperimentRegistry registry = new ExperimentRegistry(provider);
+    registry.register("test", new ExperimentBuilder<Integer>().withBypassWhenDisabled(true, true),
+        b -> new Experiment<Integer>(b) {
+          @Override
+          protected void publish(Result<Integer> r) {
+            published.add(r);
+          }
+        });
+    Properties properties = new Properties();
+    properties.setProperty("test.enabled", "false");
+    registry.configure(properties);
+
+    registry.<Integer>get("test").get().run(() -> 1, () -> 2);
+
+    assertThat(published).isEmpty();
+    assertThat(count(provider, "bypassed")).isEqualTo(1);
+  }
+
+  @Test
+  public void itBypassesIncompatibleTypesExperiments() throws Exception {
+    DropwizardMetricsProvider provider = new DropwizardMetricsProvider();
+    List<IncompatibleTypesExperimentResult<Integer, String>> published = new CopyOnWriteArrayList<>();
+    AtomicInteger candidateCalls = new AtomicInteger();
+    IncompatibleTypesExperiment<Integer, String> exp = new IncompatibleTypesExperiment<Integer, String>(
+        new IncompatibleTypesExperimentBuilder<Integer, String>()
+            .withName("test")
+            .withMetricsProvider(provider)
+            .withComparator((control, candidate) -> control.toString().equals(candidate))
+            .withBypassWhenDisabled(true, true)) {
+      @Override
+      protected boolean enabled() {
+        return false;
+      }
+
+      @Override
+      protected void publish(IncompatibleTypesExperimentResult<Integer, String> r) {
+        published.add(r);
+      }
+    };
+    Callable<String> candidate = () -> String.valueOf(candidateCalls.incrementAndGet());
+
+    assertThat(exp.run(() -> 1, candidate)).isEqualTo(1);
+    assertThat(exp.runAsync(() -> 1, candidate)).isEqualTo(1);
+    assertThat(exp.runAsyncCandidateOnly(() -> 1, candidate)).isEqualTo(1);
+    assertThat(exp.runAsync(() -> CompletableFuture.completedFuture(1), () -> CompletableFuture.completedFuture("2"))
+        .toCompletableFuture().get()).isEqualTo(1);
+    assertThat(exp.runAsyncCandidateOnly(() -> CompletableFuture.completedFuture(1), candidate)
+        .toCompletableFuture().get()).isEqualTo(1);
+
+    assertThat(candidateCalls.get()).isZero();
+    assertThat(published).isEmpty();
+    assertThat(count(provider, "bypassed")).isEqualTo(5);
+  }
+}
@@ -0,0 +1,123 @@
+package com.github.rawls238.scientist4j;
+
+import com.github.rawls238.scientist4j.exceptions.MismatchException;
+import com.github.rawls238.scientist4j.metrics.MetricsProvider;
+import com.github.rawls238.scientist4j.metrics.NoopMetricsProvider;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class ExperimentCompletionStageTest {
+
+    private static class CapturingExperiment<T> extends Experiment<T> {
+        final AtomicReference<Result<T>> published = new AtomicReference<>();
+
+        CapturingExperiment(boolean raiseOnMismatch, MetricsProvider<?> metricsProvider) {
+            super("test", raiseOnMismatch, metricsProvider);
+        }
+
+        @Override
+        protected void publish(Result<T> r) {
+            published.set(r);
+        }
+    }
+
+    @Test
+    public void itCompletesWithTheControlBeforeTheCandidateFinishes() throws Exception {
+        CapturingExperiment<Integer> exp = new CapturingExperiment<>(false, new NoopMetricsProvider());
+        CompletableFuture<Integer> candidate = new CompletableFuture<>();
+
+        CompletionStage<Integer> result = exp.runAsync(() -> CompletableFuture.completedFuture(3), () -> candidate);
+
+        assertThat(result.toCompletableFuture().getNow(null)).isEqualTo(3);
+        assertThat(exp.published.get()).isNull();
+
+        candidate.complete(3);
+
+        assertThat(exp.published.get().getMatch()).contains(true);
+        assertThat(exp.published.get().getCandidate().get().getValue()).isEqualTo(3);
+    }
+
+    @Test
+    public void itFailsWhenControlFails() {
+        CapturingExperiment<Integer> exp = new CapturingExperiment<>(false, new NoopMetricsProvider());
+        CompletableFuture<Integer> control = new CompletableFuture<>();
+        control.completeExceptionally(new ExpectingAnException("control"));
+
+        CompletionStage<Integer> result = exp.runAsync(() -> control, () -> CompletableFuture.completedFuture(3));
+
+        Throwable thrown = catchThrowable(() -> result.toCompletableFuture().get());
+        assertThat(thrown).isInstanceOf(ExecutionException.class).hasCauseInstanceOf(ExpectingAnException.class);
+        assertThat(exp.published.get()).isNull();
+    }
+
+    @Test
+    public void itRecordsCandidateFailures() throws Exception {
+        CapturingExperiment<Integer> exp = new CapturingExperiment<>(false, new NoopMetricsProvider());
+
+        CompletionStage<Integer> result = exp.runAsync(() -> CompletableFuture.completedFuture(3), () -> {
+            throw new ExpectingAnException("candidate");
+        });
+
+        assertThat(result.toCompletableFuture().get()).isEqualTo(3);
+        assertThat(exp.published.get().getMatch()).contains(false);
+        assertThat(exp.published.get().getCandidate().get().getException().get())
+            .isInstanceOf(ExpectingAnException.class);
+    }
+
+    @Test
+    public void itFailsOnMismatchWhenRaising() {
+        CapturingExperiment<Integer> exp = new CapturingExperiment<>(true, new NoopMetricsProvider());
+
+        CompletionStage<Integer> result = exp.runAsync(() -> CompletableFuture.completedFuture(3),
+            () -> CompletableFuture.completedFuture(4));
+
+        Throwable thrown = catchThrowable(() -> result.toCompletableFuture().get());
+        assertThat(thrown).hasCauseInstanceOf(MismatchException.class);
+    }
+
+    @Test
+    public void itMeasuresTheDurationOfEachStage() throws Exception {
+        CapturingExperiment<Integer> exp = new CapturingExperiment<>(true, new NoopMetricsProvider());
+
+        exp.runAsync(() -> CompletableFuture.supplyAsync(this::sleepFunction),
+            () -> CompletableFuture.supplyAsync(this::sleepFunction)).toCompletableFuture().get();
+
+        assertThat(exp.published.get().getControl().getDuration()).isGreaterThanOrEqualTo(10_000_000L);
+        assertThat(exp.published.get().getCandidate().get().getDuration()).isGreaterThanOrEqualTo(10_000_000L);
+    }
+
+    @Test
+    public void itWorksForIncompatibleTypes() throws Exception {
+        AtomicReference<IncompatibleTypesExperimentResult<Integer, String>> published = new AtomicReference<>();
+        IncompatibleTypesExperiment<Integer, String> exp = new IncompatibleTypesExperiment<Integer, String>("test",
+            new NoopMetricsProvider(), (integer, s) -> String.valueOf(integer).equals(s)) {
+            @Override
+            protected void publish(IncompatibleTypesExperimentResult<Integer, String> result) {
+                published.set(result);
+            }
+        };
+        CompletableFuture<String> candidate = new CompletableFuture<>();
+
+        CompletionStage<Integer> result = exp.runAsync(() -> CompletableFuture.completedFuture(3), () -> candidate);
+
+        assertThat(result.toCompletableFuture().getNow(null)).isEqualTo(3);
+        candidate.complete("3");
+        assertThat(published.get().getMatch()).contains(true);
+    }
+
+    private Integer sleepFunction() {
+        try {
+            Thread.sleep(10);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return 3;
+    }
+}
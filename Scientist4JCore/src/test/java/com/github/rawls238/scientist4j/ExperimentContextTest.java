@@ -0,0 +1,144 @@
+package com.github.rawls238.scientist4j;
+
+import com.github.rawls238.scientist4j.metrics.NoopMetricsProvider;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.entry;
+
+public class ExperimentContextTest {
+
+    @Test
+    public void itLaysCallAttributesOverTheExperimentContext() {
+        Map<String, Object> base = new HashMap<>();
+        base.put("service", "search");
+        base.put("region", "eu");
+        ExperimentContext context = ExperimentContext.of(base);
+
+        ExperimentContext call = context.withAll(Collections.singletonMap("region", "us")).with("requestId", 7);
+
+        assertThat(call).hasSize(3)
+            .containsOnly(entry("service", "search"), entry("region", "us"), entry("requestId", 7));
+        assertThat(context).containsOnly(entry("service", "search"), entry("region", "eu"));
+        assertThat(call.get("missing")).isNull();
+        assertThat(call).isEqualTo(new HashMap<>(call));
+    }
+
+    @Test
+    public void itIsACopyOfTheMapItWasCreatedFrom() {
+        Map<String, Object> base = new HashMap<>();
+        base.put("service", "search");
+        ExperimentContext context = ExperimentContext.of(base);
+
+        base.put("service", "browse");
+
+        assertThat(context).containsOnly(entry("service", "search"));
+        assertThat(ExperimentContext.of(context)).isSameAs(context);
+        assertThat(context.withAll(Collections.emptyMap())).isSameAs(context);
+        assertThatThrownBy(() -> context.put("service", "browse")).isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    public void itHandlesLargeAndDeepContexts() {
+        Map<String, Object> base = new HashMap<>();
+        for (int i = 0; i < 100; i++) {
+            base.put("key" + i, i);
+        }
+        ExperimentContext context = ExperimentContext.of(base);
+        for (int i = 0; i < 50; i++) {
+            context = context.with("key" + i, -i).with("extra" + i, i);
+        }
+
+        assertThat(context).hasSize(150);
+        assertThat(context.get("key10")).isEqualTo(-10);
+        assertThat(context.get("key60")).isEqualTo(60);
+        assertThat(context.get("extra49")).isEqualTo(49);
+        assertThat(context.entrySet()).hasSize(150);
+    }
+
+    @Test
+    public void itPublishesTheCallContextFromEveryMode() throws Exception {
+        List<Result<Integer>> published = new CopyOnWriteArrayList<>();
+        ExperimentBuilder<Integer> builder = new ExperimentBuilder<Integer>()
+            .withName("test")
+            .withMetricsProvider(new NoopMetricsProvider())
+            .withContext(Collections.singletonMap("service", "search"));
+        Experiment<Integer> sync = new Experiment<Integer>(builder) {
+            @Override
+            protected void publish(Result<Integer> r) {
+                published.add(r);
+            }
+        };
+        Experiment<Integer> async = new Experiment<Integer>(builder) {
+            @Override
+            protected void publish(Result<Integer> r) {
+                published.add(r);
+            }
+
+            @Override
+            protected boolean isAsync() {
+                return true;
+            }
+        };
+
+        sync.run(() -> 1, () -> 1, Collections.singletonMap("requestId", 1));
+        async.run(() -> 1, () -> 1, Collections.singletonMap("requestId", 2));
+        sync.runAsync(() -> CompletableFuture.completedFuture(1), () -> CompletableFuture.completedFuture(1),
+            Collections.singletonMap("requestId", 3));
+        sync.run(() -> 1, Collections.singletonMap("a", () -> 1), Collections.singletonMap("requestId", 4));
+        sync.runAsync(() -> 1, () -> 1, Collections.singletonMap("requestId", 5));
+        sync.runAsyncCandidateOnly(() -> 1, () -> 1, Collections.singletonMap("requestId", 6));
+        sync.runAsyncCandidateOnly(() -> CompletableFuture.completedFuture(1), () -> 1,
+            Collections.singletonMap("requestId", 7));
+        sync.run(() -> 1, () -> 1);
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (published.size() < 8 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertThat(published).extracting(r -> r.getContext().get("requestId"))
+            .containsExactlyInAnyOrder(1, 2, 3, 4, 5, 6, 7, null);
+        assertThat(published).allSatisfy(r -> assertThat(r.getContext()).containsEntry("service", "search"));
+    }
+
+    @Test
+    public void incompatibleTypesExperimentsPublishTheCallContextFromEveryMode() throws Exception {
+        List<IncompatibleTypesExperimentResult<Integer, String>> published = new CopyOnWriteArrayList<>();
+        IncompatibleTypesExperiment<Integer, String> exp = new IncompatibleTypesExperiment<Integer, String>(
+            new IncompatibleTypesExperimentBuilder<Integer, String>()
+                .withName("test")
+                .withMetricsProvider(new NoopMetricsProvider())
+                .withComparator((control, candidate) -> control.toString().equals(candidate))
+                .withContext(Collections.singletonMap("service", "search"))) {
+            @Override
+            protected void publish(IncompatibleTypesExperimentResult<Integer, String> result) {
+                published.add(result);
+            }
+        };
+
+        exp.run(() -> 1, () -> "1", Collections.singletonMap("requestId", 1));
+        exp.runAsync(() -> 1, () -> "1", Collections.singletonMap("requestId", 2));
+        exp.runAsync(() -> CompletableFuture.completedFuture(1), () -> CompletableFuture.completedFuture("1"),
+            Collections.singletonMap("requestId", 3));
+        exp.runAsyncCandidateOnly(() -> 1, () -> "1", Collections.singletonMap("requestId", 4));
+        exp.runAsyncCandidateOnly(() -> CompletableFuture.completedFuture(1), () -> "1",
+            Collections.singletonMap("requestId", 5));
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (published.size() < 5 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertThat(published).extracting(r -> r.getContext().get("requestId"))
+            .containsExactlyInAnyOrder(1, 2, 3, 4, 5);
+        assertThat(published).allSatisfy(r -> assertThat(r.getContext()).containsEntry("service", "search"));
+    }
+}
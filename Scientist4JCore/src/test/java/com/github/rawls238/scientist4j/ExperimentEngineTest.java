@@ -0,0 +1,60 @@
+package com.github.rawls238.scientist4j;
+
+import com.github.rawls238.scientist4j.metrics.DropwizardMetricsProvider;
+import com.github.rawls238.scientist4j.sampling.SamplingPolicy;
+import io.dropwizard.metrics5.MetricName;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.github.rawls238.scientist4j.TestExperiments.awaitSize;
+import static com.github.rawls238.scientist4j.TestExperiments.count;
+import static com.github.rawls238.scientist4j.TestExperiments.incompatibleTypesExperiment;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ExperimentEngineTest {
+
+  private static IncompatibleTypesExperimentBuilder<Integer, String> comparingStrings() {
+    return new IncompatibleTypesExperimentBuilder<Integer, String>()
+        .withComparator((integer, s) -> String.valueOf(integer).equals(s));
+  }
+
+  @Test
+  public void itRunsEveryModeOfIncompatibleTypesExperimentsOnTheEngine() throws Exception {
+    DropwizardMetricsProvider provider = new DropwizardMetricsProvider();
+    List<IncompatibleTypesExperimentResult<Integer, String>> published = new CopyOnWriteArrayList<>();
+    IncompatibleTypesExperiment<Integer, String> exp = incompatibleTypesExperiment(provider, published, comparingStrings());
+
+    assertThat(exp.run(() -> 1, () -> "1")).isEqualTo(1);
+    assertThat(exp.runAsync(() -> 1, () -> "2")).isEqualTo(1);
+    assertThat(exp.runAsync(() -> CompletableFuture.completedFuture(1), () -> CompletableFuture.completedFuture("1"))
+        .toCompletableFuture().get()).isEqualTo(1);
+
+    awaitSize(published, 3);
+    assertThat(published).extracting(r -> r.getMatch().get()).containsExactlyInAnyOrder(true, false, true);
+    assertThat(provider.getRegistry().getTimers().get(MetricName.build("scientist", "test", "candidate"))
+        .getCount()).isEqualTo(3);
+    assertThat(count(provider, "mismatch")).isEqualTo(1);
+  }
+
+  @Test
+  public void itSamplesIncompatibleTypesExperiments() throws Exception {
+    DropwizardMetricsProvider provider = new DropwizardMetricsProvider();
+    List<IncompatibleTypesExperimentResult<Integer, String>> published = new CopyOnWriteArrayList<>();
+    AtomicInteger candidateCalls = new AtomicInteger();
+    IncompatibleTypesExperiment<Integer, String> exp = incompatibleTypesExperiment(provider, published, comparingStrings()
+        .withSamplingPolicy(SamplingPolicy.percentage(0))
+        .withOrderingStrategy(OrderingStrategy.alwaysCandidateFirst()));
+
+    exp.run(() -> 1, () -> String.valueOf(candidateCalls.incrementAndGet()));
+    exp.runAsync(() -> 1, () -> String.valueOf(candidateCalls.incrementAndGet()));
+
+    awaitSize(published, 2);
+    assertThat(candidateCalls.get()).isZero();
+    assertThat(published).allSatisfy(r -> assertThat(r.getCandidate()).isEmpty());
+    assertThat(exp.getOrderingStrategy().controlFirst()).isFalse();
+  }
+}
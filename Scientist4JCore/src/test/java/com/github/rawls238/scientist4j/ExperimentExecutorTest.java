@@ -0,0 +1,210 @@
+package com.github.rawls238.scientist4j;
+
+import com.github.rawls238.scientist4j.ExperimentExecutor.SaturationPolicy;
+import com.github.rawls238.scientist4j.exceptions.MismatchException;
+import com.github.rawls238.scientist4j.metrics.NoopMetricsProvider;
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ExperimentExecutorTest {
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Occupies the only thread and the only queue slot of a 1x1 executor.
+     */
+    private static void saturate(ExperimentExecutor executor, CountDownLatch release) {
+        executor.execute(() -> await(release));
+        executor.execute(() -> await(release));
+    }
+
+    /**
+     * An executor with a single thread and no queue, which is saturated while anything runs on it.
+     */
+    private static ExperimentExecutor singleThread(SaturationPolicy saturationPolicy) {
+        return new ExperimentExecutor(new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS, new SynchronousQueue<>()),
+            saturationPolicy);
+    }
+
+    private static Experiment<Integer> raisingExperiment(ExperimentExecutor executor) {
+        return new ExperimentBuilder<Integer>()
+            .withName("test")
+            .withMetricsProvider(new NoopMetricsProvider())
+            .withExecutorService(executor)
+            .withRaiseOnMismatch(true)
+            .build();
+    }
+
+    @Test
+    public void defaultExecutorIsSharedAndUsesDaemonThreads() throws Exception {
+        ExperimentExecutor executor = ExperimentExecutor.getDefault();
+
+        assertThat(ExperimentExecutor.getDefault()).isSameAs(executor);
+        assertThat(executor.submit(() -> Thread.currentThread().isDaemon()).get()).isTrue();
+    }
+
+    @Test
+    public void dropsCandidatesWhenSaturated() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        try (ExperimentExecutor executor = new ExperimentExecutor(1, 1, SaturationPolicy.DROP_CANDIDATE)) {
+            saturate(executor, release);
+
+            Future<String> dropped = executor.submitCandidate(() -> "ran", "dropped");
+
+            assertThat(dropped.get()).isEqualTo("dropped");
+            assertThat(executor.getRejectedCount()).isEqualTo(1);
+            assertThat(executor.getQueueDepth()).isEqualTo(1);
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void runsControlInlineWhenSaturated() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        try (ExperimentExecutor executor = new ExperimentExecutor(1, 1, SaturationPolicy.DROP_CANDIDATE)) {
+            saturate(executor, release);
+            String caller = Thread.currentThread().getName();
+
+            Future<String> control = executor.submit(() -> Thread.currentThread().getName());
+
+            assertThat(control.get()).isEqualTo(caller);
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void runsCandidatesInlineWhenConfigured() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        try (ExperimentExecutor executor = new ExperimentExecutor(1, 1, SaturationPolicy.RUN_INLINE)) {
+            saturate(executor, release);
+            String caller = Thread.currentThread().getName();
+
+            Future<String> candidate = executor.submitCandidate(() -> Thread.currentThread().getName(), "dropped");
+
+            assertThat(candidate.get()).isEqualTo(caller);
+            release.countDown();
+        }
+    }
+
+    @Test(expected = RejectedExecutionException.class)
+    public void rejectsWhenConfigured() {
+        CountDownLatch release = new CountDownLatch(1);
+        try (ExperimentExecutor executor = new ExperimentExecutor(1, 1, SaturationPolicy.REJECT)) {
+            saturate(executor, release);
+            try {
+                executor.submitCandidate(() -> "ran", "dropped");
+            } finally {
+                release.countDown();
+            }
+        }
+    }
+
+    @Test
+    public void experimentSkipsCandidateWhenExecutorIsSaturated() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        try (ExperimentExecutor executor = new ExperimentExecutor(1, 1, SaturationPolicy.DROP_CANDIDATE)) {
+            saturate(executor, release);
+            Experiment<Integer> exp = new ExperimentBuilder<Integer>()
+                .withName("test")
+                .withMetricsProvider(new NoopMetricsProvider())
+                .withExecutorService(executor)
+                .build();
+
+            assertThat(exp.runAsyncCandidateOnly(() -> 1, () -> 2)).isEqualTo(1);
+            assertThat(executor.getRejectedCount()).isEqualTo(2);
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void candidatesThatRanArePublishedFromTheirOwnThread() {
+        try (ExperimentExecutor executor = singleThread(SaturationPolicy.DROP_CANDIDATE)) {
+            Experiment<Integer> exp = raisingExperiment(executor);
+
+            // the candidate holds the only thread, so nothing else could be submitted while it runs
+            assertThatThrownBy(() -> exp.runAsyncCandidateOnly(() -> 1, () -> {
+                Thread.sleep(50);
+                return 2;
+            })).isInstanceOf(MismatchException.class);
+            assertThat(executor.getRejectedCount()).isZero();
+        }
+    }
+
+    @Test
+    public void publishingNeverBlocksTheCallerOfACompletionStage() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        try (ExperimentExecutor executor = singleThread(SaturationPolicy.RUN_INLINE)) {
+            Experiment<Integer> exp = raisingExperiment(executor);
+
+            CompletableFuture<Integer> result = exp.runAsyncCandidateOnly(() -> CompletableFuture.completedFuture(1),
+                () -> {
+                    release.await();
+                    return 2;
+                }).toCompletableFuture();
+
+            assertThat(result).isNotDone();
+            release.countDown();
+            assertThatThrownBy(() -> result.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(MismatchException.class);
+        }
+    }
+
+    @Test
+    public void closeShutsDownTheExecutor() throws Exception {
+        ExperimentExecutor executor = new ExperimentExecutor(1, 1, SaturationPolicy.DROP_CANDIDATE);
+        Future<Optional<Integer>> result = executor.submitCandidate(() -> Optional.of(1), Optional.empty());
+
+        executor.close();
+
+        assertThat(result.get()).contains(1);
+        assertThat(executor.isShutdown()).isTrue();
+        assertThat(executor.awaitTermination(1, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    public void virtualThreadsFallBackToTheDefaultExecutor() throws Exception {
+        ExperimentExecutor executor = ExperimentExecutor.getVirtualThreads();
+
+        if (ExperimentExecutor.isVirtualThreadsSupported()) {
+            Method isVirtual = Thread.class.getMethod("isVirtual");
+            assertThat(executor.submit(() -> isVirtual.invoke(Thread.currentThread())).get()).isEqualTo(true);
+        } else {
+            assertThat(executor).isSameAs(ExperimentExecutor.getDefault());
+        }
+    }
+
+    @Test
+    public void experimentRunsOnVirtualThreadsWhenAsked() throws Exception {
+        AtomicInteger candidateRuns = new AtomicInteger();
+        Experiment<Integer> exp = new ExperimentBuilder<Integer>()
+            .withName("test")
+            .withMetricsProvider(new NoopMetricsProvider())
+            .withVirtualThreads(true)
+            .withRaiseOnMismatch(true)
+            .build();
+
+        assertThat(exp.runAsync(() -> 1, () -> {
+            candidateRuns.incrementAndGet();
+            return 1;
+        })).isEqualTo(1);
+        assertThat(candidateRuns.get()).isEqualTo(1);
+    }
+}
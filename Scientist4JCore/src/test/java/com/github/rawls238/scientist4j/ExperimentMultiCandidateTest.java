@@ -0,0 +1,158 @@
+package com.github.rawls238.scientist4j;
+
+import com.github.rawls238.scientist4j.exceptions.MismatchException;
+import com.github.rawls238.scientist4j.metrics.DropwizardMetricsProvider;
+import com.github.rawls238.scientist4j.sampling.SamplingPolicy;
+import io.dropwizard.metrics5.MetricName;
+import org.junit.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.github.rawls238.scientist4j.TestExperiments.awaitSize;
+import static com.github.rawls238.scientist4j.TestExperiments.count;
+import static com.github.rawls238.scientist4j.TestExperiments.experiment;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+
+public class ExperimentMultiCandidateTest {
+
+  @Test
+  public void itComparesEachCandidateWithOneControl() throws Exception {
+    DropwizardMetricsProvider provider = new DropwizardMetricsProvider();
+    List<Result<Integer>> published = new CopyOnWriteArrayList<>();
+    AtomicInteger controlCalls = new AtomicInteger();
+    Experiment<Integer> exp = experiment(provider, published, new ExperimentBuilder<Integer>().withRaiseOnMismatch(false));
+    Map<String, Callable<Integer>> candidates = new LinkedHashMap<>();
+    candidates.put("a", () -> 1);
+    candidates.put("b", () -> 2);
+    candidates.put("c", () -> {
+      throw new IllegalStateException("broken");
+    });
+
+    Integer val = exp.run(() -> {
+      controlCalls.incrementAndGet();
+      return 1;
+    }, candidates);
+
+    assertThat(val).isEqualTo(1);
+    assertThat(controlCalls.get()).isEqualTo(1);
+    awaitSize(published, 1);
+    Result<Integer> result = published.get(0);
+    assertThat(result.getCandidates()).containsOnlyKeys("a", "b", "c");
+    assertThat(result.getMatches()).containsEntry("a", true).containsEntry("b", false).containsEntry("c", false);
+    assertThat(result.getMatch()).contains(false);
+    assertThat(result.getMismatch().get().getMessage()).isEqualTo("b does not match control value (1 != 2)");
+    assertThat(result.getCandidate().get().getName()).isEqualTo("b");
+    assertThat(count(provider, "candidate.b.mismatch")).isEqualTo(1);
+    assertThat(count(provider, "candidate.a.mismatch")).isZero();
+    assertThat(count(provider, "mismatch")).isEqualTo(2);
+    assertThat(provider.getRegistry().getTimers().get(MetricName.build("scientist", "test", "candidate", "c"))
+        .getCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void itRunsCandidatesInParallel() throws Exception {
+    DropwizardMetricsProvider provider = new DropwizardMetricsProvider();
+    List<Result<Integer>> published = new CopyOnWriteArrayList<>();
+    Experiment<Integer> exp = experiment(provider, published, new ExperimentBuilder<Integer>().withRaiseOnMismatch(true));
+    CountDownLatch started = new CountDownLatch(2);
+    Callable<Integer> candidate = () -> {
+      started.countDown();
+      return started.await(5, TimeUnit.SECONDS) ? 1 : 0;
+    };
+    Map<String, Callable<Integer>> candidates = new LinkedHashMap<>();
+    candidates.put("a", candidate);
+    candidates.put("b", candidate);
+
+    assertThat(exp.run(() -> 1, candidates)).isEqualTo(1);
+    assertThat(published.get(0).getMatch()).contains(true);
+  }
+
+  @Test
+  public void itRaisesOnAnyMismatch() {
+    DropwizardMetricsProvider provider = new DropwizardMetricsProvider();
+    List<Result<Integer>> published = new CopyOnWriteArrayList<>();
+    Experiment<Integer> exp = experiment(provider, published, new ExperimentBuilder<Integer>().withRaiseOnMismatch(true));
+    Map<String, Callable<Integer>> candidates = new LinkedHashMap<>();
+    candidates.put("a", () -> 1);
+    candidates.put("b", () -> 3);
+
+    MismatchException e = catchThrowableOfType(() -> exp.run(() -> 1, candidates), MismatchException.class);
+
+    assertThat(e.getMessage()).isEqualTo("b does not match control value (1 != 3)");
+    assertThat(published).isEmpty();
+  }
+
+  @Test
+  public void itPublishesWhenTheCandidatesFillTheExecutor() throws Exception {
+    DropwizardMetricsProvider provider = new DropwizardMetricsProvider();
+    List<Result<Integer>> published = new CopyOnWriteArrayList<>();
+    try (ExperimentExecutor executor = new ExperimentExecutor(
+        new ThreadPoolExecutor(2, 2, 0, TimeUnit.SECONDS, new SynchronousQueue<>()),
+        ExperimentExecutor.SaturationPolicy.DROP_CANDIDATE)) {
+      Experiment<Integer> exp = experiment(provider, published, new ExperimentBuilder<Integer>()
+          .withRaiseOnMismatch(false)
+          .withExecutorService(executor));
+      CountDownLatch release = new CountDownLatch(1);
+      Map<String, Callable<Integer>> candidates = new LinkedHashMap<>();
+      candidates.put("a", () -> {
+        release.await();
+        return 1;
+      });
+      candidates.put("b", () -> {
+        release.await();
+        return 2;
+      });
+
+      assertThat(exp.run(() -> 1, candidates)).isEqualTo(1);
+      release.countDown();
+
+      awaitSize(published, 1);
+      assertThat(published).hasSize(1);
+      assertThat(published.get(0).getMatches()).containsEntry("a", true).containsEntry("b", false);
+      assertThat(executor.getRejectedCount()).isZero();
+    }
+  }
+
+  @Test
+  public void itSamplesEachCandidateIndependently() throws Exception {
+    DropwizardMetricsProvider provider = new DropwizardMetricsProvider();
+    List<Result<Integer>> published = new CopyOnWriteArrayList<>();
+    AtomicInteger samples = new AtomicInteger();
+    Experiment<Integer> exp = experiment(provider, published, new ExperimentBuilder<Integer>()
+        .withRaiseOnMismatch(true)
+        .withSamplingPolicy(() -> samples.incrementAndGet() % 2 == 1));
+    Map<String, Callable<Integer>> candidates = new LinkedHashMap<>();
+    candidates.put("a", () -> 1);
+    candidates.put("b", () -> 1);
+
+    exp.run(() -> 1, candidates);
+
+    assertThat(samples.get()).isEqualTo(2);
+    assertThat(published.get(0).getCandidates()).containsOnlyKeys("a");
+  }
+
+  @Test
+  public void itPublishesWithoutCandidatesWhenNoneAreSampled() throws Exception {
+    DropwizardMetricsProvider provider = new DropwizardMetricsProvider();
+    List<Result<Integer>> published = new CopyOnWriteArrayList<>();
+    Experiment<Integer> exp = experiment(provider, published, new ExperimentBuilder<Integer>()
+        .withRaiseOnMismatch(true)
+        .withSamplingPolicy(SamplingPolicy.percentage(0)));
+    Map<String, Callable<Integer>> candidates = new LinkedHashMap<>();
+    candidates.put("a", () -> 2);
+
+    assertThat(exp.run(() -> 1, candidates)).isEqualTo(1);
+    assertThat(published.get(0).getCandidates()).isEmpty();
+    assertThat(published.get(0).getMatch()).isEmpty();
+  }
+}
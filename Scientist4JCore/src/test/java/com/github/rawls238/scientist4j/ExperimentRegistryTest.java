@@ -0,0 +1,141 @@
+package com.github.rawls238.scientist4j;
+
+import com.github.rawls238.scientist4j.exceptions.MismatchException;
+import com.github.rawls238.scientist4j.metrics.DropwizardMetricsProvider;
+import com.github.rawls238.scientist4j.metrics.NoopMetricsProvider;
+import io.dropwizard.metrics5.MetricName;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ExperimentRegistryTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static Properties properties(String... keysAndValues) {
+        Properties properties = new Properties();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            properties.setProperty(keysAndValues[i], keysAndValues[i + 1]);
+        }
+        return properties;
+    }
+
+    @Test
+    public void itTurnsCandidatesOffAndOnAtRuntime() throws Exception {
+        ExperimentRegistry registry = new ExperimentRegistry(new NoopMetricsProvider());
+        Experiment<Integer> exp = registry.register("foo");
+        AtomicInteger candidateCalls = new AtomicInteger();
+
+        exp.run(() -> 1, candidateCalls::incrementAndGet);
+        registry.configure(properties("foo.enabled", "false"));
+        exp.run(() -> 1, candidateCalls::incrementAndGet);
+        registry.configure(properties());
+        exp.run(() -> 1, candidateCalls::incrementAndGet);
+
+        assertThat(candidateCalls.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void itFallsBackToTheBuilderSettings() {
+        ExperimentRegistry registry = new ExperimentRegistry(new NoopMetricsProvider());
+        registry.register("foo", new ExperimentBuilder<Integer>()
+            .withRaiseOnMismatch(true)
+            .withCandidateTimeout(5, TimeUnit.SECONDS));
+
+        registry.configure(properties("foo.sampleRate", "0.25", "bar.enabled", "false"));
+
+        ExperimentConfig config = registry.getConfig("foo").get();
+        assertThat(config.isEnabled()).isTrue();
+        assertThat(config.getSampleRate()).isEqualTo(0.25);
+        assertThat(config.getCandidateTimeout(TimeUnit.SECONDS)).isEqualTo(5);
+        assertThat(config.getRaiseOnMismatch()).isTrue();
+    }
+
+    @Test
+    public void itChangesWhetherMismatchesRaise() throws Exception {
+        ExperimentRegistry registry = new ExperimentRegistry(new NoopMetricsProvider());
+        Experiment<Integer> exp = registry.register("foo");
+
+        assertThat(exp.run(() -> 1, () -> 2)).isEqualTo(1);
+        registry.configure(properties("foo.raiseOnMismatch", "true"));
+
+        assertThatThrownBy(() -> exp.run(() -> 1, () -> 2)).isInstanceOf(MismatchException.class);
+    }
+
+    @Test
+    public void itConfiguresIncompatibleTypesExperiments() throws Exception {
+        ExperimentRegistry registry = new ExperimentRegistry(new NoopMetricsProvider());
+        IncompatibleTypesExperiment<Integer, String> exp = registry.register("foo",
+            new IncompatibleTypesExperimentBuilder<Integer, String>()
+                .withComparator((control, candidate) -> control.toString().equals(candidate)));
+        AtomicInteger candidateCalls = new AtomicInteger();
+
+        registry.configure(properties("foo.enabled", "false"));
+        exp.run(() -> 1, () -> String.valueOf(candidateCalls.incrementAndGet()));
+        registry.configure(properties("foo.raiseOnMismatch", "true", "foo.candidateTimeoutMillis", "100"));
+
+        assertThat(candidateCalls.get()).isZero();
+        assertThatThrownBy(() -> exp.run(() -> 1, () -> "2")).isInstanceOf(MismatchException.class);
+        assertThat(registry.getConfig("foo").get().getCandidateTimeout(TimeUnit.MILLISECONDS)).isEqualTo(100);
+        assertThat(registry.<Integer, String>getIncompatibleTypes("foo")).containsSame(exp);
+        assertThat(registry.get("foo")).isEmpty();
+    }
+
+    @Test
+    public void itRejectsInvalidSettingsAsAWhole() {
+        ExperimentRegistry registry = new ExperimentRegistry(new NoopMetricsProvider());
+        registry.register("foo");
+        registry.register("bar");
+
+        assertThatThrownBy(() -> registry.configure(properties("foo.enabled", "false", "bar.sampleRate", "2")))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThat(registry.getConfig("foo").get().isEnabled()).isTrue();
+    }
+
+    @Test
+    public void itRejectsDuplicateNames() {
+        ExperimentRegistry registry = new ExperimentRegistry(new NoopMetricsProvider());
+        Experiment<Integer> exp = registry.register("foo");
+
+        assertThatThrownBy(() -> registry.register("foo")).isInstanceOf(IllegalStateException.class);
+        assertThat(registry.<Integer>get("foo")).containsSame(exp);
+        assertThat(registry.get("bar")).isEmpty();
+    }
+
+    @Test
+    public void itReloadsAWatchedFile() throws Exception {
+        DropwizardMetricsProvider provider = new DropwizardMetricsProvider();
+        Path file = folder.newFile("experiments.properties").toPath();
+        Files.write(file, "foo.enabled=true\n".getBytes(StandardCharsets.ISO_8859_1));
+        try (ExperimentRegistry registry = new ExperimentRegistry(provider)) {
+            registry.register("foo");
+            registry.watch(file);
+            assertThat(registry.getConfig("foo").get().isEnabled()).isTrue();
+
+            Files.write(file, "foo.enabled=maybe\n".getBytes(StandardCharsets.ISO_8859_1));
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+            while (provider.getRegistry().getCounters().get(MetricName.build("scientist", "registry", "config.error"))
+                .getCount() == 0 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertThat(registry.getConfig("foo").get().isEnabled()).isTrue();
+
+            Files.write(file, "foo.enabled=false\n".getBytes(StandardCharsets.ISO_8859_1));
+            while (registry.getConfig("foo").get().isEnabled() && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertThat(registry.getConfig("foo").get().isEnabled()).isFalse();
+        }
+    }
+}
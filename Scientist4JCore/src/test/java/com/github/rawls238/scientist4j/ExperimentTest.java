@@ -2,16 +2,23 @@ package com.github.rawls238.scientist4j;
 
 import com.github.rawls238.scientist4j.exceptions.MismatchException;
 import com.github.rawls238.scientist4j.metrics.DropwizardMetricsProvider;
+import com.github.rawls238.scientist4j.metrics.MetricsProvider;
 import com.github.rawls238.scientist4j.metrics.MicrometerMetricsProvider;
 import com.github.rawls238.scientist4j.metrics.NoopMetricsProvider;
+import com.github.rawls238.scientist4j.sampling.SamplingPolicy;
 import io.dropwizard.metrics5.Counter;
 import io.dropwizard.metrics5.MetricName;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiFunction;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Mockito.*;
 
 public class ExperimentTest {
@@ -112,6 +119,77 @@ public class ExperimentTest {
         assertThat(result.count()).isEqualTo(1);
     }
 
+    @Test
+    public void durationsArePerInvocation_micrometer() throws Exception {
+        final List<Long> controlDurations = new ArrayList<>();
+        final Experiment<Integer> exp = new Experiment<Integer>("test", new MicrometerMetricsProvider()) {
+            @Override
+            protected void publish(Result<Integer> r) {
+                controlDurations.add(r.getControl().getDuration());
+            }
+        };
+
+        exp.run(this::sleepFunction, this::safeFunction);
+        exp.run(this::safeFunction, this::safeFunction);
+
+        assertThat(controlDurations.get(0)).isGreaterThanOrEqualTo(1_000_000_000L);
+        assertThat(controlDurations.get(1)).isLessThan(500_000_000L);
+    }
+
+    @Test
+    public void durationsArePerInvocation_dropwizard() throws Exception {
+        final DropwizardMetricsProvider provider = new DropwizardMetricsProvider();
+        final MetricsProvider.Timer timer = provider.timer("scientist", "test", "control");
+
+        long slow = timer.time(this::sleepFunction);
+        long fast = timer.time(this::safeFunction);
+
+        assertThat(slow).isGreaterThanOrEqualTo(1_000_000_000L);
+        assertThat(fast).isLessThan(500_000_000L);
+        assertThat(provider.getRegistry().getTimers().get(MetricName.build("scientist", "test", "control")).getCount())
+                .isEqualTo(2);
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void timersWrittenAgainstTheOldInterfaceStillTimeCalls() throws Exception {
+        final List<Runnable> timed = new ArrayList<>();
+        final MetricsProvider<Object> provider = new NoopMetricsProvider() {
+            @Override
+            public Timer timer(String... nameComponents) {
+                return new Timer() {
+                    @Override
+                    public void record(Runnable runnable) {
+                        timed.add(runnable);
+                        runnable.run();
+                    }
+
+                    @Override
+                    public long getDuration() {
+                        return 0;
+                    }
+                };
+            }
+        };
+        final Experiment<Integer> exp = new ExperimentBuilder<Integer>()
+                .withName("test")
+                .withMetricsProvider(provider)
+                .build();
+
+        assertThat(exp.run(this::safeFunction, this::safeFunction)).isEqualTo(3);
+        assertThat(timed).hasSize(2);
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void dropwizardTimersStillReportTheirLastDuration() {
+        final MetricsProvider.Timer timer = new DropwizardMetricsProvider().timer("scientist", "test", "control");
+
+        timer.record(5, TimeUnit.MILLISECONDS);
+
+        assertThat(timer.getDuration()).isEqualTo(TimeUnit.MILLISECONDS.toNanos(5));
+    }
+
     @Test
     public void shouldUseCustomComparator() throws Exception {
         @SuppressWarnings("unchecked") final BiFunction<Integer, Integer, Boolean> comparator = mock(BiFunction.class);
@@ -126,6 +204,84 @@ public class ExperimentTest {
 
         verify(comparator).apply(1, 2);
     }
+
+    @Test
+    public void itOnlyRunsSampledCandidates() throws Exception {
+        final AtomicInteger candidateRuns = new AtomicInteger();
+        final Experiment<Integer> e = new ExperimentBuilder<Integer>()
+                .withName("test")
+                .withMetricsProvider(new NoopMetricsProvider())
+                .withSamplingPolicy(SamplingPolicy.percentage(0))
+                .build();
+
+        for (int i = 0; i < 100; i++) {
+            e.run(() -> 1, candidateRuns::incrementAndGet);
+        }
+
+        assertThat(candidateRuns.get()).isEqualTo(0);
+    }
+
+    @Test
+    public void lowAllocationModeReusesResultsBetweenCalls() throws Exception {
+        final List<Result<Integer>> published = new ArrayList<>();
+        final List<Boolean> matches = new ArrayList<>();
+        final Experiment<Integer> e = new Experiment<Integer>(new ExperimentBuilder<Integer>()
+                .withName("test")
+                .withMetricsProvider(new NoopMetricsProvider())
+                .withLowAllocation(true)) {
+            @Override
+            protected void publish(Result<Integer> r) {
+                published.add(r);
+                matches.add(r.getMatch().get());
+            }
+        };
+
+        assertThat(e.run(() -> 1, () -> 1)).isEqualTo(1);
+        assertThat(e.run(() -> 1, () -> 2)).isEqualTo(1);
+        assertThat(e.run(() -> 1, this::exceptionThrowingFunction)).isEqualTo(1);
+
+        assertThat(matches).containsExactly(true, false, false);
+        assertThat(published.get(0)).isSameAs(published.get(1));
+    }
+
+    @Test(expected = ExpectingAnException.class)
+    public void lowAllocationModeThrowsWhenControlFails() throws Exception {
+        new ExperimentBuilder<Integer>()
+                .withName("test")
+                .withMetricsProvider(new NoopMetricsProvider())
+                .withLowAllocation(true)
+                .build()
+                .run(this::exceptionThrowingFunction, this::safeFunction);
+    }
+
+    @Test
+    public void lowAllocationModeRaisesWithTheMismatchingValues() {
+        final Experiment<Integer> e = new ExperimentBuilder<Integer>()
+                .withName("test")
+                .withMetricsProvider(new NoopMetricsProvider())
+                .withLowAllocation(true)
+                .withRaiseOnMismatch(true)
+                .build();
+
+        assertThatThrownBy(() -> e.run(() -> 1, () -> 2))
+                .isInstanceOf(MismatchException.class)
+                .hasMessage("candidate does not match control value (1 != 2)")
+                .satisfies(t -> assertThat(((MismatchException) t).getMismatch().getControl().getValue()).isEqualTo(1));
+    }
+
+    @Test
+    public void lowAllocationModeHandlesNestedRuns() throws Exception {
+        final Experiment<Integer> e = new ExperimentBuilder<Integer>()
+                .withName("test")
+                .withMetricsProvider(new NoopMetricsProvider())
+                .withLowAllocation(true)
+                .withRaiseOnMismatch(true)
+                .build();
+
+        Integer val = e.run(() -> e.run(() -> 3, () -> 3), () -> 3);
+
+        assertThat(val).isEqualTo(3);
+    }
 }
 
 class ExpectingAnException extends RuntimeException {
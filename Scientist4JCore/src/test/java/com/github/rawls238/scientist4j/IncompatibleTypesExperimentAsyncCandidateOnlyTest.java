@@ -0,0 +1,162 @@
+package com.github.rawls238.scientist4j;
+
+import com.github.rawls238.scientist4j.exceptions.MismatchException;
+import com.github.rawls238.scientist4j.metrics.DropwizardMetricsProvider;
+import com.github.rawls238.scientist4j.metrics.NoopMetricsProvider;
+import io.dropwizard.metrics5.MetricName;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.rawls238.scientist4j.TestExperiments.awaitSize;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class IncompatibleTypesExperimentAsyncCandidateOnlyTest {
+
+  private Integer exceptionThrowingFunction() {
+    throw new RuntimeException("throw an exception");
+  }
+
+  private String exceptionThrowingCandidateFunction() {
+    throw new RuntimeException("throw an exception");
+  }
+
+  private Integer sleepFunction() {
+    try {
+      Thread.sleep(1001);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    return 3;
+  }
+
+  private String sleepCandidateFunction() {
+    try {
+      Thread.sleep(1001);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    return "3";
+  }
+
+  private Integer safeFunction() {
+    return 3;
+  }
+
+  private String safeCandidateFunction() {
+    return "3";
+  }
+
+  private String safeCandidateFunctionWithDifferentResult() {
+    return "4";
+  }
+
+  private static IncompatibleTypesExperiment<Integer, String> experiment(boolean raiseOnMismatch) {
+    return new IncompatibleTypesExperiment<>("test", raiseOnMismatch, new NoopMetricsProvider(),
+        (integer, s) -> String.valueOf(integer).equals(s));
+  }
+
+  @Test
+  public void itThrowsAnExceptionWhenControlFails() {
+    assertThatThrownBy(() -> experiment(false).runAsyncCandidateOnly(this::exceptionThrowingFunction,
+        this::exceptionThrowingCandidateFunction)).isInstanceOf(RuntimeException.class);
+  }
+
+  @Test
+  public void itDoesntThrowAnExceptionWhenCandidateFails() throws Exception {
+    assertThat(experiment(false).runAsyncCandidateOnly(this::safeFunction, this::exceptionThrowingCandidateFunction))
+        .isEqualTo(3);
+  }
+
+  @Test
+  public void itThrowsOnMismatch() {
+    assertThatThrownBy(() -> experiment(true).runAsyncCandidateOnly(this::safeFunction,
+        this::safeCandidateFunctionWithDifferentResult)).isInstanceOf(MismatchException.class);
+  }
+
+  @Test
+  public void itDoesNotThrowOnMatch() throws Exception {
+    assertThat(experiment(true).runAsyncCandidateOnly(this::safeFunction, this::safeCandidateFunction)).isEqualTo(3);
+  }
+
+  @Test
+  public void asyncRunsFaster() throws Exception {
+    long start = System.nanoTime();
+    Integer val = experiment(false).runAsyncCandidateOnly(this::sleepFunction, this::sleepCandidateFunction);
+    long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+    assertThat(elapsedMillis).isBetween(1000L, 2000L);
+    assertThat(val).isEqualTo(3);
+  }
+
+  @Test
+  public void controlRunsOnTheCallingThread() throws Exception {
+    ThreadFactory threadFactory = runnable -> new Thread(runnable, "experiment");
+    IncompatibleTypesExperiment<String, String> exp = new IncompatibleTypesExperimentBuilder<String, String>()
+        .withName("test")
+        .withMetricsProvider(new NoopMetricsProvider())
+        .withComparator(String::equals)
+        .withExecutorService(Executors.newFixedThreadPool(4, threadFactory))
+        .build();
+    Callable<String> getThreadName = () -> Thread.currentThread().getName();
+
+    assertThat(exp.runAsyncCandidateOnly(getThreadName, getThreadName)).isEqualTo(Thread.currentThread().getName());
+  }
+
+  @Test
+  public void itIsUsedByRunWhenEnabled() throws Exception {
+    DropwizardMetricsProvider provider = new DropwizardMetricsProvider();
+    List<IncompatibleTypesExperimentResult<Integer, String>> published = new CopyOnWriteArrayList<>();
+    IncompatibleTypesExperiment<Integer, String> exp = new IncompatibleTypesExperiment<Integer, String>(
+        "test", provider, (integer, s) -> String.valueOf(integer).equals(s)) {
+      @Override
+      protected boolean isAsyncCandidateOnly() {
+        return true;
+      }
+
+      @Override
+      protected void publish(IncompatibleTypesExperimentResult<Integer, String> result) {
+        published.add(result);
+      }
+    };
+
+    assertThat(exp.run(this::safeFunction, this::safeCandidateFunctionWithDifferentResult)).isEqualTo(3);
+
+    awaitSize(published, 1);
+    assertThat(published.get(0).getMatch()).contains(false);
+    assertThat(provider.getRegistry().getTimers().get(MetricName.build("scientist", "test", "control")).getCount())
+        .isEqualTo(1);
+    assertThat(provider.getRegistry().getTimers().get(MetricName.build("scientist", "test", "candidate")).getCount())
+        .isEqualTo(1);
+  }
+
+  @Test
+  public void theStageCompletesWithTheControl() throws Exception {
+    CompletableFuture<Integer> control = new CompletableFuture<>();
+    CompletionStage<Integer> stage = experiment(false).runAsyncCandidateOnly(() -> control,
+        this::sleepCandidateFunction);
+
+    assertThat(stage.toCompletableFuture().isDone()).isFalse();
+    control.complete(3);
+    assertThat(stage.toCompletableFuture().get(500, TimeUnit.MILLISECONDS)).isEqualTo(3);
+  }
+
+  @Test
+  public void theStageCompletesExceptionallyOnMismatch() {
+    CompletionStage<Integer> stage = experiment(true).runAsyncCandidateOnly(
+        () -> CompletableFuture.completedFuture(3), this::safeCandidateFunctionWithDifferentResult);
+
+    assertThatThrownBy(() -> stage.toCompletableFuture().get(5, TimeUnit.SECONDS))
+        .isInstanceOf(ExecutionException.class)
+        .hasCauseInstanceOf(MismatchException.class);
+  }
+}
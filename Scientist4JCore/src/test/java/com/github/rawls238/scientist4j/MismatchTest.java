@@ -0,0 +1,76 @@
+package com.github.rawls238.scientist4j;
+
+import com.github.rawls238.scientist4j.exceptions.MismatchException;
+import com.github.rawls238.scientist4j.metrics.NoopMetricsProvider;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+
+public class MismatchTest {
+
+    private static String repeat(char c, int times) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < times; i++) {
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    @Test
+    public void itRaisesAStacklessExceptionWithALazyMessage() {
+        Experiment<Integer> exp = new Experiment<>("test", true, new NoopMetricsProvider());
+
+        MismatchException e = catchThrowableOfType(() -> exp.run(() -> 3, () -> 4), MismatchException.class);
+
+        assertThat(e.getStackTrace()).isEmpty();
+        assertThat(e.getMismatch().getExperimentName()).isEqualTo("test");
+        assertThat(e.getMessage()).isEqualTo("candidate does not match control value (3 != 4)");
+    }
+
+    @Test
+    public void itDescribesMismatchesWithoutRaising() throws Exception {
+        List<Result<String>> published = new ArrayList<>();
+        Experiment<String> exp = new Experiment<String>("test", new NoopMetricsProvider()) {
+            @Override
+            protected void publish(Result<String> r) {
+                published.add(r);
+            }
+        };
+
+        exp.run(() -> "a", () -> "a");
+        exp.run(() -> "a", () -> {
+            throw new IllegalStateException("broken");
+        });
+
+        assertThat(published.get(0).getMismatch()).isEmpty();
+        assertThat(published.get(1).getMismatch().get().getMessage())
+            .isEqualTo("candidate raised an exception: java.lang.IllegalStateException: broken");
+    }
+
+    @Test
+    public void itTruncatesValuesToTheBudget() {
+        Experiment<String> exp = new ExperimentBuilder<String>()
+            .withName("test")
+            .withMetricsProvider(new NoopMetricsProvider())
+            .withRaiseOnMismatch(true)
+            .withMismatchMessageBudget(4)
+            .build();
+
+        MismatchException e = catchThrowableOfType(() -> exp.run(() -> repeat('a', 10_000), () -> "\u00e9\u00e9\u00e9"),
+            MismatchException.class);
+
+        assertThat(e.getMessage()).isEqualTo("candidate does not match control value (aaaa... != \u00e9\u00e9...)");
+    }
+
+    @Test
+    public void incompatibleTypesExperimentsOnlyRaiseWhenAsked() throws Exception {
+        IncompatibleTypesExperiment<Integer, String> exp = new IncompatibleTypesExperiment<>("test",
+            new NoopMetricsProvider(), (control, candidate) -> control.toString().equals(candidate));
+
+        assertThat(exp.run(() -> 1, () -> "2")).isEqualTo(1);
+    }
+}
@@ -0,0 +1,175 @@
+package com.github.rawls238.scientist4j;
+
+import com.github.rawls238.scientist4j.metrics.NoopMetricsProvider;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class OrderingStrategyTest {
+
+  @Test
+  public void fixedStrategiesAlwaysPickTheSameSide() {
+    for (int i = 0; i < 10; i++) {
+      assertThat(OrderingStrategy.alwaysControlFirst().controlFirst()).isTrue();
+      assertThat(OrderingStrategy.alwaysCandidateFirst().controlFirst()).isFalse();
+    }
+  }
+
+  @Test
+  public void alternatingAlternatesOnTheSameThread() {
+    OrderingStrategy strategy = OrderingStrategy.alternating();
+    boolean first = strategy.controlFirst();
+
+    for (int i = 0; i < 10; i++) {
+      assertThat(strategy.controlFirst()).isNotEqualTo(first);
+      assertThat(strategy.controlFirst()).isEqualTo(first);
+    }
+  }
+
+  @Test
+  public void randomPicksBothSides() {
+    OrderingStrategy strategy = OrderingStrategy.random();
+    int controlFirst = 0;
+    for (int i = 0; i < 1000; i++) {
+      if (strategy.controlFirst()) {
+        controlFirst++;
+      }
+    }
+
+    assertThat(controlFirst).isBetween(1, 999);
+  }
+
+  @Test
+  public void runRunsInTheConfiguredOrder() throws Exception {
+    for (boolean controlFirst : new boolean[]{true, false}) {
+      List<String> calls = new CopyOnWriteArrayList<>();
+      experiment(controlFirst).run(control(calls), candidate(calls));
+
+      assertThat(calls).containsExactlyElementsOf(expected(controlFirst));
+    }
+  }
+
+  @Test
+  public void runAsyncRunsInTheConfiguredOrder() throws Exception {
+    for (boolean controlFirst : new boolean[]{true, false}) {
+      List<String> calls = new CopyOnWriteArrayList<>();
+      experiment(controlFirst).runAsync(control(calls), candidate(calls));
+
+      assertThat(calls).containsExactlyElementsOf(expected(controlFirst));
+    }
+  }
+
+  @Test
+  public void runAsyncWithStagesRunsInTheConfiguredOrder() {
+    for (boolean controlFirst : new boolean[]{true, false}) {
+      List<String> calls = new CopyOnWriteArrayList<>();
+      experiment(controlFirst).runAsync(
+          () -> CompletableFuture.completedFuture(add(calls, "control")),
+          () -> CompletableFuture.completedFuture(add(calls, "candidate")))
+          .toCompletableFuture().join();
+
+      assertThat(calls).containsExactlyElementsOf(expected(controlFirst));
+    }
+  }
+
+  @Test
+  public void runAsyncCandidateOnlyRunsInTheConfiguredOrder() throws Exception {
+    for (boolean controlFirst : new boolean[]{true, false}) {
+      List<String> calls = new CopyOnWriteArrayList<>();
+      experiment(controlFirst).runAsyncCandidateOnly(control(calls), candidate(calls));
+
+      assertThat(calls).containsExactlyElementsOf(expected(controlFirst));
+    }
+  }
+
+  @Test
+  public void runAsyncCandidateOnlyWithStagesRunsInTheConfiguredOrder() {
+    for (boolean controlFirst : new boolean[]{true, false}) {
+      List<String> calls = new CopyOnWriteArrayList<>();
+      experiment(controlFirst).runAsyncCandidateOnly(
+          () -> CompletableFuture.completedFuture(add(calls, "control")), candidate(calls))
+          .toCompletableFuture().join();
+
+      assertThat(calls).containsExactlyElementsOf(expected(controlFirst));
+    }
+  }
+
+  /**
+   * Runs the candidate on the calling thread as it is submitted, so the order of the calls is the order the
+   * experiment started them in.
+   */
+  private static Experiment<Integer> experiment(boolean controlFirst) {
+    return new ExperimentBuilder<Integer>()
+        .withName("test")
+        .withMetricsProvider(new NoopMetricsProvider())
+        .withExecutorService(new DirectExecutorService())
+        .withOrderingStrategy(controlFirst
+            ? OrderingStrategy.alwaysControlFirst() : OrderingStrategy.alwaysCandidateFirst())
+        .build();
+  }
+
+  private static List<String> expected(boolean controlFirst) {
+    List<String> expected = Arrays.asList("control", "candidate");
+    if (!controlFirst) {
+      Collections.reverse(expected);
+    }
+    return expected;
+  }
+
+  private static Callable<Integer> control(List<String> calls) {
+    return () -> add(calls, "control");
+  }
+
+  private static Callable<Integer> candidate(List<String> calls) {
+    return () -> add(calls, "candidate");
+  }
+
+  private static Integer add(List<String> calls, String call) {
+    calls.add(call);
+    return 1;
+  }
+
+  private static class DirectExecutorService extends AbstractExecutorService {
+    private volatile boolean shutdown;
+
+    @Override
+    public void execute(Runnable command) {
+      command.run();
+    }
+
+    @Override
+    public void shutdown() {
+      shutdown = true;
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+      shutdown = true;
+      return Collections.emptyList();
+    }
+
+    @Override
+    public boolean isShutdown() {
+      return shutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+      return shutdown;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) {
+      return true;
+    }
+  }
+}
@@ -0,0 +1,55 @@
+package com.github.rawls238.scientist4j;
+
+import com.github.rawls238.scientist4j.metrics.DropwizardMetricsProvider;
+import com.github.rawls238.scientist4j.metrics.MetricsProvider;
+import io.dropwizard.metrics5.MetricName;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Experiments named "test" that collect what they publish, and helpers to inspect them.
+ */
+public final class TestExperiments {
+
+  private TestExperiments() {
+  }
+
+  static <T> Experiment<T> experiment(MetricsProvider<?> provider, List<Result<T>> published,
+                                      ExperimentBuilder<T> builder) {
+    return new Experiment<T>(builder.withName("test").withMetricsProvider(provider)) {
+      @Override
+      protected void publish(Result<T> r) {
+        published.add(r);
+      }
+    };
+  }
+
+  static <T, U> IncompatibleTypesExperiment<T, U> incompatibleTypesExperiment(
+      MetricsProvider<?> provider, List<IncompatibleTypesExperimentResult<T, U>> published,
+      IncompatibleTypesExperimentBuilder<T, U> builder) {
+    return new IncompatibleTypesExperiment<T, U>(builder.withName("test").withMetricsProvider(provider)) {
+      @Override
+      protected void publish(IncompatibleTypesExperimentResult<T, U> result) {
+        published.add(result);
+      }
+    };
+  }
+
+  /**
+   * @return the count of the {@code scientist.test.[name]} counter
+   */
+  public static long count(DropwizardMetricsProvider provider, String name) {
+    return provider.getRegistry().getCounters().get(MetricName.build("scientist", "test", name)).getCount();
+  }
+
+  /**
+   * Waits up to five seconds for results published off the calling thread.
+   */
+  public static void awaitSize(List<?> list, int size) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (list.size() < size && System.nanoTime() < deadline) {
+      Thread.sleep(1);
+    }
+  }
+}
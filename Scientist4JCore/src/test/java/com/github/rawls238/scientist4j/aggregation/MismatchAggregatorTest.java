@@ -0,0 +1,146 @@
+package com.github.rawls238.scientist4j.aggregation;
+
+import com.github.rawls238.scientist4j.Experiment;
+import com.github.rawls238.scientist4j.ExperimentBuilder;
+import com.github.rawls238.scientist4j.Result;
+import com.github.rawls238.scientist4j.diff.Differ;
+import com.github.rawls238.scientist4j.metrics.NoopMetricsProvider;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MismatchAggregatorTest {
+
+    private static void awaitTotal(MismatchAggregator<?> aggregator, long total) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (aggregator.snapshot().getTotal() < total && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+    }
+
+    @Test
+    public void itKeepsTheHeavyHittersInABoundedTable() {
+        MismatchAggregator<Integer> aggregator = new MismatchAggregator<>(8, 2);
+
+        for (int i = 0; i < 1000; i++) {
+            aggregator.record(Fingerprint.of("heavy"), i);
+            if (i % 2 == 0) {
+                aggregator.record(Fingerprint.of("medium"), i);
+            }
+            aggregator.record(Fingerprint.of("noise " + i), i);
+        }
+
+        MismatchSnapshot<Integer> snapshot = aggregator.snapshot();
+        assertThat(snapshot.getCategories()).hasSizeLessThanOrEqualTo(8);
+        assertThat(snapshot.getTotal()).isEqualTo(2500);
+        MismatchCategory<Integer> top = snapshot.getCategories().get(0);
+        assertThat(top.getFingerprint()).isEqualTo(Fingerprint.of("heavy"));
+        assertThat(top.getCount() - top.getError()).isLessThanOrEqualTo(1000);
+        assertThat(top.getCount()).isGreaterThanOrEqualTo(1000);
+        assertThat(top.getExemplars()).hasSize(2);
+        assertThat(snapshot.getCategories().get(1).getFingerprint()).isEqualTo(Fingerprint.of("medium"));
+    }
+
+    @Test
+    public void countsFromConcurrentThreadsAddUp() throws Exception {
+        MismatchAggregator<Integer> aggregator = new MismatchAggregator<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    aggregator.record(Fingerprint.of("category " + (i % 8)), i);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        MismatchSnapshot<Integer> snapshot = aggregator.snapshot();
+        assertThat(snapshot.getCategories()).hasSize(8).allMatch(category -> category.getCount() == 5_000);
+    }
+
+    @Test
+    public void snapshotAndResetStartsAfresh() {
+        MismatchAggregator<Integer> aggregator = new MismatchAggregator<>();
+        aggregator.record(Fingerprint.of("a"), 1);
+
+        assertThat(aggregator.snapshotAndReset().getTotal()).isEqualTo(1);
+        assertThat(aggregator.snapshot().getCategories()).isEmpty();
+    }
+
+    @Test
+    public void itDeliversScheduledSnapshots() throws Exception {
+        CountDownLatch delivered = new CountDownLatch(1);
+        AtomicReference<MismatchSnapshot<Integer>> snapshot = new AtomicReference<>();
+        try (MismatchAggregator<Integer> aggregator = new MismatchAggregator<>()) {
+            aggregator.record(Fingerprint.of("a"), 1);
+            aggregator.scheduleSnapshots(10, TimeUnit.MILLISECONDS, s -> {
+                if (snapshot.compareAndSet(null, s)) {
+                    delivered.countDown();
+                }
+            });
+
+            assertThat(delivered.await(5, TimeUnit.SECONDS)).isTrue();
+        }
+        assertThat(snapshot.get().getTotal()).isEqualTo(1);
+    }
+
+    @Test
+    public void experimentsGroupMismatchesByTheShapeOfTheirDiff() throws Exception {
+        MismatchAggregator<Result<List<Integer>>> aggregator = new MismatchAggregator<>();
+        Experiment<List<Integer>> exp = new ExperimentBuilder<List<Integer>>()
+            .withName("test")
+            .withMetricsProvider(new NoopMetricsProvider())
+            .withDiffer(Differ.reflective())
+            .withMismatchAggregator(aggregator)
+            .build();
+
+        exp.run(() -> Arrays.asList(1, 2), () -> Arrays.asList(1, 3));
+        exp.run(() -> Arrays.asList(1, 2), () -> Arrays.asList(4, 2));
+        exp.run(() -> Arrays.asList(1, 2), () -> Arrays.asList(1, 2));
+        exp.run(() -> Arrays.asList(1, 2), () -> {
+            throw new IllegalStateException();
+        });
+
+        awaitTotal(aggregator, 3);
+        List<MismatchCategory<Result<List<Integer>>>> categories = aggregator.snapshot().getCategories();
+        assertThat(categories).hasSize(2);
+        assertThat(categories.get(0).getFingerprint().getDescription()).isEqualTo("diff CHANGED $[*]");
+        assertThat(categories.get(0).getCount()).isEqualTo(2);
+        assertThat(categories.get(1).getFingerprint().getDescription())
+            .isEqualTo("exception java.lang.IllegalStateException");
+    }
+
+    @Test
+    public void experimentsCategoriseMismatchesOffTheCallingThread() throws Exception {
+        MismatchAggregator<Result<List<Integer>>> aggregator = new MismatchAggregator<>();
+        List<Thread> diffingThreads = new CopyOnWriteArrayList<>();
+        Experiment<List<Integer>> exp = new ExperimentBuilder<List<Integer>>()
+            .withName("test")
+            .withMetricsProvider(new NoopMetricsProvider())
+            .withDiffer((control, candidate) -> {
+                diffingThreads.add(Thread.currentThread());
+                return Differ.reflective().diff(control, candidate);
+            })
+            .withMismatchAggregator(aggregator)
+            .build();
+
+        exp.run(() -> Arrays.asList(1, 2), () -> Arrays.asList(1, 3));
+
+        awaitTotal(aggregator, 1);
+        assertThat(aggregator.snapshot().getCategories().get(0).getFingerprint().getDescription())
+            .isEqualTo("diff CHANGED $[*]");
+        assertThat(diffingThreads).hasSize(1).doesNotContain(Thread.currentThread());
+    }
+}
@@ -0,0 +1,174 @@
+package com.github.rawls238.scientist4j.diff;
+
+import com.github.rawls238.scientist4j.Experiment;
+import com.github.rawls238.scientist4j.ExperimentBuilder;
+import com.github.rawls238.scientist4j.Result;
+import com.github.rawls238.scientist4j.metrics.NoopMetricsProvider;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ReflectiveDifferTest {
+
+    public static class Line {
+        private final String sku;
+        private final int quantity;
+
+        Line(String sku, int quantity) {
+            this.sku = sku;
+            this.quantity = quantity;
+        }
+
+        public String getSku() {
+            return sku;
+        }
+
+        public int getQuantity() {
+            return quantity;
+        }
+    }
+
+    public static class Order {
+        private final List<Line> lines;
+        private final Map<String, Long> prices;
+        private final boolean paid;
+
+        Order(List<Line> lines, Map<String, Long> prices, boolean paid) {
+            this.lines = lines;
+            this.prices = prices;
+            this.paid = paid;
+        }
+
+        public List<Line> getLines() {
+            return lines;
+        }
+
+        public Map<String, Long> getPrices() {
+            return prices;
+        }
+
+        public boolean isPaid() {
+            return paid;
+        }
+    }
+
+    private static Map<String, Long> prices(long eur) {
+        Map<String, Long> prices = new HashMap<>();
+        prices.put("EUR", eur);
+        return prices;
+    }
+
+    private static List<String> paths(Diff diff) {
+        List<String> paths = new ArrayList<>();
+        for (Difference difference : diff.getDifferences()) {
+            paths.add(difference.getPath());
+        }
+        return paths;
+    }
+
+    @Test
+    public void equalValuesHaveAnEmptyDiff() {
+        Order order = new Order(Arrays.asList(new Line("a", 1)), prices(100), true);
+        Order same = new Order(Arrays.asList(new Line("a", 1)), prices(100), true);
+
+        assertThat(Differ.reflective().diff(order, same).isEmpty()).isTrue();
+    }
+
+    @Test
+    public void itAddressesDifferencesByPath() {
+        Order control = new Order(Arrays.asList(new Line("a", 1), new Line("b", 2)), prices(100), true);
+        Order candidate = new Order(Arrays.asList(new Line("a", 1), new Line("b", 3), new Line("c", 1)), prices(90), false);
+
+        Diff diff = Differ.reflective().diff(control, candidate);
+
+        assertThat(paths(diff)).containsExactly("$.lines[1].quantity", "$.lines[2]", "$.prices[EUR]", "$.paid");
+        assertThat(diff.getDifferences().get(1).getKind()).isEqualTo(Difference.Kind.ADDED);
+        assertThat(diff.getDifferences().get(2).getControl()).isEqualTo(100L);
+        assertThat(diff.isTruncated()).isFalse();
+    }
+
+    @Test
+    public void itComparesArraysAndSets() {
+        Diff diff = Differ.reflective().diff(
+            new Object[]{new int[]{1, 2}, new HashSet<>(Arrays.asList("x", "y"))},
+            new Object[]{new int[]{1, 5}, new HashSet<>(Arrays.asList("x", "z"))});
+
+        assertThat(paths(diff)).containsExactly("$[0][1]", "$[1][y]", "$[1][z]");
+        assertThat(diff.getDifferences().get(1).getKind()).isEqualTo(Difference.Kind.REMOVED);
+    }
+
+    @Test
+    public void itStopsAtTheMaximumNumberOfDifferences() {
+        Diff diff = Differ.reflective(2).diff(Arrays.asList(1, 2, 3, 4), Arrays.asList(5, 6, 7, 8));
+
+        assertThat(paths(diff)).containsExactly("$[0]", "$[1]");
+        assertThat(diff.isTruncated()).isTrue();
+    }
+
+    private static Object nested(int depth, Object leaf) {
+        Object value = leaf;
+        for (int i = 0; i < depth; i++) {
+            value = Collections.singletonList(value);
+        }
+        return value;
+    }
+
+    @Test
+    public void itStopsDescendingIntoDeeplyNestedCollections() {
+        Diff diff = Differ.reflective().diff(nested(100000, 1), nested(100000, 2));
+
+        assertThat(diff.isTruncated()).isTrue();
+        assertThat(diff.getDifferences()).isEmpty();
+    }
+
+    @Test
+    public void itDoesNotFollowCycles() {
+        List<Object> control = new ArrayList<>();
+        control.add(1);
+        control.add(control);
+        List<Object> candidate = new ArrayList<>();
+        candidate.add(2);
+        candidate.add(candidate);
+
+        Diff diff = Differ.reflective().diff(control, candidate);
+
+        assertThat(diff.getDifferences()).extracting(Difference::getPath).containsExactly("$[0]");
+        assertThat(diff.isTruncated()).isTrue();
+    }
+
+    @Test
+    public void itReportsTypeChanges() {
+        Diff diff = Differ.reflective().diff(Collections.singletonMap("k", 1), Collections.singletonMap("k", "1"));
+
+        assertThat(diff.getDifferences()).hasSize(1);
+        assertThat(diff.getDifferences().get(0).toString()).isEqualTo("$[k]: 1 != 1");
+    }
+
+    @Test
+    public void resultsExplainMismatches() throws Exception {
+        List<Result<Order>> published = new ArrayList<>();
+        Experiment<Order> exp = new Experiment<Order>(new ExperimentBuilder<Order>()
+            .withName("test")
+            .withMetricsProvider(new NoopMetricsProvider())
+            .withComparator((a, b) -> paths(Differ.reflective().diff(a, b)).isEmpty())
+            .withDiffer(Differ.reflective())) {
+            @Override
+            protected void publish(Result<Order> r) {
+                published.add(r);
+            }
+        };
+
+        exp.run(() -> new Order(Collections.emptyList(), prices(1), true),
+            () -> new Order(Collections.emptyList(), prices(1), false));
+
+        assertThat(published.get(0).getDiff().map(ReflectiveDifferTest::paths).get()).containsExactly("$.paid");
+    }
+}
@@ -0,0 +1,99 @@
+package com.github.rawls238.scientist4j.latency;
+
+import com.github.rawls238.scientist4j.Experiment;
+import com.github.rawls238.scientist4j.ExperimentBuilder;
+import com.github.rawls238.scientist4j.metrics.NoopMetricsProvider;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void bucketsAreWithinTheirPrecision() {
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            long value = random.nextLong() & LatencyHistogram.MAX_VALUE;
+            int index = LatencyHistogram.bucketIndex(value);
+
+            assertThat(LatencyHistogram.lowestValue(index)).isLessThanOrEqualTo(value);
+            assertThat(LatencyHistogram.highestValue(index)).isGreaterThanOrEqualTo(value)
+                .isLessThanOrEqualTo(value + value / LatencyHistogram.SUB_BUCKETS + 1);
+        }
+        assertThat(LatencyHistogram.bucketIndex(LatencyHistogram.MAX_VALUE)).isEqualTo(LatencyHistogram.BUCKETS - 1);
+    }
+
+    @Test
+    public void itReportsPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long i = 1; i <= 10_000; i++) {
+            histogram.record(i * 1000);
+        }
+
+        HistogramSnapshot snapshot = histogram.snapshot();
+        assertThat(snapshot.getCount()).isEqualTo(10_000);
+        assertThat(snapshot.getMean()).isCloseTo(5_000_500, within(1.0));
+        assertThat((double) snapshot.getValueAtPercentile(50)).isCloseTo(5_000_000, within(5_000_000 / 32.0));
+        assertThat((double) snapshot.getValueAtPercentile(99.9)).isCloseTo(9_990_000, within(9_990_000 / 32.0));
+        assertThat(snapshot.getMax()).isGreaterThanOrEqualTo(10_000_000);
+    }
+
+    @Test
+    public void signedHistogramsKeepNegativeValues() {
+        LatencyHistogram histogram = LatencyHistogram.signed();
+        for (long i = -500; i < 500; i++) {
+            histogram.record(i);
+        }
+
+        HistogramSnapshot snapshot = histogram.snapshot();
+        assertThat(snapshot.getMin()).isBetween(-500L, -480L);
+        assertThat(snapshot.getValueAtPercentile(50)).isBetween(-1L, 0L);
+        assertThat(snapshot.getMax()).isBetween(499L, 520L);
+    }
+
+    @Test
+    public void recordsFromConcurrentThreadsAreMerged() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    histogram.record(i);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertThat(histogram.snapshot().getCount()).isEqualTo(80_000);
+    }
+
+    @Test
+    public void experimentsTrackControlCandidateAndDelta() throws Exception {
+        Experiment<Integer> exp = new ExperimentBuilder<Integer>()
+            .withName("test")
+            .withMetricsProvider(new NoopMetricsProvider())
+            .withLatencyHistograms(true)
+            .build();
+
+        for (int i = 0; i < 5; i++) {
+            exp.run(() -> 1, () -> {
+                Thread.sleep(5);
+                return 1;
+            });
+        }
+
+        ExperimentLatencies latencies = exp.getLatencies().get();
+        assertThat(latencies.getControl().getCount()).isEqualTo(5);
+        assertThat(latencies.getCandidate().getMin()).isGreaterThanOrEqualTo(5_000_000);
+        assertThat(latencies.getDelta().getMin()).isGreaterThan(0);
+    }
+}
@@ -0,0 +1,82 @@
+package com.github.rawls238.scientist4j.metrics;
+
+import com.github.rawls238.scientist4j.Experiment;
+import com.github.rawls238.scientist4j.ExperimentBuilder;
+import com.github.rawls238.scientist4j.ExperimentMetrics;
+import io.dropwizard.metrics5.MetricName;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MetricKeyTest {
+
+    @Test
+    public void keysAreEqualWhenTheirComponentsAre() {
+        MetricKey key = MetricKey.of("scientist", "foo", "control");
+
+        assertThat(MetricKey.of("scientist", "foo", "control")).isEqualTo(key).hasSameHashCodeAs(key);
+        assertThat(MetricKey.of("scientist", "foo.control")).isNotEqualTo(key);
+        assertThat(key.getName()).isEqualTo("scientist.foo.control");
+        assertThat(key.getComponents()).containsExactly("scientist", "foo", "control");
+    }
+
+    @Test
+    public void dropwizardCachesHandlesPerKey() {
+        DropwizardMetricsProvider provider = new DropwizardMetricsProvider();
+        MetricKey key = MetricKey.of("scientist", "foo", "total");
+
+        MetricsProvider.Counter counter = provider.counter(key);
+        counter.increment();
+
+        assertThat(provider.counter(key)).isSameAs(counter);
+        assertThat(provider.getRegistry().getCounters().get(MetricName.build("scientist", "foo", "total")).getCount())
+            .isEqualTo(1);
+    }
+
+    @Test
+    public void micrometerCachesHandlesPerKey() {
+        MicrometerMetricsProvider provider = new MicrometerMetricsProvider();
+        MetricKey key = MetricKey.of("scientist", "foo", "total");
+
+        MetricsProvider.Counter counter = provider.counter(key);
+        counter.increment();
+
+        assertThat(provider.counter(key)).isSameAs(counter);
+        MeterRegistry registry = provider.getRegistry();
+        assertThat(registry.get("scientist.foo.total").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    public void experimentsShareResolvedMetrics() throws Exception {
+        DropwizardMetricsProvider provider = new DropwizardMetricsProvider();
+        ExperimentMetrics metrics = ExperimentMetrics.resolve(provider, "foo");
+
+        for (int i = 0; i < 3; i++) {
+            Experiment<Integer> exp = new ExperimentBuilder<Integer>().withMetrics(metrics).build();
+            exp.run(() -> 1, () -> 2);
+        }
+
+        assertThat(provider.getRegistry().getCounters().get(MetricName.build("scientist", "foo", "mismatch")).getCount())
+            .isEqualTo(3);
+        assertThat(provider.getRegistry().getTimers().get(MetricName.build("scientist", "foo", "control")).getCount())
+            .isEqualTo(3);
+    }
+
+    @Test
+    public void countersOfUnusedFeaturesAreNotRegistered() throws Exception {
+        DropwizardMetricsProvider provider = new DropwizardMetricsProvider();
+        Experiment<Integer> exp = new ExperimentBuilder<Integer>()
+            .withName("foo")
+            .withMetricsProvider(provider)
+            .withMaxInFlightCandidates(1)
+            .build();
+
+        exp.run(() -> 1, () -> exp.run(() -> 1, () -> 1));
+
+        assertThat(provider.getRegistry().getCounters().keySet()).extracting(MetricName::getKey)
+            .contains("scientist.foo.total", "scientist.foo.candidate.throttled")
+            .doesNotContain("scientist.foo.candidate.timeout", "scientist.foo.candidate.deduplicated",
+                "scientist.foo.bypassed");
+    }
+}
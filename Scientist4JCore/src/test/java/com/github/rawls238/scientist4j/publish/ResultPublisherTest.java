@@ -0,0 +1,202 @@
+package com.github.rawls238.scientist4j.publish;
+
+import com.github.rawls238.scientist4j.Experiment;
+import com.github.rawls238.scientist4j.ExperimentBuilder;
+import com.github.rawls238.scientist4j.IncompatibleTypesExperiment;
+import com.github.rawls238.scientist4j.IncompatibleTypesExperimentBuilder;
+import com.github.rawls238.scientist4j.IncompatibleTypesExperimentResult;
+import com.github.rawls238.scientist4j.Result;
+import com.github.rawls238.scientist4j.metrics.NoopMetricsProvider;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ResultPublisherTest {
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    public void ringBufferIsFirstInFirstOut() {
+        BoundedRingBuffer<Integer> buffer = new BoundedRingBuffer<>(4);
+
+        for (int i = 0; i < 4; i++) {
+            assertThat(buffer.offer(i)).isTrue();
+        }
+        assertThat(buffer.offer(4)).isFalse();
+        assertThat(buffer.size()).isEqualTo(4);
+
+        for (int i = 0; i < 4; i++) {
+            assertThat(buffer.poll()).isEqualTo(i);
+        }
+        assertThat(buffer.poll()).isNull();
+    }
+
+    @Test
+    public void publishesEveryResultFromConcurrentProducersInBatches() throws Exception {
+        List<Integer> published = Collections.synchronizedList(new ArrayList<>());
+        List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        int producers = 4;
+        int perProducer = 10_000;
+        try (ResultPublisher<Integer> publisher = new ResultPublisher<>("test", batch -> {
+            batchSizes.add(batch.size());
+            published.addAll(batch);
+        }, producers * perProducer, 64, OverflowPolicy.DROP_NEWEST, null)) {
+            List<Thread> threads = new ArrayList<>();
+            for (int p = 0; p < producers; p++) {
+                int base = p * perProducer;
+                Thread thread = new Thread(() -> {
+                    for (int i = 0; i < perProducer; i++) {
+                        publisher.offer(base + i);
+                    }
+                });
+                threads.add(thread);
+                thread.start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        }
+
+        assertThat(published).hasSize(producers * perProducer).doesNotHaveDuplicates();
+        assertThat(batchSizes).allMatch(size -> size <= 64);
+    }
+
+    @Test
+    public void dropsNewestResultsWhenFull() {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch sinkBlocked = new CountDownLatch(1);
+        List<Integer> published = new CopyOnWriteArrayList<>();
+        ResultPublisher<Integer> publisher = new ResultPublisher<>("test", batch -> {
+            sinkBlocked.countDown();
+            await(release);
+            published.addAll(batch);
+        }, 2, 1, OverflowPolicy.DROP_NEWEST, new NoopMetricsProvider());
+
+        publisher.offer(0);
+        await(sinkBlocked);
+        assertThat(publisher.offer(1)).isTrue();
+        assertThat(publisher.offer(2)).isTrue();
+        assertThat(publisher.offer(3)).isFalse();
+        release.countDown();
+        publisher.close();
+
+        assertThat(published).containsExactly(0, 1, 2);
+        assertThat(publisher.getDroppedCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void dropsOldestResultsWhenConfigured() {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch sinkBlocked = new CountDownLatch(1);
+        List<Integer> published = new CopyOnWriteArrayList<>();
+        ResultPublisher<Integer> publisher = new ResultPublisher<>("test", batch -> {
+            sinkBlocked.countDown();
+            await(release);
+            published.addAll(batch);
+        }, 2, 1, OverflowPolicy.DROP_OLDEST, null);
+
+        publisher.offer(0);
+        await(sinkBlocked);
+        publisher.offer(1);
+        publisher.offer(2);
+        assertThat(publisher.offer(3)).isTrue();
+        release.countDown();
+        publisher.close();
+
+        assertThat(published).containsExactly(0, 2, 3);
+        assertThat(publisher.getDroppedCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void keepsPublishingAfterTheSinkFails() {
+        List<Integer> published = new CopyOnWriteArrayList<>();
+        ResultPublisher<Integer> publisher = new ResultPublisher<>("test", batch -> {
+            if (batch.contains(0)) {
+                throw new IllegalStateException("sink failed");
+            }
+            published.addAll(batch);
+        }, 16, 1, OverflowPolicy.DROP_NEWEST, null);
+
+        publisher.offer(0);
+        publisher.offer(1);
+        publisher.close();
+
+        assertThat(published).containsExactly(1);
+        assertThat(publisher.getSinkFailureCount()).isEqualTo(1);
+        assertThat(publisher.offer(2)).isFalse();
+    }
+
+    @Test
+    public void wakesUpToPublishAfterIdling() throws Exception {
+        CountDownLatch first = new CountDownLatch(1);
+        CountDownLatch second = new CountDownLatch(2);
+        ResultPublisher<Integer> publisher = new ResultPublisher<>("test", batch -> {
+            first.countDown();
+            batch.forEach(result -> second.countDown());
+        }, 16, 16, OverflowPolicy.DROP_NEWEST, null);
+
+        publisher.offer(0);
+        assertThat(first.await(5, TimeUnit.SECONDS)).isTrue();
+        Thread.sleep(50);
+        publisher.offer(1);
+
+        assertThat(second.await(5, TimeUnit.SECONDS)).isTrue();
+        publisher.close();
+    }
+
+    @Test
+    public void experimentPublishesOffTheCallingThread() throws Exception {
+        List<String> publishingThreads = new CopyOnWriteArrayList<>();
+        CountDownLatch publishedLatch = new CountDownLatch(1);
+        ResultPublisher<Result<Integer>> publisher = new ResultPublisher<>(batch -> {
+            publishingThreads.add(Thread.currentThread().getName());
+            publishedLatch.countDown();
+        });
+        Experiment<Integer> exp = new ExperimentBuilder<Integer>()
+            .withName("test")
+            .withMetricsProvider(new NoopMetricsProvider())
+            .withResultPublisher(publisher)
+            .build();
+
+        assertThat(exp.run(() -> 1, () -> 1)).isEqualTo(1);
+
+        assertThat(publishedLatch.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(publishingThreads).doesNotContain(Thread.currentThread().getName());
+        publisher.close();
+    }
+
+    @Test
+    public void incompatibleTypesExperimentPublishesOffTheCallingThread() throws Exception {
+        List<String> publishingThreads = new CopyOnWriteArrayList<>();
+        CountDownLatch publishedLatch = new CountDownLatch(1);
+        ResultPublisher<IncompatibleTypesExperimentResult<Integer, String>> publisher = new ResultPublisher<>(batch -> {
+            publishingThreads.add(Thread.currentThread().getName());
+            publishedLatch.countDown();
+        });
+        IncompatibleTypesExperiment<Integer, String> exp = new IncompatibleTypesExperimentBuilder<Integer, String>()
+            .withName("test")
+            .withMetricsProvider(new NoopMetricsProvider())
+            .withComparator((control, candidate) -> control.toString().equals(candidate))
+            .withResultPublisher(publisher)
+            .build();
+
+        assertThat(exp.run(() -> 1, () -> "1")).isEqualTo(1);
+
+        assertThat(publishedLatch.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(publishingThreads).doesNotContain(Thread.currentThread().getName());
+        publisher.close();
+    }
+}
@@ -0,0 +1,150 @@
+package com.github.rawls238.scientist4j.replay;
+
+import com.github.rawls238.scientist4j.Experiment;
+import com.github.rawls238.scientist4j.ExperimentBuilder;
+import com.github.rawls238.scientist4j.Result;
+import com.github.rawls238.scientist4j.metrics.NoopMetricsProvider;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class CaptureReplayTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static final Codec<Integer> INTS = new Codec<Integer>() {
+        @Override
+        public byte[] encode(Integer value) {
+            return Integer.toString(value).getBytes();
+        }
+
+        @Override
+        public Integer decode(byte[] bytes) {
+            return Integer.parseInt(new String(bytes));
+        }
+    };
+
+    private static List<CapturedCall<String, Integer>> readAll(Path file) throws Exception {
+        List<CapturedCall<String, Integer>> calls = new ArrayList<>();
+        try (CaptureLogReader<String, Integer> reader = new CaptureLogReader<>(file, Codec.utf8(), INTS)) {
+            reader.forEachRemaining(calls::add);
+        }
+        return calls;
+    }
+
+    @Test
+    public void itCapturesControlCallsWithoutRunningCandidates() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("capture.log");
+        Experiment<Integer> exp = new Experiment<>("test", new NoopMetricsProvider());
+
+        try (CaptureLog<String, Integer> log = new CaptureLog<>(file, Codec.utf8(), INTS)) {
+            assertThat(exp.capture("one", () -> 1, log)).isEqualTo(1);
+            assertThat(exp.capture("two", () -> 2, log)).isEqualTo(2);
+            assertThatThrownBy(() -> exp.capture("three", () -> {
+                throw new IllegalStateException("broken");
+            }, log)).isInstanceOf(IllegalStateException.class);
+        }
+
+        List<CapturedCall<String, Integer>> calls = readAll(file);
+        assertThat(calls).hasSize(2);
+        assertThat(calls.get(0).getInput()).isEqualTo("one");
+        assertThat(calls.get(0).getValue()).isEqualTo(1);
+        assertThat(calls.get(1).getInput()).isEqualTo("two");
+        assertThat(calls.get(1).getDuration()).isPositive();
+    }
+
+    @Test
+    public void itRollsOverToNewSegments() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("capture.log");
+        try (CaptureLog<String, Integer> log = new CaptureLog<>(file, Codec.utf8(), INTS, 64)) {
+            for (int i = 0; i < 100; i++) {
+                assertThat(log.append("input-" + i, i, i)).isTrue();
+            }
+            assertThat(log.append(new String(new char[64]), 0, 0)).isFalse();
+            assertThat(log.getDropped()).isEqualTo(1);
+        }
+
+        List<CapturedCall<String, Integer>> calls = readAll(file);
+        assertThat(calls).hasSize(100);
+        for (int i = 0; i < 100; i++) {
+            assertThat(calls.get(i).getInput()).isEqualTo("input-" + i);
+            assertThat(calls.get(i).getValue()).isEqualTo(i);
+        }
+    }
+
+    @Test
+    public void itReadsLogsThatWereNotClosed() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("capture.log");
+        CaptureLog<String, Integer> log = new CaptureLog<>(file, Codec.utf8(), INTS, 4096);
+        log.append("one", 1, 1);
+        log.flush();
+
+        assertThat(Files.size(file)).isEqualTo(4096);
+        assertThat(readAll(file)).extracting(CapturedCall::getInput).containsExactly("one");
+        log.close();
+    }
+
+    @Test
+    public void itReplaysCandidatesInParallel() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("capture.log");
+        List<Result<Integer>> published = new CopyOnWriteArrayList<>();
+        Experiment<Integer> exp = new Experiment<Integer>("test", new NoopMetricsProvider()) {
+            @Override
+            protected void publish(Result<Integer> r) {
+                published.add(r);
+            }
+        };
+        try (CaptureLog<String, Integer> log = new CaptureLog<>(file, Codec.utf8(), INTS)) {
+            for (int i = 0; i < 1000; i++) {
+                int value = i;
+                exp.capture(Integer.toString(i), () -> value, log);
+            }
+        }
+        AtomicInteger candidateCalls = new AtomicInteger();
+        ReplayRunner<String, Integer> runner = new ReplayRunner<>(exp, input -> {
+            candidateCalls.incrementAndGet();
+            int value = Integer.parseInt(input);
+            return value % 10 == 0 ? -1 : value;
+        }, new ForkJoinPool(4), 64);
+
+        long replayed;
+        try (CaptureLogReader<String, Integer> reader = new CaptureLogReader<>(file, Codec.utf8(), INTS)) {
+            replayed = runner.replay(reader);
+        }
+
+        assertThat(replayed).isEqualTo(1000);
+        assertThat(candidateCalls.get()).isEqualTo(1000);
+        assertThat(published).hasSize(1000);
+        assertThat(published).filteredOn(r -> !r.getMatch().get()).hasSize(100);
+    }
+
+    @Test
+    public void itReplaysEveryCallWhateverTheSamplingPolicy() throws Exception {
+        AtomicInteger candidateCalls = new AtomicInteger();
+        Experiment<Integer> exp = new ExperimentBuilder<Integer>()
+            .withName("test")
+            .withMetricsProvider(new NoopMetricsProvider())
+            .withSamplingPolicy(() -> false)
+            .build();
+        List<CapturedCall<String, Integer>> calls = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            calls.add(new CapturedCall<>(Integer.toString(i), i, 1));
+        }
+
+        assertThat(new ReplayRunner<String, Integer>(exp, input -> candidateCalls.incrementAndGet())
+            .replay(calls.iterator())).isEqualTo(10);
+        assertThat(candidateCalls.get()).isEqualTo(10);
+    }
+}
@@ -0,0 +1,228 @@
+package com.github.rawls238.scientist4j.sampling;
+
+import com.github.rawls238.scientist4j.Experiment;
+import com.github.rawls238.scientist4j.ExperimentBuilder;
+import com.github.rawls238.scientist4j.ExperimentMetrics;
+import com.github.rawls238.scientist4j.OrderingStrategy;
+import com.github.rawls238.scientist4j.metrics.DropwizardMetricsProvider;
+import com.github.rawls238.scientist4j.metrics.NoopMetricsProvider;
+import io.dropwizard.metrics5.MetricName;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class SamplingPolicyTest {
+
+    private static int countSamples(SamplingPolicy policy, int calls) {
+        int sampled = 0;
+        for (int i = 0; i < calls; i++) {
+            if (policy.sample()) {
+                sampled++;
+            }
+        }
+        return sampled;
+    }
+
+    @Test
+    public void percentageSamplesRoughlyTheConfiguredFraction() {
+        assertThat(countSamples(SamplingPolicy.percentage(0), 1000)).isEqualTo(0);
+        assertThat(countSamples(SamplingPolicy.percentage(1), 1000)).isEqualTo(1000);
+        assertThat(countSamples(SamplingPolicy.percentage(0.1), 100_000)).isBetween(8_000, 12_000);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void percentageRejectsFractionsOutOfRange() {
+        SamplingPolicy.percentage(1.5);
+    }
+
+    @Test
+    public void rateLimitAllowsABurstThenThrottles() throws Exception {
+        SamplingPolicy policy = new RateLimitedSamplingPolicy(100, 5);
+
+        assertThat(countSamples(policy, 50)).isEqualTo(5);
+
+        Thread.sleep(30);
+        assertThat(countSamples(policy, 50)).isBetween(1, 5);
+    }
+
+    @Test
+    public void andRequiresBothPolicies() {
+        assertThat(SamplingPolicy.always().and(SamplingPolicy.percentage(0)).sample()).isFalse();
+        assertThat(SamplingPolicy.always().and(SamplingPolicy.always()).sample()).isTrue();
+    }
+
+    @Test
+    public void adaptiveBacksOffWhenTheQueueIsDeep() {
+        AtomicLong queueDepth = new AtomicLong(100);
+        SamplingPolicy policy = SamplingPolicy.adaptive(SamplingPolicy.always(), 1, TimeUnit.SECONDS,
+            queueDepth::get, 10);
+
+        assertThat(policy.sample()).isFalse();
+
+        queueDepth.set(0);
+        assertThat(policy.sample()).isTrue();
+    }
+
+    @Test
+    public void adaptiveBacksOffWhileCandidateP99IsOverTheThreshold() throws Exception {
+        AdaptiveSamplingPolicy policy = new AdaptiveSamplingPolicy(SamplingPolicy.always(), 10, TimeUnit.MILLISECONDS,
+            null, 0, TimeUnit.MILLISECONDS.toNanos(5));
+
+        for (int i = 0; i < 100; i++) {
+            policy.recordCandidate(TimeUnit.MILLISECONDS.toNanos(i < 95 ? 1 : 50));
+        }
+        Thread.sleep(10);
+        policy.sample();
+        assertThat(policy.getFraction()).isEqualTo(0.5);
+
+        for (int i = 0; i < 100; i++) {
+            policy.recordCandidate(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        Thread.sleep(10);
+        policy.sample();
+        assertThat(policy.getFraction()).isEqualTo(0.5 + AdaptiveSamplingPolicy.RECOVERY_STEP);
+    }
+
+    private static void recordControls(SamplingPolicy policy, int count, long durationMillis) {
+        for (int i = 0; i < count; i++) {
+            policy.recordControl(TimeUnit.MILLISECONDS.toNanos(durationMillis));
+        }
+    }
+
+    private static void rollWindow(SamplingPolicy policy) throws InterruptedException {
+        Thread.sleep(10);
+        policy.sample();
+    }
+
+    @Test
+    public void loadSheddingShedsWhileControlP99IsOverBudgetAndRecoversGradually() throws Exception {
+        DropwizardMetricsProvider provider = new DropwizardMetricsProvider();
+        LoadSheddingSamplingPolicy policy = new LoadSheddingSamplingPolicy(SamplingPolicy.always(), 10,
+            TimeUnit.MILLISECONDS, null, 0, ExperimentMetrics.resolve(provider, "test"),
+            TimeUnit.MILLISECONDS.toNanos(5));
+
+        recordControls(policy, 95, 1);
+        recordControls(policy, 5, 50);
+        rollWindow(policy);
+        assertThat(policy.getState()).isEqualTo(LoadSheddingSamplingPolicy.State.SHEDDING);
+        assertThat(countSamples(policy, 100)).isZero();
+        assertThat(provider.getRegistry().getCounters().get(MetricName.build("scientist", "test", "candidate", "shed"))
+            .getCount()).isEqualTo(101);
+        assertThat(provider.getRegistry().getGauges()
+            .get(MetricName.build("scientist", "test", "candidate", "shedding")).getValue()).isEqualTo(2L);
+
+        // under budget, but not by enough to recover
+        recordControls(policy, 100, 9);
+        rollWindow(policy);
+        assertThat(policy.getState()).isEqualTo(LoadSheddingSamplingPolicy.State.SHEDDING);
+
+        recordControls(policy, 100, 1);
+        rollWindow(policy);
+        assertThat(policy.getState()).isEqualTo(LoadSheddingSamplingPolicy.State.RECOVERING);
+        assertThat(policy.getFraction()).isEqualTo(LoadSheddingSamplingPolicy.MIN_FRACTION);
+
+        for (int i = 0; i < 6; i++) {
+            rollWindow(policy);
+        }
+        assertThat(policy.getState()).isEqualTo(LoadSheddingSamplingPolicy.State.NORMAL);
+        assertThat(countSamples(policy, 100)).isEqualTo(100);
+    }
+
+    @Test
+    public void loadSheddingShedsWhileLoadIsOverTheLimit() throws Exception {
+        AtomicReference<Double> load = new AtomicReference<>(0.95);
+        LoadSheddingSamplingPolicy policy = new LoadSheddingSamplingPolicy(SamplingPolicy.always(), 10,
+            TimeUnit.MILLISECONDS, load::get, 0.9, null, TimeUnit.MILLISECONDS.toNanos(5));
+
+        rollWindow(policy);
+        assertThat(policy.getState()).isEqualTo(LoadSheddingSamplingPolicy.State.SHEDDING);
+
+        load.set(0.8);
+        rollWindow(policy);
+        assertThat(policy.getState()).isEqualTo(LoadSheddingSamplingPolicy.State.SHEDDING);
+
+        load.set(0.5);
+        rollWindow(policy);
+        assertThat(policy.getState()).isEqualTo(LoadSheddingSamplingPolicy.State.RECOVERING);
+    }
+
+    @Test
+    public void loadSheddingIsFedTheControlDurationsOfAnExperiment() throws Exception {
+        LoadSheddingSamplingPolicy policy = new LoadSheddingSamplingPolicy(SamplingPolicy.always(), 1,
+            TimeUnit.MILLISECONDS, null, 0, null, TimeUnit.MILLISECONDS.toNanos(5));
+        AtomicInteger candidateCalls = new AtomicInteger();
+        Experiment<Integer> exp = new ExperimentBuilder<Integer>()
+            .withName("test")
+            .withMetricsProvider(new NoopMetricsProvider())
+            .withSamplingPolicy(policy)
+            // each sample rolls the window over the slow control of the call before it
+            .withOrderingStrategy(OrderingStrategy.alwaysCandidateFirst())
+            .build();
+
+        for (int i = 0; i < 3; i++) {
+            exp.run(() -> {
+                Thread.sleep(5);
+                return 1;
+            }, candidateCalls::incrementAndGet);
+        }
+        int beforeShedding = candidateCalls.get();
+        exp.run(() -> 1, candidateCalls::incrementAndGet);
+
+        assertThat(policy.getState()).isEqualTo(LoadSheddingSamplingPolicy.State.SHEDDING);
+        assertThat(candidateCalls.get()).isEqualTo(beforeShedding);
+    }
+
+    @Test
+    public void loadSheddingSeesControlsThatThrow() throws Exception {
+        LoadSheddingSamplingPolicy policy = new LoadSheddingSamplingPolicy(SamplingPolicy.always(), 1,
+            TimeUnit.MILLISECONDS, null, 0, null, TimeUnit.MILLISECONDS.toNanos(5));
+        AtomicInteger candidateCalls = new AtomicInteger();
+        Experiment<Integer> exp = new ExperimentBuilder<Integer>()
+            .withName("test")
+            .withMetricsProvider(new NoopMetricsProvider())
+            .withSamplingPolicy(policy)
+            // each sample rolls the window over the slow control of the call before it
+            .withOrderingStrategy(OrderingStrategy.alwaysCandidateFirst())
+            .build();
+
+        for (int i = 0; i < 3; i++) {
+            assertThatThrownBy(() -> exp.run(() -> {
+                Thread.sleep(5);
+                throw new IllegalStateException("slow and failing");
+            }, candidateCalls::incrementAndGet)).isInstanceOf(IllegalStateException.class);
+        }
+        assertThat(exp.runAsync(() -> {
+            sleep(5);
+            CompletableFuture<Integer> failed = new CompletableFuture<>();
+            failed.completeExceptionally(new IllegalStateException("slow and failing"));
+            return failed;
+        }, () -> CompletableFuture.completedFuture(candidateCalls.incrementAndGet())).toCompletableFuture())
+            .isCompletedExceptionally();
+        int beforeShedding = candidateCalls.get();
+        exp.run(() -> 1, candidateCalls::incrementAndGet);
+
+        assertThat(policy.getState()).isEqualTo(LoadSheddingSamplingPolicy.State.SHEDDING);
+        assertThat(candidateCalls.get()).isEqualTo(beforeShedding);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    public void loadSuppliersReportSomething() {
+        assertThat(LoadSheddingSamplingPolicy.systemLoadPerProcessor().getAsDouble()).isNotNaN();
+        assertThat(LoadSheddingSamplingPolicy.processCpuLoad().getAsDouble()).isLessThanOrEqualTo(1.0);
+    }
+}
@@ -0,0 +1,330 @@
+package com.github.rawls238.scientist4j.streaming;
+
+import com.github.rawls238.scientist4j.metrics.DropwizardMetricsProvider;
+import com.github.rawls238.scientist4j.metrics.NoopMetricsProvider;
+import com.github.rawls238.scientist4j.sampling.SamplingPolicy;
+import io.dropwizard.metrics5.MetricName;
+import org.junit.Test;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static com.github.rawls238.scientist4j.TestExperiments.count;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class StreamingExperimentTest {
+
+  /**
+   * Emits its elements on the requesting thread, as far as demand allows, then completes or fails.
+   */
+  private static final class ListPublisher<T> implements Publisher<T> {
+    private final List<T> elements;
+    private final RuntimeException error;
+    final AtomicLong requested = new AtomicLong();
+    final AtomicBoolean cancelled = new AtomicBoolean();
+
+    ListPublisher(List<T> elements, RuntimeException error) {
+      this.elements = elements;
+      this.error = error;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super T> subscriber) {
+      subscriber.onSubscribe(new Subscription() {
+        private long demand;
+        private int next;
+        private boolean emitting;
+        private boolean done;
+
+        @Override
+        public void request(long n) {
+          requested.addAndGet(n);
+          demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+          if (emitting) {
+            return;
+          }
+          emitting = true;
+          while (!done && !cancelled.get() && demand > 0 && next < elements.size()) {
+            demand--;
+            subscriber.onNext(elements.get(next++));
+          }
+          if (!done && !cancelled.get() && next == elements.size()) {
+            done = true;
+            if (error == null) {
+              subscriber.onComplete();
+            } else {
+              subscriber.onError(error);
+            }
+          }
+          emitting = false;
+        }
+
+        @Override
+        public void cancel() {
+          cancelled.set(true);
+        }
+      });
+    }
+  }
+
+  private static final class CollectingSubscriber<T> implements Subscriber<T> {
+    final List<T> elements = new ArrayList<>();
+    Throwable error;
+    boolean completed;
+
+    @Override
+    public void onSubscribe(Subscription subscription) {
+      subscription.request(Long.MAX_VALUE);
+    }
+
+    @Override
+    public void onNext(T element) {
+      elements.add(element);
+    }
+
+    @Override
+    public void onError(Throwable error) {
+      this.error = error;
+    }
+
+    @Override
+    public void onComplete() {
+      completed = true;
+    }
+  }
+
+  private static List<Integer> range(int from, int to) {
+    return IntStream.range(from, to).boxed().collect(Collectors.toList());
+  }
+
+  private static ListPublisher<Integer> publisher(List<Integer> elements) {
+    return new ListPublisher<>(elements, null);
+  }
+
+  private static StreamingExperiment<Integer> experiment(DropwizardMetricsProvider provider, int maxBufferedElements,
+                                                         List<StreamingResult<Integer>> published) {
+    return new StreamingExperiment<Integer>(new StreamingExperimentBuilder<Integer>()
+        .withName("test")
+        .withMetricsProvider(provider)
+        .withMaxBufferedElements(maxBufferedElements)) {
+      @Override
+      protected void publish(StreamingResult<Integer> result) {
+        published.add(result);
+      }
+    };
+  }
+
+  @Test
+  public void itForwardsTheControlAndPublishesAMatch() {
+    List<StreamingResult<Integer>> published = new ArrayList<>();
+    DropwizardMetricsProvider provider = new DropwizardMetricsProvider();
+    ListPublisher<Integer> candidate = publisher(range(0, 100));
+    CollectingSubscriber<Integer> subscriber = new CollectingSubscriber<>();
+
+    experiment(provider, 8, published).run(publisher(range(0, 100)), () -> candidate).subscribe(subscriber);
+
+    assertThat(subscriber.elements).isEqualTo(range(0, 100));
+    assertThat(subscriber.completed).isTrue();
+    assertThat(published).hasSize(1);
+    assertThat(published.get(0).getMatch()).contains(true);
+    assertThat(published.get(0).getComparedElements()).isEqualTo(100);
+    assertThat(count(provider, "total")).isEqualTo(1);
+    assertThat(count(provider, "mismatch")).isZero();
+  }
+
+  @Test
+  public void itOnlyRequestsAsManyCandidateElementsAsItCanBuffer() {
+    List<StreamingResult<Integer>> published = new ArrayList<>();
+    ListPublisher<Integer> candidate = publisher(range(0, 100));
+    ListPublisher<Integer> control = publisher(range(0, 100));
+    StreamingExperiment<Integer> exp = experiment(new DropwizardMetricsProvider(), 8, published);
+
+    exp.run(control, () -> candidate).subscribe(new Subscriber<Integer>() {
+      @Override
+      public void onSubscribe(Subscription subscription) {
+        subscription.request(10);
+      }
+
+      @Override
+      public void onNext(Integer element) {
+      }
+
+      @Override
+      public void onError(Throwable error) {
+      }
+
+      @Override
+      public void onComplete() {
+      }
+    });
+
+    // 8 buffered ahead, and 8 more once 8 of them were compared
+    assertThat(candidate.requested.get()).isEqualTo(16);
+    assertThat(published).isEmpty();
+  }
+
+  @Test
+  public void aMismatchCancelsTheCandidate() {
+    List<StreamingResult<Integer>> published = new ArrayList<>();
+    DropwizardMetricsProvider provider = new DropwizardMetricsProvider();
+    ListPublisher<Integer> candidate = publisher(Arrays.asList(0, 1, 9, 3, 4));
+    CollectingSubscriber<Integer> subscriber = new CollectingSubscriber<>();
+
+    experiment(provider, 8, published).run(publisher(range(0, 5)), () -> candidate).subscribe(subscriber);
+
+    assertThat(subscriber.elements).isEqualTo(range(0, 5));
+    assertThat(candidate.cancelled).isTrue();
+    StreamingResult<Integer> result = published.get(0);
+    assertThat(result.getMatch()).contains(false);
+    assertThat(result.getMismatchIndex()).contains(2L);
+    assertThat(result.getControlElement()).contains(2);
+    assertThat(result.getCandidateElement()).contains(9);
+    assertThat(count(provider, "mismatch")).isEqualTo(1);
+  }
+
+  @Test
+  public void streamsOfDifferentLengthsMismatch() {
+    List<StreamingResult<Integer>> published = new ArrayList<>();
+    StreamingExperiment<Integer> exp = experiment(new DropwizardMetricsProvider(), 8, published);
+
+    exp.run(publisher(range(0, 3)), () -> publisher(range(0, 2))).subscribe(new CollectingSubscriber<>());
+    exp.run(publisher(range(0, 2)), () -> publisher(range(0, 3))).subscribe(new CollectingSubscriber<>());
+
+    assertThat(published).hasSize(2);
+    assertThat(published.get(0).getMismatchIndex()).contains(2L);
+    assertThat(published.get(0).getControlElement()).contains(2);
+    assertThat(published.get(0).getCandidateElement()).isEmpty();
+    assertThat(published.get(1).getMismatchIndex()).contains(2L);
+    assertThat(published.get(1).getControlElement()).isEmpty();
+    assertThat(published.get(1).getCandidateElement()).contains(2);
+  }
+
+  @Test
+  public void itAbortsWhenTheControlGetsTooFarAhead() {
+    List<StreamingResult<Integer>> published = new ArrayList<>();
+    DropwizardMetricsProvider provider = new DropwizardMetricsProvider();
+    AtomicBoolean cancelled = new AtomicBoolean();
+    Publisher<Integer> silentCandidate = subscriber -> subscriber.onSubscribe(new Subscription() {
+      @Override
+      public void request(long n) {
+      }
+
+      @Override
+      public void cancel() {
+        cancelled.set(true);
+      }
+    });
+    CollectingSubscriber<Integer> subscriber = new CollectingSubscriber<>();
+
+    experiment(provider, 8, published).run(publisher(range(0, 100)), () -> silentCandidate).subscribe(subscriber);
+
+    assertThat(subscriber.elements).isEqualTo(range(0, 100));
+    assertThat(subscriber.completed).isTrue();
+    assertThat(cancelled).isTrue();
+    assertThat(published).hasSize(1);
+    assertThat(published.get(0).isAborted()).isTrue();
+    assertThat(published.get(0).getMatch()).isEmpty();
+    assertThat(count(provider, "candidate.aborted")).isEqualTo(1);
+    assertThat(count(provider, "mismatch")).isZero();
+  }
+
+  @Test
+  public void errorsAreComparedByType() {
+    List<StreamingResult<Integer>> published = new ArrayList<>();
+    DropwizardMetricsProvider provider = new DropwizardMetricsProvider();
+    StreamingExperiment<Integer> exp = experiment(provider, 8, published);
+    CollectingSubscriber<Integer> subscriber = new CollectingSubscriber<>();
+
+    exp.run(new ListPublisher<>(range(0, 3), new IllegalStateException("control")),
+        () -> new ListPublisher<>(range(0, 3), new IllegalStateException("candidate"))).subscribe(subscriber);
+    exp.run(publisher(range(0, 3)),
+        () -> new ListPublisher<>(range(0, 3), new IllegalArgumentException())).subscribe(new CollectingSubscriber<>());
+
+    assertThat(subscriber.error).hasMessage("control");
+    assertThat(published).extracting(r -> r.getMatch().get()).containsExactly(true, false);
+    assertThat(published.get(1).getCandidateError()).containsInstanceOf(IllegalArgumentException.class);
+    assertThat(count(provider, "candidate.exception")).isEqualTo(2);
+  }
+
+  @Test
+  public void itOnlySubscribesTheControlWhenNotSampled() {
+    AtomicInteger candidateCalls = new AtomicInteger();
+    StreamingExperiment<Integer> exp = new StreamingExperimentBuilder<Integer>()
+        .withName("test")
+        .withMetricsProvider(new NoopMetricsProvider())
+        .withSamplingPolicy(SamplingPolicy.percentage(0))
+        .build();
+    CollectingSubscriber<Integer> subscriber = new CollectingSubscriber<>();
+
+    exp.run(publisher(range(0, 3)), () -> {
+      candidateCalls.incrementAndGet();
+      return publisher(Collections.emptyList());
+    }).subscribe(subscriber);
+
+    assertThat(subscriber.elements).isEqualTo(range(0, 3));
+    assertThat(candidateCalls.get()).isZero();
+  }
+
+  @Test
+  public void itTimesBothStreams() {
+    DropwizardMetricsProvider provider = new DropwizardMetricsProvider();
+    StreamingExperiment<Integer> exp = experiment(provider, 8, new ArrayList<>());
+
+    exp.run(publisher(range(0, 3)), () -> publisher(range(0, 3))).subscribe(new CollectingSubscriber<>());
+
+    assertThat(provider.getRegistry().getTimers().get(MetricName.build("scientist", "test", "control")).getCount())
+        .isEqualTo(1);
+    assertThat(provider.getRegistry().getTimers().get(MetricName.build("scientist", "test", "candidate"))
+        .getCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void itAbortsWhenTheCandidateTimesOut() throws Exception {
+    List<StreamingResult<Integer>> published = new CopyOnWriteArrayList<>();
+    DropwizardMetricsProvider provider = new DropwizardMetricsProvider();
+    AtomicBoolean cancelled = new AtomicBoolean();
+    StreamingExperiment<Integer> exp = new StreamingExperiment<Integer>(new StreamingExperimentBuilder<Integer>()
+        .withName("test")
+        .withMetricsProvider(provider)
+        .withCandidateTimeout(10, TimeUnit.MILLISECONDS)) {
+      @Override
+      protected void publish(StreamingResult<Integer> result) {
+        published.add(result);
+      }
+    };
+    CollectingSubscriber<Integer> subscriber = new CollectingSubscriber<>();
+
+    exp.run(publisher(range(0, 3)), () -> candidate -> candidate.onSubscribe(new Subscription() {
+      @Override
+      public void request(long n) {
+      }
+
+      @Override
+      public void cancel() {
+        cancelled.set(true);
+      }
+    })).subscribe(subscriber);
+
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (published.isEmpty() && System.nanoTime() < deadline) {
+      Thread.sleep(1);
+    }
+    assertThat(subscriber.elements).isEqualTo(range(0, 3));
+    assertThat(published).hasSize(1);
+    assertThat(published.get(0).isAborted()).isTrue();
+    assertThat(cancelled).isTrue();
+    assertThat(count(provider, "candidate.timeout")).isEqualTo(1);
+  }
+}